@@ -17,6 +17,7 @@
 package com.powersurgepub.psutils2.clubplanner;
 
 	import com.powersurgepub.psutils2.list.*;
+	import com.powersurgepub.psutils2.markup.*;
 	import com.powersurgepub.psutils2.records.*;
 	import com.powersurgepub.psutils2.strings.*;
 	import com.powersurgepub.psutils2.tags.*;
@@ -509,7 +510,7 @@ public class ClubEvent
   /**
    The Discussion points, formatted as HTML.
    */
-  private String discussAsHtml = null;
+  private LazyHtml discussAsHtml = new LazyHtml();
  
   public static final String DISCUSS_AS_HTML_FIELD_NAME = "Discuss as HTML";
  
@@ -541,7 +542,7 @@ public class ClubEvent
   /**
    The action items, formatted as HTML.
    */
-  private String actionsAsHtml = null;
+  private LazyHtml actionsAsHtml = new LazyHtml();
  
   public static final String ACTIONS_AS_HTML_FIELD_NAME = "Actions as HTML";
  
@@ -605,7 +606,7 @@ public class ClubEvent
   /**
    The teaser, formatted as HTML.
    */
-  private String teaserAsHtml = null;
+  private LazyHtml teaserAsHtml = new LazyHtml();
  
   public static final String TEASER_AS_HTML_FIELD_NAME = "Teaser as HTML";
  
@@ -621,7 +622,7 @@ public class ClubEvent
   /**
    The blurb, formatted as HTML.
    */
-  private String blurbAsHtml = null;
+  private LazyHtml blurbAsHtml = new LazyHtml();
  
   public static final String BLURB_AS_HTML_FIELD_NAME = "Blurb as HTML";
  
@@ -909,7 +910,7 @@ public class ClubEvent
   /**
    The event recap, formatted as HTML.
    */
-  private String recapAsHtml = null;
+  private LazyHtml recapAsHtml = new LazyHtml();
  
   public static final String RECAP_AS_HTML_FIELD_NAME = "Recap as HTML";
  
@@ -1085,7 +1086,7 @@ public class ClubEvent
   /**
    The Notes block, reformatted as HTML.
    */
-  private String notesAsHtml = null;
+  private LazyHtml notesAsHtml = new LazyHtml();
  
   public static final String NOTES_AS_HTML_FIELD_NAME = "Notes as HTML";
  
@@ -2624,11 +2625,11 @@ public class ClubEvent
       case DISCUSS_COLUMN_INDEX:
           return discuss;
       case DISCUSS_AS_HTML_COLUMN_INDEX:
-          return discussAsHtml;
+          return getDiscussAsHtml();
       case ACTIONS_COLUMN_INDEX:
           return actions;
       case ACTIONS_AS_HTML_COLUMN_INDEX:
-          return actionsAsHtml;
+          return getActionsAsHtml();
       case WHY_COLUMN_INDEX:
           return why;
       case TEASER_COLUMN_INDEX:
@@ -2636,9 +2637,9 @@ public class ClubEvent
       case BLURB_COLUMN_INDEX:
           return blurb;
       case TEASER_AS_HTML_COLUMN_INDEX:
-          return teaserAsHtml;
+          return getTeaserAsHtml();
       case BLURB_AS_HTML_COLUMN_INDEX:
-          return blurbAsHtml;
+          return getBlurbAsHtml();
       case COST_COLUMN_INDEX:
           return cost;
       case PURCHASE_COLUMN_INDEX:
@@ -2674,7 +2675,7 @@ public class ClubEvent
       case RECAP_COLUMN_INDEX:
           return recap;
       case RECAP_AS_HTML_COLUMN_INDEX:
-          return recapAsHtml;
+          return getRecapAsHtml();
       case ID_COLUMN_INDEX:
           return id;
       case LINK_COLUMN_INDEX:
@@ -2696,7 +2697,7 @@ public class ClubEvent
       case NOTES_COLUMN_INDEX:
           return notes;
       case NOTES_AS_HTML_COLUMN_INDEX:
-          return notesAsHtml;
+          return getNotesAsHtml();
       default: return null;
     }
   }
@@ -4813,7 +4814,7 @@ public class ClubEvent
      @param  discussAsHtml The discuss as html for this club event.
    */
   public void setDiscussAsHtml (String discussAsHtml) {
-    this.discussAsHtml = discussAsHtml;
+    this.discussAsHtml.set (discussAsHtml);
     setModified (true);
   }
 
@@ -4836,7 +4837,7 @@ public class ClubEvent
     @return True if the discuss as html for this club event is not null.
    */
   public boolean hasDiscussAsHtml () {
-    return (discussAsHtml != null);
+    return (getDiscussAsHtml() != null);
   }
 
   /**
@@ -4847,7 +4848,7 @@ public class ClubEvent
     is not null and not empty.
    */
   public boolean hasDiscussAsHtmlWithData () {
-    return (discussAsHtml != null && discussAsHtml.length() > 0);
+    return (getDiscussAsHtml() != null && getDiscussAsHtml().length() > 0);
   }
 
   /**
@@ -4856,7 +4857,18 @@ public class ClubEvent
     @return The discuss as html for this club event.
    */
   public String getDiscussAsHtml () {
-    return discussAsHtml;
+    return discussAsHtml.get (discuss);
+  }
+
+  /**
+    Arranges for the discuss as html for this club event to be converted from
+    the discuss when it is next needed.
+ 
+    @param  mdToHTML The converter to be used.
+   */
+  public void convertDiscussToHtml (MdToHTML mdToHTML) {
+    discussAsHtml.convertWith (mdToHTML);
+    setModified (true);
   }
  
   /**
@@ -4917,7 +4929,7 @@ public class ClubEvent
      @param  actionsAsHtml The actions as html for this club event.
    */
   public void setActionsAsHtml (String actionsAsHtml) {
-    this.actionsAsHtml = actionsAsHtml;
+    this.actionsAsHtml.set (actionsAsHtml);
     setModified (true);
   }
 
@@ -4940,7 +4952,7 @@ public class ClubEvent
     @return True if the actions as html for this club event is not null.
    */
   public boolean hasActionsAsHtml () {
-    return (actionsAsHtml != null);
+    return (getActionsAsHtml() != null);
   }
 
   /**
@@ -4951,7 +4963,7 @@ public class ClubEvent
     is not null and not empty.
    */
   public boolean hasActionsAsHtmlWithData () {
-    return (actionsAsHtml != null && actionsAsHtml.length() > 0);
+    return (getActionsAsHtml() != null && getActionsAsHtml().length() > 0);
   }
 
   /**
@@ -4960,7 +4972,18 @@ public class ClubEvent
     @return The actions as html for this club event.
    */
   public String getActionsAsHtml () {
-    return actionsAsHtml;
+    return actionsAsHtml.get (actions);
+  }
+
+  /**
+    Arranges for the actions as html for this club event to be converted from
+    the actions when it is next needed.
+ 
+    @param  mdToHTML The converter to be used.
+   */
+  public void convertActionsToHtml (MdToHTML mdToHTML) {
+    actionsAsHtml.convertWith (mdToHTML);
+    setModified (true);
   }
  
   /**
@@ -5125,7 +5148,7 @@ public class ClubEvent
      @param  teaserAsHtml The teaser as html for this club event.
    */
   public void setTeaserAsHtml (String teaserAsHtml) {
-    this.teaserAsHtml = teaserAsHtml;
+    this.teaserAsHtml.set (teaserAsHtml);
     setModified (true);
   }
 
@@ -5148,7 +5171,7 @@ public class ClubEvent
     @return True if the teaser as html for this club event is not null.
    */
   public boolean hasTeaserAsHtml () {
-    return (teaserAsHtml != null);
+    return (getTeaserAsHtml() != null);
   }
 
   /**
@@ -5159,7 +5182,7 @@ public class ClubEvent
     is not null and not empty.
    */
   public boolean hasTeaserAsHtmlWithData () {
-    return (teaserAsHtml != null && teaserAsHtml.length() > 0);
+    return (getTeaserAsHtml() != null && getTeaserAsHtml().length() > 0);
   }
 
   /**
@@ -5168,7 +5191,18 @@ public class ClubEvent
     @return The teaser as html for this club event.
    */
   public String getTeaserAsHtml () {
-    return teaserAsHtml;
+    return teaserAsHtml.get (teaser);
+  }
+
+  /**
+    Arranges for the teaser as html for this club event to be converted from
+    the teaser when it is next needed.
+ 
+    @param  mdToHTML The converter to be used.
+   */
+  public void convertTeaserToHtml (MdToHTML mdToHTML) {
+    teaserAsHtml.convertWith (mdToHTML);
+    setModified (true);
   }
  
   /**
@@ -5177,7 +5211,7 @@ public class ClubEvent
      @param  blurbAsHtml The blurb as html for this club event.
    */
   public void setBlurbAsHtml (String blurbAsHtml) {
-    this.blurbAsHtml = blurbAsHtml;
+    this.blurbAsHtml.set (blurbAsHtml);
     setModified (true);
   }
 
@@ -5200,7 +5234,7 @@ public class ClubEvent
     @return True if the blurb as html for this club event is not null.
    */
   public boolean hasBlurbAsHtml () {
-    return (blurbAsHtml != null);
+    return (getBlurbAsHtml() != null);
   }
 
   /**
@@ -5211,7 +5245,7 @@ public class ClubEvent
     is not null and not empty.
    */
   public boolean hasBlurbAsHtmlWithData () {
-    return (blurbAsHtml != null && blurbAsHtml.length() > 0);
+    return (getBlurbAsHtml() != null && getBlurbAsHtml().length() > 0);
   }
 
   /**
@@ -5220,7 +5254,18 @@ public class ClubEvent
     @return The blurb as html for this club event.
    */
   public String getBlurbAsHtml () {
-    return blurbAsHtml;
+    return blurbAsHtml.get (blurb);
+  }
+
+  /**
+    Arranges for the blurb as html for this club event to be converted from
+    the blurb when it is next needed.
+ 
+    @param  mdToHTML The converter to be used.
+   */
+  public void convertBlurbToHtml (MdToHTML mdToHTML) {
+    blurbAsHtml.convertWith (mdToHTML);
+    setModified (true);
   }
  
   /**
@@ -6203,7 +6248,7 @@ public class ClubEvent
      @param  recapAsHtml The recap as html for this club event.
    */
   public void setRecapAsHtml (String recapAsHtml) {
-    this.recapAsHtml = recapAsHtml;
+    this.recapAsHtml.set (recapAsHtml);
     setModified (true);
   }
 
@@ -6226,7 +6271,7 @@ public class ClubEvent
     @return True if the recap as html for this club event is not null.
    */
   public boolean hasRecapAsHtml () {
-    return (recapAsHtml != null);
+    return (getRecapAsHtml() != null);
   }
 
   /**
@@ -6237,7 +6282,7 @@ public class ClubEvent
     is not null and not empty.
    */
   public boolean hasRecapAsHtmlWithData () {
-    return (recapAsHtml != null && recapAsHtml.length() > 0);
+    return (getRecapAsHtml() != null && getRecapAsHtml().length() > 0);
   }
 
   /**
@@ -6246,7 +6291,18 @@ public class ClubEvent
     @return The recap as html for this club event.
    */
   public String getRecapAsHtml () {
-    return recapAsHtml;
+    return recapAsHtml.get (recap);
+  }
+
+  /**
+    Arranges for the recap as html for this club event to be converted from
+    the recap when it is next needed.
+ 
+    @param  mdToHTML The converter to be used.
+   */
+  public void convertRecapToHtml (MdToHTML mdToHTML) {
+    recapAsHtml.convertWith (mdToHTML);
+    setModified (true);
   }
  
   /**
@@ -6775,7 +6831,7 @@ public class ClubEvent
      @param  notesAsHtml The notes as html for this club event.
    */
   public void setNotesAsHtml (String notesAsHtml) {
-    this.notesAsHtml = notesAsHtml;
+    this.notesAsHtml.set (notesAsHtml);
     setModified (true);
   }
 
@@ -6798,7 +6854,7 @@ public class ClubEvent
     @return True if the notes as html for this club event is not null.
    */
   public boolean hasNotesAsHtml () {
-    return (notesAsHtml != null);
+    return (getNotesAsHtml() != null);
   }
 
   /**
@@ -6809,7 +6865,7 @@ public class ClubEvent
     is not null and not empty.
    */
   public boolean hasNotesAsHtmlWithData () {
-    return (notesAsHtml != null && notesAsHtml.length() > 0);
+    return (getNotesAsHtml() != null && getNotesAsHtml().length() > 0);
   }
 
   /**
@@ -6818,7 +6874,18 @@ public class ClubEvent
     @return The notes as html for this club event.
    */
   public String getNotesAsHtml () {
-    return notesAsHtml;
+    return notesAsHtml.get (notes);
+  }
+
+  /**
+    Arranges for the notes as html for this club event to be converted from
+    the notes when it is next needed.
+ 
+    @param  mdToHTML The converter to be used.
+   */
+  public void convertNotesToHtml (MdToHTML mdToHTML) {
+    notesAsHtml.convertWith (mdToHTML);
+    setModified (true);
   }
 
   /**
@@ -396,8 +396,7 @@ public class ClubEventCalc {
   public void calcDiscussAsHtml (ClubEvent clubEvent) {
     if (clubEvent.getDiscuss() != null
         && clubEvent.getDiscuss().length() > 0) {
-      clubEvent.setDiscussAsHtml
-          (mdToHTML.markdownToHtml(clubEvent.getDiscuss()));
+      clubEvent.convertDiscussToHtml(mdToHTML);
     }
   }
   
@@ -405,8 +404,7 @@ public class ClubEventCalc {
 
     if (clubEvent.getActions() != null
         && clubEvent.getActions().length() > 0) {
-      clubEvent.setActionsAsHtml
-          (mdToHTML.markdownToHtml(clubEvent.getActions()));
+      clubEvent.convertActionsToHtml(mdToHTML);
     }
   }
   
@@ -414,7 +412,7 @@ public class ClubEventCalc {
 
     if (clubEvent.getTeaser() != null
         && clubEvent.getTeaser().length() > 0) {
-      clubEvent.setTeaserAsHtml(mdToHTML.markdownToHtml(clubEvent.getTeaser()));
+      clubEvent.convertTeaserToHtml(mdToHTML);
     }
   }
   
@@ -422,7 +420,7 @@ public class ClubEventCalc {
 
     if (clubEvent.getBlurb() != null
         && clubEvent.getBlurb().length() > 0) {
-      clubEvent.setBlurbAsHtml(mdToHTML.markdownToHtml(clubEvent.getBlurb()));
+      clubEvent.convertBlurbToHtml(mdToHTML);
     }
   }
   
@@ -430,14 +428,14 @@ public class ClubEventCalc {
 
     if (clubEvent.getRecap() != null
         && clubEvent.getRecap().length() > 0) {
-      clubEvent.setRecapAsHtml(mdToHTML.markdownToHtml(clubEvent.getRecap()));
+      clubEvent.convertRecapToHtml(mdToHTML);
     }
   }
   
   public void calcNotesAsHtml (ClubEvent clubEvent) {
     if (clubEvent.getNotes() != null
         && clubEvent.getNotes().length() > 0) {
-      clubEvent.setNotesAsHtml(mdToHTML.markdownToHtml(clubEvent.getNotes()));
+      clubEvent.convertNotesToHtml(mdToHTML);
     }
   }
   
@@ -1050,7 +1048,7 @@ public class ClubEventCalc {
   public void calcNoteAsHtml (EventNote eventNote) {
     if (eventNote.getNote() != null
         && eventNote.getNote().length() > 0) {
-      eventNote.setNoteAsHtml(mdToHTML.markdownToHtml(eventNote.getNote()));
+      eventNote.convertNoteToHtml(mdToHTML);
     }
   }
   
@@ -17,6 +17,7 @@
 package com.powersurgepub.psutils2.clubplanner;
 
 	import com.powersurgepub.psutils2.list.*;
+	import com.powersurgepub.psutils2.markup.*;
 	import com.powersurgepub.psutils2.records.*;
 	import com.powersurgepub.psutils2.strings.*;
 	import com.powersurgepub.psutils2.tags.*;
@@ -138,7 +139,7 @@ public class EventNote
   /**
    Note reformatted as HTML.
    */
-  private String noteAsHtml = null;
+  private LazyHtml noteAsHtml = new LazyHtml();
  
   public static final String NOTE_AS_HTML_FIELD_NAME = "Note as HTML";
  
@@ -610,7 +611,7 @@ public class EventNote
       case NOTE_COLUMN_INDEX:
           return note;
       case NOTE_AS_HTML_COLUMN_INDEX:
-          return noteAsHtml;
+          return getNoteAsHtml();
       default: return null;
     }
   }
@@ -1020,7 +1021,7 @@ public class EventNote
      @param  noteAsHtml The note as html for this event note.
    */
   public void setNoteAsHtml (String noteAsHtml) {
-    this.noteAsHtml = noteAsHtml;
+    this.noteAsHtml.set (noteAsHtml);
     setModified (true);
   }
 
@@ -1043,7 +1044,7 @@ public class EventNote
     @return True if the note as html for this event note is not null.
    */
   public boolean hasNoteAsHtml () {
-    return (noteAsHtml != null);
+    return (getNoteAsHtml() != null);
   }
 
   /**
@@ -1054,7 +1055,7 @@ public class EventNote
     is not null and not empty.
    */
   public boolean hasNoteAsHtmlWithData () {
-    return (noteAsHtml != null && noteAsHtml.length() > 0);
+    return (getNoteAsHtml() != null && getNoteAsHtml().length() > 0);
   }
 
   /**
@@ -1063,7 +1064,18 @@ public class EventNote
     @return The note as html for this event note.
    */
   public String getNoteAsHtml () {
-    return noteAsHtml;
+    return noteAsHtml.get (note);
+  }
+
+  /**
+    Arranges for the note as html for this event note to be converted from
+    the note when it is next needed.
+ 
+    @param  mdToHTML The converter to be used.
+   */
+  public void convertNoteToHtml (MdToHTML mdToHTML) {
+    noteAsHtml.convertWith (mdToHTML);
+    setModified (true);
   }
 
   /**
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2012 - 2017 Herb Bowie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.powersurgepub.psutils2.clubplanner;
+
+  import com.powersurgepub.psutils2.markup.*;
+
+/**
+ A field holding HTML that may be converted from a Markdown field only when
+ it is first needed. The conversion is remembered until the Markdown text
+ changes, or until the HTML is set directly.
+
+ @author Herb Bowie
+ */
+class LazyHtml {
+
+  /** The converter to be used, or null if the HTML was set directly. */
+  private     MdToHTML      mdToHTML = null;
+
+  /** The Markdown from which the HTML was last converted. */
+  private     String        source = null;
+
+  /** The HTML, as set or as last converted. */
+  private     String        html = null;
+
+  LazyHtml () {
+
+  }
+
+  /**
+   Arrange for the HTML to be converted from the Markdown field whenever it
+   is next requested.
+
+   @param mdToHTML The converter to be used.
+  */
+  synchronized void convertWith (MdToHTML mdToHTML) {
+    this.mdToHTML = mdToHTML;
+    this.source = null;
+  }
+
+  /**
+   Set the HTML directly, rather than converting it.
+
+   @param html The HTML to be returned.
+  */
+  synchronized void set (String html) {
+    this.mdToHTML = null;
+    this.source = null;
+    this.html = html;
+  }
+
+  /**
+   Return the HTML, converting it first if conversion has been requested and
+   the Markdown has changed since it was last converted.
+
+   @param markdown The current value of the Markdown field.
+
+   @return The HTML, or null if there is none.
+  */
+  synchronized String get (String markdown) {
+    if (mdToHTML != null
+        && markdown != null
+        && markdown.length() > 0
+        && (! markdown.equals (source))) {
+      html = mdToHTML.markdownToHtml (markdown);
+      source = markdown;
+    }
+    return html;
+  }
+
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2017 - 2017 Herb Bowie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.powersurgepub.psutils2.files;
+
+  import java.io.*;
+  import java.nio.file.*;
+  import java.security.*;
+  import java.util.*;
+  import java.util.zip.*;
+
+/**
+ A store of file contents for incremental backups, kept in a hidden folder
+ within a backup folder. The compressed contents of each file are kept in
+ a chunk named for a digest of the uncompressed contents, so that contents
+ shared by several files, or by several backup generations, are only
+ stored once.
+
+ @author Herb Bowie
+ */
+public class BackupChunkStore {
+
+  /** Name of the chunk folder within the backup folder. */
+  public static final String  FOLDER_NAME     = ".backup-chunks";
+
+  /** Algorithm used to digest file contents. */
+  public static final String  DIGEST          = "SHA-256";
+
+  /** Size of the buffer used for copying. */
+  public static final int     BUFFER_SIZE     = 65536;
+
+  private             File                    folder;
+
+  /**
+   Create a store within the given backup folder.
+
+   @param backupFolder The folder holding the backups.
+  */
+  public BackupChunkStore (File backupFolder) {
+    folder = new File (backupFolder, FOLDER_NAME);
+  }
+
+  public File getFolder () {
+    return folder;
+  }
+
+  /**
+   Does the store already hold the given contents?
+
+   @param digest The digest of the contents.
+
+   @return True if there is a chunk for the contents.
+  */
+  public boolean contains (byte[] digest) {
+    return getChunkFile (digest).isFile();
+  }
+
+  /**
+   Store the contents of a file, unless the store already holds the same
+   contents.
+
+   @param file The file to be stored.
+
+   @return The digest of the file's contents.
+
+   @throws IOException If the file could not be read or stored.
+  */
+  public byte[] store (File file)
+      throws IOException {
+    byte[] buffer = new byte [BUFFER_SIZE];
+    MessageDigest digester = getDigester();
+    try (InputStream in = new FileInputStream (file)) {
+      int length;
+      while ((length = in.read (buffer)) >= 0) {
+        digester.update (buffer, 0, length);
+      }
+    }
+    byte[] digest = digester.digest();
+    File chunkFile = getChunkFile (digest);
+    if (chunkFile.isFile()) {
+      // Mark the chunk as in use, so that it is not removed before the
+      // manifest listing it has been written
+      chunkFile.setLastModified (System.currentTimeMillis());
+    } else {
+      File chunkFolder = chunkFile.getParentFile();
+      chunkFolder.mkdirs();
+      Path tempPath = CheckedFile.createTempFile (chunkFolder, "chunk");
+      try {
+        try (InputStream in = new FileInputStream (file);
+            OutputStream out = new DeflaterOutputStream
+                (Files.newOutputStream (tempPath),
+                  new Deflater (Deflater.DEFAULT_COMPRESSION), BUFFER_SIZE)) {
+          int length;
+          while ((length = in.read (buffer)) >= 0) {
+            out.write (buffer, 0, length);
+          }
+        }
+        CheckedFile.moveIntoPlace (tempPath, chunkFile.toPath());
+      } finally {
+        Files.deleteIfExists (tempPath);
+      }
+    }
+    return digest;
+  }
+
+  /**
+   Write stored contents to a file, checking them against their digest.
+
+   @param digest The digest of the contents.
+   @param toFile The file to be written.
+
+   @throws IOException If the contents are missing or damaged, or the file
+                       could not be written.
+  */
+  public void restore (byte[] digest, File toFile)
+      throws IOException {
+    File chunkFile = getChunkFile (digest);
+    if (! chunkFile.isFile()) {
+      throw new FileNotFoundException ("Missing chunk " + chunkFile.toString());
+    }
+    File toFolder = toFile.getAbsoluteFile().getParentFile();
+    toFolder.mkdirs();
+    Path tempPath = CheckedFile.createTempFile (toFolder, "restore");
+    try {
+      byte[] buffer = new byte [BUFFER_SIZE];
+      MessageDigest digester = getDigester();
+      try (InputStream in = new InflaterInputStream
+              (new FileInputStream (chunkFile), new Inflater(), BUFFER_SIZE);
+          OutputStream out = Files.newOutputStream (tempPath)) {
+        int length;
+        while ((length = in.read (buffer)) >= 0) {
+          digester.update (buffer, 0, length);
+          out.write (buffer, 0, length);
+        }
+      }
+      if (! MessageDigest.isEqual (digester.digest(), digest)) {
+        throw new IOException ("Damaged chunk " + chunkFile.toString());
+      }
+      CheckedFile.moveIntoPlace (tempPath, toFile.toPath());
+    } finally {
+      Files.deleteIfExists (tempPath);
+    }
+  }
+
+  /**
+   Delete every chunk not referenced by any of the given manifests, other
+   than those stored or reused since the given time. Temporary files are
+   left alone.
+
+   @param manifests The manifests of all the backups still kept.
+   @param before    Only chunks last modified before this time are deleted.
+                    This is normally the time the newest manifest was
+                    written, so that chunks stored by a backup still in
+                    progress are kept.
+
+   @return The number of chunks deleted.
+  */
+  public int removeUnreferenced (List<BackupManifest> manifests, long before) {
+    HashSet<String> referenced = new HashSet<String>();
+    for (BackupManifest manifest : manifests) {
+      for (int i = 0; i < manifest.size(); i++) {
+        referenced.add (CheckedFile.toHex (manifest.get(i).getDigest()));
+      }
+    }
+    int removed = 0;
+    File[] chunkFolders = folder.listFiles();
+    if (chunkFolders != null) {
+      for (File chunkFolder : chunkFolders) {
+        File[] chunkFiles = chunkFolder.listFiles();
+        if (chunkFiles != null) {
+          for (File chunkFile : chunkFiles) {
+            String name = chunkFile.getName();
+            if ((! name.endsWith (CheckedFile.TEMP_EXT))
+                && (! referenced.contains (name))
+                && chunkFile.lastModified() < before
+                && chunkFile.delete()) {
+              removed++;
+            }
+          }
+        }
+      }
+    }
+    return removed;
+  }
+
+  /**
+   Return the file holding the contents with the given digest. Chunks are
+   spread across sub-folders named for the first two hex digits of
+   their digests.
+
+   @param digest The digest of the contents.
+
+   @return The chunk file.
+  */
+  public File getChunkFile (byte[] digest) {
+    String hex = CheckedFile.toHex (digest);
+    return new File (new File (folder, hex.substring (0, 2)), hex);
+  }
+
+  private static MessageDigest getDigester ()
+      throws IOException {
+    try {
+      return MessageDigest.getInstance (DIGEST);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException (DIGEST + " not available");
+    }
+  }
+
+} // end class BackupChunkStore
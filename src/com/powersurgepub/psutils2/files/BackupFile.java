@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 - 2017 Herb Bowie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.powersurgepub.psutils2.files;
+
+  import java.io.*;
+  import java.nio.file.*;
+  import java.nio.file.attribute.*;
+  import java.util.*;
+
+/**
+ A file to be backed up, along with the attributes obtained while walking
+ the source folder, so that they need not be obtained again.
+
+ @author Herb Bowie
+ */
+class BackupFile {
+
+  private final Path    path;
+  private final String  entryName;
+  private final long    size;
+  private final long    lastModified;
+
+  BackupFile (Path path, String entryName, long size, long lastModified) {
+    this.path = path;
+    this.entryName = entryName;
+    this.size = size;
+    this.lastModified = lastModified;
+  }
+
+  /**
+   Return the visible files within a source folder, including those in
+   sub-folders, but skipping any hidden files and any backup folders.
+
+   @param source The folder to be backed up.
+
+   @return The files to be backed up, with their names relative to the
+           source folder, using forward slashes.
+
+   @throws IOException If the source folder could not be read.
+  */
+  static List<BackupFile> walk (File source)
+      throws IOException {
+    ArrayList<BackupFile> files = new ArrayList<BackupFile>();
+    Path sourcePath = source.toPath().toAbsolutePath();
+    Files.walkFileTree (sourcePath, EnumSet.of (FileVisitOption.FOLLOW_LINKS),
+        Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+
+      public FileVisitResult preVisitDirectory (Path dir,
+          BasicFileAttributes attrs)
+            throws IOException {
+        if (dir.equals (sourcePath)) {
+          return FileVisitResult.CONTINUE;
+        }
+        String name = dir.getFileName().toString();
+        if (! isVisible (dir)
+            || name.equalsIgnoreCase ("backups")
+            || name.equalsIgnoreCase ("backup")) {
+          // Skip it -- let's not compress the contents of a
+          // backups folder into a new backup.
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      public FileVisitResult visitFile (Path file, BasicFileAttributes attrs)
+          throws IOException {
+        if (attrs.isRegularFile() && isVisible (file)) {
+          String entryName = sourcePath.relativize (file).toString()
+              .replace ("\\", "/");
+          files.add (new BackupFile (file, entryName, attrs.size(),
+              attrs.lastModifiedTime().toMillis()));
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      public FileVisitResult visitFileFailed (Path file, IOException e) {
+        // Skip anything that cannot be read
+        return FileVisitResult.CONTINUE;
+      }
+
+    });
+    return files;
+  }
+
+  private static boolean isVisible (Path path)
+      throws IOException {
+    return (Files.isReadable (path) && (! Files.isHidden (path)));
+  }
+
+  Path getPath () {
+    return path;
+  }
+
+  String getEntryName () {
+    return entryName;
+  }
+
+  long getSize () {
+    return size;
+  }
+
+  long getLastModified () {
+    return lastModified;
+  }
+
+} // end class BackupFile
@@ -19,15 +19,26 @@ package com.powersurgepub.psutils2.files;
   import com.powersurgepub.psutils2.logging.*;
 
   import java.io.*;
+  import java.nio.file.*;
   import java.text.*;
   import java.util.*;
+  import java.util.stream.*;
   import java.util.zip.*;
 
   import javafx.stage.*;
 
 /**
  Information about a single backup occurrence, backing up a specific source
- destination at a particular date and time. 
+ destination at a particular date and time. <p>
+ 
+ A backup may be a complete zip file, or an incremental backup. An 
+ incremental backup writes only a manifest of the files backed up, and 
+ stores the contents of each file in a chunk store shared by all the 
+ backups in the same folder, so that contents already stored by an 
+ earlier backup are not stored again. <p>
+ 
+ Zip files may also be written in parallel, compressing several files at
+ once (see setParallelZip). 
 
  @author Herb Bowie
  */
@@ -38,6 +49,8 @@ public class BackupInfo {
   public static final DateFormat  LOG_DATE_FORMATTER
       = new SimpleDateFormat("yyyy MMM dd HH:mm");
   public static final String      LOG_FILE_NAME = "- Backup Log.txt";
+  public static final String      MANIFEST_EXT = ".backup";
+  public static final int         COPY_BUFFER_SIZE = 65536;
   
   private Date          date = new Date();
   
@@ -50,6 +63,7 @@ public class BackupInfo {
   private int           backupsToKeep = 0;
   private boolean       okSoFar = true;
   private boolean       backupSuccess = false;
+  private boolean       parallelZip = false;
 
   private ArrayList<String> logLines = new ArrayList<String>();
   private File          logFile = null;
@@ -113,6 +127,14 @@ public class BackupInfo {
     setExt(".zip");
   }
   
+  /**
+   Set the file extension to the standard value for an incremental backup
+   manifest.
+  */
+  public void setToIncremental() {
+    setExt(MANIFEST_EXT);
+  }
+  
   /**
    Set the file extension to be used for the backup file.
   
@@ -216,6 +238,21 @@ public class BackupInfo {
     this.backupsToKeep = backupsToKeep;
   }
   
+  /**
+   Indicate whether zip files should be written by compressing several
+   files at once. Archives too large for the classic zip format will still 
+   be written one file at a time. 
+  
+   @param parallelZip True to compress files in parallel. 
+  */
+  public void setParallelZip(boolean parallelZip) {
+    this.parallelZip = parallelZip;
+  }
+  
+  public boolean isParallelZip() {
+    return parallelZip;
+  }
+  
   /**
    Compress the visible contents of one folder into a new Zip file, including all
    sub-folders. Skip any hidden files and any backup folders. 
@@ -235,55 +272,31 @@ public class BackupInfo {
         && source.isDirectory());
 
     if (okSoFar) {
+      File backupFile = getBackupFile();
       try {
-        String sourcePath = source.getAbsolutePath();
-        File backupFile = getBackupFile();
-        FileOutputStream fileOut = new FileOutputStream(backupFile);
-        ZipOutputStream  zipOut  = new ZipOutputStream(fileOut);
-        ArrayList<File> fromDirList = new ArrayList<>();
-        fromDirList.add (source);
-        int i = 0;
-        while (i < fromDirList.size()) {
-          // for each directory or sub-directory
-          File fromDir = fromDirList.get(i);
-          String[] dirEntry = fromDir.list();
-
-          for (int j = 0; j < dirEntry.length; j++) {
-            String entry = dirEntry [j];
-            File fromFile = new File (fromDir, entry);
-            if (fromFile.exists()
-                && fromFile.canRead()
-                && (! fromFile.isHidden())) {
-              if (fromFile.isDirectory()) {
-                if (entry.equalsIgnoreCase("backups")
-                    || entry.equalsIgnoreCase("backup")) {
-                  // Skip it -- let's not compress the contents of a 
-                  // backups folder into a new backup.
-                } else {
-                  fromDirList.add (fromFile);
-                }
-              } else {
-                String fromFilePath = fromFile.getAbsolutePath();
-                String entryName 
-                    = fromFilePath.substring(sourcePath.length() + 1).replace("\\", "/");
-                ZipEntry zipEntry = new ZipEntry(entryName);
-                zipEntry.setTime(fromFile.lastModified());
-                FileInputStream fileIn = new FileInputStream(fromFile);
+        List<BackupFile> files = BackupFile.walk(source);
+        if (parallelZip && ParallelZipWriter.canWrite(files)) {
+          new ParallelZipWriter().write(backupFile, files);
+        } else {
+          try (ZipOutputStream zipOut = new ZipOutputStream(
+              new BufferedOutputStream(
+                  new FileOutputStream(backupFile), COPY_BUFFER_SIZE))) {
+            byte[] bytes = new byte[COPY_BUFFER_SIZE];
+            for (BackupFile fromFile : files) {
+              ZipEntry zipEntry = new ZipEntry(fromFile.getEntryName());
+              zipEntry.setTime(fromFile.getLastModified());
+              try (InputStream fileIn 
+                  = Files.newInputStream(fromFile.getPath())) {
                 zipOut.putNextEntry(zipEntry);
-                byte[] bytes = new byte[1024];
                 int length;
                 while ((length = fileIn.read(bytes)) >= 0) {
                   zipOut.write(bytes, 0, length);
                 }
                 zipOut.closeEntry();
-                fileIn.close();
-              } // end if not a directory
-            } // end if directory entry is readable
-          } // end for each directory entry in current directory
-          i++;
-        } // end for each directory to be exploded
-        zipOut.close();
-        fileOut.close();
+              }
+            } // end for each file
+          }
+        }
         backupSuccess = true;
         Date rightNow = new Date();
         logLines.add(0,
@@ -291,6 +304,8 @@ public class BackupInfo {
                 " Backed Up To " + backupFile.toString());
       } catch (IOException e) {
         okSoFar = false;
+        // Don't leave a partial zip file to be mistaken for a good backup
+        backupFile.delete();
         Logger.getShared().recordEvent(LogEvent.MEDIUM, 
             "I/O Error compressing into a zip file", false);
       }
@@ -299,7 +314,208 @@ public class BackupInfo {
   } // end backupToZip method
   
   /**
-   Remove older backup files or folders. 
+   Back up the visible contents of one folder, including all sub-folders, 
+   as a new generation of an incremental backup. Skip any hidden files 
+   and any backup folders. Files whose size and last modified time are 
+   unchanged since the latest earlier generation are not read again, and 
+   contents already in the chunk store are not stored again. Changed files
+   are read and compressed in parallel. 
+  
+   @return True if the backup was successful. 
+   */
+  public boolean backupIncremental () {
+
+    if (ext == null || ext.length() == 0) {
+      setToIncremental();
+    }
+    else
+    if (! getBackupFileName().endsWith(MANIFEST_EXT)) {
+      // Later backups and pruning only recognize manifests by their
+      // extension, so replace any other
+      String oldExt = ext;
+      if (oldExt.charAt(0) != '.') {
+        oldExt = "." + oldExt;
+      }
+      if (getBackupFileName().endsWith(oldExt)) {
+        backupFileName.setLength(backupFileName.length() - oldExt.length());
+      }
+      setToIncremental();
+    }
+    
+    backupSuccess = false;
+    
+    okSoFar = (source != null
+        && source.exists() 
+        && source.canRead() 
+        && source.isDirectory()
+        && backupFolder != null);
+
+    if (okSoFar) {
+      try {
+        String sourcePath = source.getAbsolutePath();
+        File backupFile = getBackupFile();
+        BackupManifest previous = getLatestManifest();
+        BackupChunkStore store = new BackupChunkStore(backupFolder);
+        List<BackupFile> files = BackupFile.walk(source);
+        byte[][] digests = new byte[files.size()][];
+        IntStream.range(0, files.size()).parallel().forEach(i -> {
+          BackupFile fromFile = files.get(i);
+          BackupManifest.Entry prior = null;
+          if (previous != null) {
+            prior = previous.get(fromFile.getEntryName());
+          }
+          if (prior != null
+              && prior.getSize() == fromFile.getSize()
+              && prior.getLastModified() == fromFile.getLastModified()
+              && store.contains(prior.getDigest())) {
+            digests[i] = prior.getDigest();
+          } else {
+            try {
+              digests[i] = store.store(fromFile.getPath().toFile());
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          }
+        });
+        BackupManifest manifest = new BackupManifest(sourcePath);
+        for (int i = 0; i < files.size(); i++) {
+          BackupFile fromFile = files.get(i);
+          manifest.add(fromFile.getEntryName(), fromFile.getSize(), 
+              fromFile.getLastModified(), digests[i]);
+        }
+        manifest.write(backupFile);
+        backupSuccess = true;
+        Date rightNow = new Date();
+        logLines.add(0,
+            LOG_DATE_FORMATTER.format(rightNow) +
+                " Backed Up To " + backupFile.toString());
+      } catch (IOException | UncheckedIOException e) {
+        okSoFar = false;
+        Logger.getShared().recordEvent(LogEvent.MEDIUM, 
+            "I/O Error storing an incremental backup", false);
+      }
+    } // end if ok
+    return backupSuccess;
+  } // end backupIncremental method
+  
+  /**
+   Restore all the files recorded by one generation of an incremental
+   backup. Nothing is restored if any recorded path would lead outside of
+   the folder being restored to. 
+  
+   @param manifestFile The manifest written by the backup to be restored.
+   @param toFolder     The folder into which the files are to be restored.
+  
+   @return True if all files were restored. 
+  */
+  public static boolean restoreIncremental (File manifestFile, File toFolder) {
+    try {
+      BackupManifest manifest = BackupManifest.read(manifestFile);
+      BackupChunkStore store 
+          = new BackupChunkStore(manifestFile.getAbsoluteFile().getParentFile());
+      Path toPath = toFolder.getCanonicalFile().toPath();
+      File[] toFiles = new File[manifest.size()];
+      for (int i = 0; i < manifest.size(); i++) {
+        String path = manifest.get(i).getPath();
+        Path resolved = toPath.resolve(path).normalize();
+        if (resolved.equals(toPath) || (! resolved.startsWith(toPath))) {
+          Logger.getShared().recordEvent(LogEvent.MEDIUM, 
+              "Backup path " + path + " is outside of the restore folder", 
+              false);
+          return false;
+        }
+        toFiles[i] = resolved.toFile();
+      }
+      IntStream.range(0, manifest.size()).parallel().forEach(i -> {
+        BackupManifest.Entry entry = manifest.get(i);
+        File toFile = toFiles[i];
+        try {
+          store.restore(entry.getDigest(), toFile);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        toFile.setLastModified(entry.getLastModified());
+      });
+    } catch (IOException | UncheckedIOException e) {
+      Logger.getShared().recordEvent(LogEvent.MEDIUM, 
+          "I/O Error restoring from " + manifestFile.toString(), false);
+      return false;
+    }
+    return true;
+  }
+  
+  /**
+   Return the manifest of the latest incremental backup of the same source
+   in the backup folder.
+  
+   @return The latest readable manifest, or null if there is none. 
+  */
+  private BackupManifest getLatestManifest() {
+    String baseName = backupFileName.substring(0, baseNameLength);
+    String[] dirEntries = backupFolder.list();
+    if (dirEntries == null) {
+      return null;
+    }
+    Arrays.sort(dirEntries, Collections.reverseOrder());
+    for (String dirEntryName : dirEntries) {
+      if (dirEntryName.startsWith(baseName)
+          && dirEntryName.endsWith(MANIFEST_EXT)
+          && (! dirEntryName.equals(getBackupFileName()))) {
+        try {
+          return BackupManifest.read(new File(backupFolder, dirEntryName));
+        } catch (IOException e) {
+          Logger.getShared().recordEvent(LogEvent.MINOR, 
+              "Backup manifest " + dirEntryName + " could not be read", 
+              false);
+        }
+      }
+    }
+    return null;
+  }
+  
+  /**
+   Delete any chunks no longer referenced by the incremental backups in the
+   backup folder. If any manifest cannot be read, nothing is deleted. 
+   Chunks stored since the newest manifest was written are kept, since 
+   a backup still running may be about to list them. 
+  
+   @return The number of chunks deleted. 
+  */
+  public int removeUnreferencedChunks() {
+    BackupChunkStore store = new BackupChunkStore(backupFolder);
+    if (! store.getFolder().isDirectory()) {
+      return 0;
+    }
+    ArrayList<BackupManifest> manifests = new ArrayList<>();
+    long newest = 0;
+    String[] dirEntries = backupFolder.list();
+    for (String dirEntryName : dirEntries) {
+      if (dirEntryName.endsWith(MANIFEST_EXT)) {
+        File manifestFile = new File(backupFolder, dirEntryName);
+        try {
+          manifests.add(BackupManifest.read(manifestFile));
+          newest = Math.max(newest, manifestFile.lastModified());
+        } catch (IOException e) {
+          Logger.getShared().recordEvent(LogEvent.MEDIUM, 
+              "Backup manifest " + dirEntryName 
+                + " could not be read; no chunks removed", 
+              false);
+          return 0;
+        }
+      }
+    }
+    int removed = store.removeUnreferenced(manifests, newest);
+    if (removed > 0) {
+      Logger.getShared().recordEvent(LogEvent.NORMAL, 
+          "Removed " + String.valueOf(removed) + " unreferenced backup chunks", 
+          false);
+    }
+    return removed;
+  }
+  
+  /**
+   Remove older backup files or folders. Chunks of incremental backups 
+   that are no longer needed are then removed as well. 
   
    @return The number of backups pruned. 
   */
@@ -345,6 +561,9 @@ public class BackupInfo {
             " Deleted " + toDeleteFile.toString());
       }
     } // if we have a backups to keep number
+    if (pruned > 0) {
+      removeUnreferencedChunks();
+    }
     return pruned;
   }
 
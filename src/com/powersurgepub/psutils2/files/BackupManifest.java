@@ -0,0 +1,183 @@
+/*
+ * Copyright 2017 - 2017 Herb Bowie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.powersurgepub.psutils2.files;
+
+  import java.io.*;
+  import java.nio.*;
+  import java.util.*;
+
+/**
+ The list of files making up one generation of an incremental backup. For
+ each file, the manifest records its path relative to the source folder,
+ its size, its last modified time, and a digest of its contents, which
+ identifies the chunk in which those contents are stored (see
+ BackupChunkStore). <p>
+
+ A manifest file begins with an identifier, a format version and the path
+ to the source folder, and ends with a checksum.
+
+ @author Herb Bowie
+ */
+public class BackupManifest {
+
+  /** Identifies a manifest file ("PSBK"). */
+  public static final int     MAGIC           = 0x5053424B;
+
+  /** Version of the manifest format. */
+  public static final int     VERSION         = 1;
+
+  private             String                  sourcePath;
+
+  /** The entries, in the order in which files were found. */
+  private             ArrayList<Entry>        entries = new ArrayList<Entry>();
+
+  /** The entries, keyed by path. */
+  private             HashMap<String, Entry>  paths = new HashMap<String, Entry>();
+
+  /**
+   Create an empty manifest for the given source folder.
+
+   @param sourcePath The path to the folder being backed up.
+  */
+  public BackupManifest (String sourcePath) {
+    this.sourcePath = sourcePath;
+  }
+
+  public String getSourcePath () {
+    return sourcePath;
+  }
+
+  /**
+   Add a file to the manifest.
+
+   @param path         The path to the file, relative to the source folder,
+                       using forward slashes.
+   @param size         The size of the file.
+   @param lastModified The last modified time of the file.
+   @param digest       The digest of the file's contents.
+  */
+  public void add (String path, long size, long lastModified, byte[] digest) {
+    Entry entry = new Entry (path, size, lastModified, digest);
+    entries.add (entry);
+    paths.put (path, entry);
+  }
+
+  /**
+   Return the entry for the given path.
+
+   @param path The path to the file, relative to the source folder.
+
+   @return The entry, or null if the manifest has none for that path.
+  */
+  public Entry get (String path) {
+    return paths.get (path);
+  }
+
+  public Entry get (int i) {
+    return entries.get (i);
+  }
+
+  public int size () {
+    return entries.size();
+  }
+
+  /**
+   Write the manifest to the given file, replacing any file already there.
+
+   @param manifestFile The file to be written.
+
+   @throws IOException If the file could not be written.
+  */
+  public void write (File manifestFile)
+      throws IOException {
+    CheckedFile out = new CheckedFile (MAGIC, VERSION);
+    out.writeString (sourcePath);
+    out.writeInt (entries.size());
+    for (Entry entry : entries) {
+      out.writeString (entry.path);
+      out.writeLong (entry.size);
+      out.writeLong (entry.lastModified);
+      out.writeBytes (entry.digest);
+    }
+    out.save (manifestFile);
+  }
+
+  /**
+   Read a manifest from the given file.
+
+   @param manifestFile The file to be read.
+
+   @return The manifest read.
+
+   @throws IOException If the file could not be read, or is not a valid
+                       manifest.
+  */
+  public static BackupManifest read (File manifestFile)
+      throws IOException {
+    ByteBuffer buffer = CheckedFile.read (manifestFile, MAGIC, VERSION);
+    try {
+      BackupManifest manifest
+          = new BackupManifest (CheckedFile.getString (buffer));
+      int count = buffer.getInt();
+      for (int i = 0; i < count; i++) {
+        String path = CheckedFile.getString (buffer);
+        long size = buffer.getLong();
+        long lastModified = buffer.getLong();
+        manifest.add (path, size, lastModified, CheckedFile.getBytes (buffer));
+      }
+      return manifest;
+    } catch (BufferUnderflowException | NegativeArraySizeException e) {
+      throw new IOException ("Truncated manifest");
+    }
+  }
+
+  /**
+   One file within a backup generation.
+  */
+  public static class Entry {
+
+    private final String  path;
+    private final long    size;
+    private final long    lastModified;
+    private final byte[]  digest;
+
+    Entry (String path, long size, long lastModified, byte[] digest) {
+      this.path = path;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.digest = digest;
+    }
+
+    public String getPath () {
+      return path;
+    }
+
+    public long getSize () {
+      return size;
+    }
+
+    public long getLastModified () {
+      return lastModified;
+    }
+
+    public byte[] getDigest () {
+      return digest;
+    }
+
+  } // end class Entry
+
+} // end class BackupManifest
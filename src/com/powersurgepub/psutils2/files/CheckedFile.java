@@ -0,0 +1,297 @@
+/*
+ * Copyright 2017 - 2017 Herb Bowie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.powersurgepub.psutils2.files;
+
+  import java.io.*;
+  import java.nio.*;
+  import java.nio.channels.*;
+  import java.nio.charset.*;
+  import java.nio.file.*;
+  import java.util.zip.*;
+
+/**
+ A small binary file that begins with an identifier and a format version,
+ and ends with a checksum of everything before it, so that a damaged or
+ foreign file is recognized when read. A new file is built up in memory,
+ then written to a temporary file that replaces the file in a single
+ move, so that an interrupted write never leaves a partial file. <p>
+
+ Static methods are provided for reading such a file, and for replacing
+ any file in the same way.
+
+ @author Herb Bowie
+ */
+public class CheckedFile {
+
+  /** Extension added to the names of temporary files. */
+  public static final String  TEMP_EXT        = ".tmp";
+
+  /** Length of the identifier, the format version and the checksum. */
+  public static final int     OVERHEAD        = 16;
+
+  private static final Charset UTF8           = StandardCharsets.UTF_8;
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private             ByteArrayOutputStream   bytes;
+  private             DataOutputStream        out;
+
+  /**
+   Start building a new file.
+
+   @param magic   Identifies the kind of file.
+   @param version The version of the file's format.
+
+   @throws IOException Never, in practice.
+  */
+  public CheckedFile (int magic, int version)
+      throws IOException {
+    bytes = new ByteArrayOutputStream();
+    out = new DataOutputStream (bytes);
+    out.writeInt (magic);
+    out.writeInt (version);
+  }
+
+  public void writeInt (int i)
+      throws IOException {
+    out.writeInt (i);
+  }
+
+  public void writeLong (long l)
+      throws IOException {
+    out.writeLong (l);
+  }
+
+  /**
+   Write a string, as its length in bytes followed by its UTF-8 bytes.
+
+   @param str The string to be written.
+
+   @throws IOException Never, in practice.
+  */
+  public void writeString (String str)
+      throws IOException {
+    writeBytes (str.getBytes (UTF8));
+  }
+
+  /**
+   Write an array of bytes, preceded by its length.
+
+   @param b The bytes to be written.
+
+   @throws IOException Never, in practice.
+  */
+  public void writeBytes (byte[] b)
+      throws IOException {
+    out.writeInt (b.length);
+    out.write (b);
+  }
+
+  /**
+   Add the checksum and write the file, replacing any file already there.
+
+   @param file The file to be written.
+
+   @throws IOException If the file could not be written.
+  */
+  public void save (File file)
+      throws IOException {
+    out.flush();
+    CRC32 crc = new CRC32();
+    crc.update (bytes.toByteArray());
+    out.writeLong (crc.getValue());
+    out.close();
+    replace (file, bytes.toByteArray());
+  }
+
+  /**
+   Read a file, checking its checksum, identifier and format version.
+
+   @param file    The file to be read.
+   @param magic   Identifies the kind of file expected.
+   @param version The version of the format expected.
+
+   @return A buffer holding the file's contents, positioned just past the
+           format version, and limited to exclude the checksum.
+
+   @throws IOException If the file could not be read, or is damaged, or is
+                       not of the expected kind and version.
+  */
+  public static ByteBuffer read (File file, int magic, int version)
+      throws IOException {
+    return check (ByteBuffer.wrap (Files.readAllBytes (file.toPath())),
+        magic, version);
+  }
+
+  /**
+   Map a file into memory, rather than copying it onto the heap, checking
+   its checksum, identifier and format version. On some platforms the file
+   cannot be replaced until the buffer has been garbage collected.
+
+   @param file    The file to be mapped.
+   @param magic   Identifies the kind of file expected.
+   @param version The version of the format expected.
+
+   @return A read-only buffer holding the file's contents, positioned just
+           past the format version, and limited to exclude the checksum.
+
+   @throws IOException If the file could not be read, or is damaged, or is
+                       not of the expected kind and version.
+  */
+  public static ByteBuffer map (File file, int magic, int version)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open
+        (file.toPath(), StandardOpenOption.READ)) {
+      long length = channel.size();
+      if (length > Integer.MAX_VALUE) {
+        throw new IOException ("Invalid length");
+      }
+      return check (channel.map (FileChannel.MapMode.READ_ONLY, 0, length),
+          magic, version);
+    }
+  }
+
+  /**
+   Check the checksum, identifier and format version of a file's contents.
+
+   @param buffer  The file's contents.
+   @param magic   Identifies the kind of file expected.
+   @param version The version of the format expected.
+
+   @return The same buffer, positioned just past the format version, and
+           limited to exclude the checksum.
+
+   @throws IOException If the file is damaged, or is not of the expected
+                       kind and version.
+  */
+  private static ByteBuffer check (ByteBuffer buffer, int magic, int version)
+      throws IOException {
+    if (buffer.limit() < OVERHEAD) {
+      throw new IOException ("Invalid length");
+    }
+    int contentLength = buffer.limit() - 8;
+    CRC32 crc = new CRC32();
+    ByteBuffer content = buffer.duplicate();
+    content.limit (contentLength);
+    crc.update (content);
+    if (crc.getValue() != buffer.getLong (contentLength)) {
+      throw new IOException ("Checksum mismatch");
+    }
+    buffer.limit (contentLength);
+    if (buffer.getInt() != magic
+        || buffer.getInt() != version) {
+      throw new IOException ("Unrecognized format");
+    }
+    return buffer;
+  }
+
+  /**
+   Read a string written by writeString.
+
+   @param buffer The buffer returned by read.
+
+   @return The string.
+  */
+  public static String getString (ByteBuffer buffer) {
+    return new String (getBytes (buffer), UTF8);
+  }
+
+  /**
+   Read an array of bytes written by writeBytes.
+
+   @param buffer The buffer returned by read.
+
+   @return The bytes.
+  */
+  public static byte[] getBytes (ByteBuffer buffer) {
+    byte[] b = new byte [buffer.getInt()];
+    buffer.get (b);
+    return b;
+  }
+
+  /**
+   Replace a file with the given contents, by way of a temporary file in
+   the same folder.
+
+   @param file     The file to be written.
+   @param contents The new contents of the file.
+
+   @throws IOException If the file could not be written.
+  */
+  public static void replace (File file, byte[] contents)
+      throws IOException {
+    Path tempPath = createTempFile (file.getAbsoluteFile().getParentFile(),
+        file.getName());
+    try {
+      Files.write (tempPath, contents);
+      moveIntoPlace (tempPath, file.toPath());
+    } finally {
+      Files.deleteIfExists (tempPath);
+    }
+  }
+
+  /**
+   Create a new, empty temporary file.
+
+   @param folder The folder in which the file is to be created.
+   @param prefix The start of the file's name.
+
+   @return The path to the new file, whose name ends with TEMP_EXT.
+
+   @throws IOException If the file could not be created.
+  */
+  public static Path createTempFile (File folder, String prefix)
+      throws IOException {
+    return Files.createTempFile (folder.toPath(), prefix, TEMP_EXT);
+  }
+
+  /**
+   Move a file into place, replacing any file already there, atomically
+   if the file system allows.
+
+   @param from The file to be moved.
+   @param to   Where the file is to be moved to.
+
+   @throws IOException If the file could not be moved.
+  */
+  public static void moveIntoPlace (Path from, Path to)
+      throws IOException {
+    try {
+      Files.move (from, to,
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move (from, to, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   Return a digest as a string of hex digits.
+
+   @param digest The digest.
+
+   @return The digest in hex.
+  */
+  public static String toHex (byte[] digest) {
+    char[] hex = new char [digest.length * 2];
+    for (int i = 0; i < digest.length; i++) {
+      hex [i * 2] = HEX [(digest [i] >> 4) & 0x0F];
+      hex [i * 2 + 1] = HEX [digest [i] & 0x0F];
+    }
+    return new String (hex);
+  }
+
+} // end class CheckedFile
@@ -0,0 +1,390 @@
+/*
+ * Copyright 2017 - 2017 Herb Bowie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.powersurgepub.psutils2.files;
+
+  import java.io.*;
+  import java.nio.*;
+  import java.nio.channels.*;
+  import java.nio.charset.*;
+  import java.nio.file.*;
+  import java.time.*;
+  import java.util.*;
+  import java.util.concurrent.*;
+  import java.util.zip.*;
+
+/**
+ Writes a zip file, compressing its entries concurrently on a pool of
+ worker threads. Each worker reads its file through a FileChannel into a
+ large direct buffer, and deflates it into a buffer of its own (or into a
+ temporary file, for large files). The compressed entries are then written
+ to the zip file one at a time, in the order given, so that the result is
+ the same no matter how the work was divided. <p>
+
+ ZipOutputStream cannot accept data that has already been compressed, so
+ the zip format is written here directly. Only the classic format is
+ written: archives needing more than 65,535 entries or more than 4 GB
+ cannot be written by this class (see canWrite), and should be written with
+ ZipOutputStream instead.
+
+ @author Herb Bowie
+ */
+class ParallelZipWriter {
+
+  /** The most entries allowed without Zip64 extensions. */
+  public static final int     MAX_ENTRIES         = 0xFFFF;
+
+  /** The largest size or offset allowed without Zip64 extensions. */
+  public static final long    MAX_SIZE            = 0xFFFFFFFFL;
+
+  /** Size of the direct buffer used by each worker to read files. */
+  public static final int     BUFFER_SIZE         = 1024 * 1024;
+
+  /** Files larger than this are compressed into temporary files. */
+  public static final long    MAX_BUFFERED_SIZE   = 16 * 1024 * 1024;
+
+  /** The most bytes of compressed entries to be held in memory at once. */
+  public static final long    MAX_PENDING_BYTES   = 64 * 1024 * 1024;
+
+  private static final Charset UTF8 = StandardCharsets.UTF_8;
+  private static final byte[]  NO_INPUT = new byte [0];
+
+  private static final int    LOCAL_HEADER        = 0x04034b50;
+  private static final int    CENTRAL_HEADER      = 0x02014b50;
+  private static final int    END_OF_CENTRAL      = 0x06054b50;
+  private static final int    VERSION             = 20;
+  private static final int    UTF8_FLAG           = 0x0800;
+  private static final int    DEFLATED            = 8;
+
+  private static final ThreadLocal<ByteBuffer> readBuffers
+      = ThreadLocal.withInitial (() -> ByteBuffer.allocateDirect (BUFFER_SIZE));
+
+  private             int                     threads;
+
+  /**
+   Create a writer using one worker per available processor.
+  */
+  ParallelZipWriter () {
+    this (Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   Create a writer using the given number of workers.
+
+   @param threads The number of files to be compressed at once.
+  */
+  ParallelZipWriter (int threads) {
+    this.threads = Math.max (1, threads);
+  }
+
+  /**
+   Can the given files be written in the classic zip format? Deflate may
+   expand incompressible data slightly, so some room is allowed for that.
+
+   @param files The files to be written.
+
+   @return True if this class can write them.
+  */
+  static boolean canWrite (List<BackupFile> files) {
+    if (files.size() > MAX_ENTRIES) {
+      return false;
+    }
+    long total = 0;
+    for (BackupFile file : files) {
+      total = total + file.getSize() + (file.getSize() / 100) + 1024
+          + (file.getEntryName().length() * 8);
+    }
+    return (total < MAX_SIZE);
+  }
+
+  /**
+   Write the given files to a new zip file.
+
+   @param zipFile The zip file to be written.
+   @param files   The files to be compressed into it, in order.
+
+   @throws IOException If a file could not be read, or the zip file could
+                       not be written.
+  */
+  void write (File zipFile, List<BackupFile> files)
+      throws IOException {
+    ExecutorService pool = Executors.newFixedThreadPool (threads, runnable -> {
+      Thread thread = new Thread (runnable, "Zip Compressor");
+      thread.setDaemon (true);
+      return thread;
+    });
+    ArrayDeque<Future<Compressed>> pending = new ArrayDeque<Future<Compressed>>();
+    ArrayList<Compressed> written = new ArrayList<Compressed>(files.size());
+    try (OutputStream out = new BufferedOutputStream
+          (new FileOutputStream (zipFile), BUFFER_SIZE)) {
+      long offset = 0;
+      long pendingBytes = 0;
+      int next = 0;
+      while (written.size() < files.size()) {
+        while (next < files.size()
+            && pending.size() < threads * 4
+            && (pending.isEmpty()
+              || pendingBytes + getCost (files.get (next)) <= MAX_PENDING_BYTES)) {
+          BackupFile file = files.get (next);
+          pending.add (pool.submit (() -> compress (file)));
+          pendingBytes = pendingBytes + getCost (file);
+          next++;
+        }
+        Compressed entry = getResult (pending.removeFirst());
+        pendingBytes = pendingBytes - getCost (entry.file);
+        entry.offset = offset;
+        offset = offset + writeLocal (out, entry);
+        entry.discardData();
+        written.add (entry);
+        checkSize (offset);
+      }
+      long centralOffset = offset;
+      for (Compressed entry : written) {
+        offset = offset + writeCentral (out, entry);
+      }
+      checkSize (offset);
+      ByteBuffer end = newHeader (22);
+      end.putInt (END_OF_CENTRAL);
+      end.putShort ((short)0);
+      end.putShort ((short)0);
+      end.putShort ((short)written.size());
+      end.putShort ((short)written.size());
+      end.putInt ((int)(offset - centralOffset));
+      end.putInt ((int)centralOffset);
+      end.putShort ((short)0);
+      out.write (end.array());
+    } finally {
+      // If writing failed, let the remaining workers finish, so that any
+      // temporary files they have written can be removed
+      pool.shutdown();
+      for (Future<Compressed> future : pending) {
+        try {
+          future.get().discardData();
+        } catch (Exception e) {
+          // Nothing left to clean up
+        }
+      }
+    }
+  }
+
+  /**
+   Return the memory an entry may occupy while it waits to be written.
+  */
+  private static long getCost (BackupFile file) {
+    if (file.getSize() > MAX_BUFFERED_SIZE) {
+      return 1024;
+    } else {
+      return file.getSize() + 1024;
+    }
+  }
+
+  private static Compressed getResult (Future<Compressed> future)
+      throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException ("Zip file writing interrupted");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException)e.getCause();
+      } else {
+        throw new IOException (e.getCause());
+      }
+    }
+  }
+
+  private static void checkSize (long offset)
+      throws IOException {
+    if (offset > MAX_SIZE) {
+      throw new IOException ("Zip file too large without Zip64 extensions");
+    }
+  }
+
+  /**
+   Compress one file, on a worker thread.
+  */
+  private static Compressed compress (BackupFile file)
+      throws IOException {
+    Compressed entry = new Compressed (file);
+    ByteBuffer in = readBuffers.get();
+    byte[] deflated = new byte [65536];
+    CRC32 crc = new CRC32();
+    Deflater deflater = new Deflater (Deflater.DEFAULT_COMPRESSION, true);
+    OutputStream sink;
+    if (file.getSize() > MAX_BUFFERED_SIZE) {
+      entry.tempFile = Files.createTempFile ("backup", ".deflated");
+      sink = new BufferedOutputStream
+          (Files.newOutputStream (entry.tempFile), BUFFER_SIZE);
+    } else {
+      entry.bytes = new ByteArrayOutputStream
+          ((int)Math.min (file.getSize() + 64, MAX_BUFFERED_SIZE));
+      sink = entry.bytes;
+    }
+    try (FileChannel channel = FileChannel.open
+          (file.getPath(), StandardOpenOption.READ)) {
+      in.clear();
+      while (channel.read (in) >= 0) {
+        in.flip();
+        entry.size = entry.size + in.remaining();
+        in.mark();
+        crc.update (in);
+        in.reset();
+        deflater.setInput (in);
+        while (! deflater.needsInput()) {
+          int length = deflater.deflate (deflated);
+          sink.write (deflated, 0, length);
+        }
+        in.clear();
+      }
+      // The deflater still refers to the read buffer, which now appears full
+      deflater.setInput (NO_INPUT);
+      deflater.finish();
+      while (! deflater.finished()) {
+        int length = deflater.deflate (deflated);
+        sink.write (deflated, 0, length);
+      }
+      entry.compressedSize = deflater.getBytesWritten();
+      entry.crc = crc.getValue();
+      sink.close();
+    } catch (IOException e) {
+      sink.close();
+      entry.discardData();
+      throw e;
+    } finally {
+      deflater.end();
+    }
+    return entry;
+  }
+
+  /**
+   Write an entry's local header and compressed data.
+
+   @return The number of bytes written.
+  */
+  private static long writeLocal (OutputStream out, Compressed entry)
+      throws IOException {
+    byte[] name = entry.file.getEntryName().getBytes (UTF8);
+    if (entry.size > MAX_SIZE || entry.compressedSize > MAX_SIZE) {
+      throw new IOException ("Entry too large without Zip64 extensions");
+    }
+    ByteBuffer header = newHeader (30 + name.length);
+    header.putInt (LOCAL_HEADER);
+    header.putShort ((short)VERSION);
+    header.putShort ((short)UTF8_FLAG);
+    header.putShort ((short)DEFLATED);
+    header.putInt (getDosTime (entry.file.getLastModified()));
+    header.putInt ((int)entry.crc);
+    header.putInt ((int)entry.compressedSize);
+    header.putInt ((int)entry.size);
+    header.putShort ((short)name.length);
+    header.putShort ((short)0);
+    header.put (name);
+    out.write (header.array());
+    if (entry.tempFile != null) {
+      Files.copy (entry.tempFile, out);
+    } else {
+      entry.bytes.writeTo (out);
+    }
+    return header.capacity() + entry.compressedSize;
+  }
+
+  /**
+   Write an entry's header within the central directory.
+
+   @return The number of bytes written.
+  */
+  private static long writeCentral (OutputStream out, Compressed entry)
+      throws IOException {
+    byte[] name = entry.file.getEntryName().getBytes (UTF8);
+    ByteBuffer header = newHeader (46 + name.length);
+    header.putInt (CENTRAL_HEADER);
+    header.putShort ((short)VERSION);
+    header.putShort ((short)VERSION);
+    header.putShort ((short)UTF8_FLAG);
+    header.putShort ((short)DEFLATED);
+    header.putInt (getDosTime (entry.file.getLastModified()));
+    header.putInt ((int)entry.crc);
+    header.putInt ((int)entry.compressedSize);
+    header.putInt ((int)entry.size);
+    header.putShort ((short)name.length);
+    header.putShort ((short)0);
+    header.putShort ((short)0);
+    header.putShort ((short)0);
+    header.putShort ((short)0);
+    header.putInt (0);
+    header.putInt ((int)entry.offset);
+    header.put (name);
+    out.write (header.array());
+    return header.capacity();
+  }
+
+  private static ByteBuffer newHeader (int length) {
+    return ByteBuffer.allocate (length).order (ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   Convert a time to the MS-DOS format used within zip files, in local time.
+  */
+  private static int getDosTime (long millis) {
+    LocalDateTime time = LocalDateTime.ofInstant
+        (Instant.ofEpochMilli (millis), ZoneId.systemDefault());
+    if (time.getYear() < 1980) {
+      return (1 << 21) | (1 << 16);
+    }
+    return ((time.getYear() - 1980) << 25)
+        | (time.getMonthValue() << 21)
+        | (time.getDayOfMonth() << 16)
+        | (time.getHour() << 11)
+        | (time.getMinute() << 5)
+        | (time.getSecond() >> 1);
+  }
+
+  /**
+   One entry, compressed and waiting to be written.
+  */
+  private static class Compressed {
+
+    BackupFile            file;
+    ByteArrayOutputStream bytes = null;
+    Path                  tempFile = null;
+    long                  size = 0;
+    long                  compressedSize = 0;
+    long                  crc = 0;
+    long                  offset = 0;
+
+    Compressed (BackupFile file) {
+      this.file = file;
+    }
+
+    /**
+     Release the compressed data, once written.
+    */
+    void discardData () {
+      bytes = null;
+      if (tempFile != null) {
+        try {
+          Files.deleteIfExists (tempFile);
+        } catch (IOException e) {
+          // Leave it for the system to clean up
+        }
+        tempFile = null;
+      }
+    }
+
+  } // end class Compressed
+
+} // end class ParallelZipWriter
@@ -23,6 +23,7 @@ package com.powersurgepub.psutils2.list;
 
   import java.io.*;
   import java.util.*;
+  import java.util.stream.*;
 
   import javafx.beans.property.*;
   import javafx.collections.*;
@@ -50,6 +51,12 @@ public class DataRecList
   protected     Comparator          comparator = new PSDefaultComparator();
   protected     PSItemFilter        itemFilter = null;
   
+  /** The fewest records for which filtering will be done in parallel. */
+  public static final int           PARALLEL_FILTER_MINIMUM = 10000;
+  
+  /** Should large lists be filtered using several threads? */
+  protected     boolean             parallelFiltering = false;
+  
   protected     int                 findIndex = -1;
   protected     boolean             findMatch = false;
   
@@ -235,6 +242,21 @@ public class DataRecList
     // fireTableDataChanged();
   }
   
+  /**
+   Indicates whether large lists should be filtered using several threads 
+   at once. The filter's field values must then be safe to read from any
+   thread. 
+  
+   @param parallelFiltering True to filter in parallel. 
+   */
+  public void setParallelFiltering (boolean parallelFiltering) {
+    this.parallelFiltering = parallelFiltering;
+  }
+  
+  public boolean isParallelFiltering () {
+    return parallelFiltering;
+  }
+  
   public void setComparator (Comparator comparator) {
     if (comparator == null) {
       this.comparator = new PSDefaultComparator();
@@ -254,11 +276,59 @@ public class DataRecList
     // fireTableDataChanged();
   }
   
+  /**
+   Rebuild the filtered and sorted list from the complete list. The selected
+   records are gathered into a plain list, in parallel if requested, and 
+   sorted there (records that compare as equal keep their original order). 
+   The result is then placed in the filtered data set as a single change. 
+  */
   public void reloadFilteredDataSet() {
-    filteredDataSet = new DataSet(completeDataSet.getRecDef());
-    for (int i = 0; i < completeDataSet.size(); i++) {
-      addToFilteredDataSet(i);
+    ArrayList<DataRecord> selected 
+        = new ArrayList<DataRecord>(completeDataSet.size());
+    if (parallelFiltering
+        && itemFilter != null
+        && completeDataSet.size() >= PARALLEL_FILTER_MINIMUM) {
+      PSItemFilter filter = itemFilter;
+      filter.compile();
+      DataRecord[] records 
+          = completeDataSet.getList().toArray(new DataRecord[0]);
+      selected.addAll(Arrays.stream(records)
+          .parallel()
+          .filter(dataRec -> filter.selects(dataRec))
+          .collect(Collectors.toList()));
+    } else {
+      for (int i = 0; i < completeDataSet.size(); i++) {
+        DataRecord dataRec = completeDataSet.getRecord(i);
+        if (itemSelected(dataRec)) {
+          selected.add(dataRec);
+        }
+      }
+    }
+    if (comparator instanceof PSItemComparator) {
+      ((PSItemComparator)comparator).sort(selected);
+    }
+    else
+    if (! (comparator instanceof PSDefaultComparator)) {
+      // Comparators set on this list always compare data records
+      @SuppressWarnings("unchecked")
+      Comparator<? super DataRecord> recordComparator = comparator;
+      selected.sort(recordComparator);
     }
+    filteredDataSet = new DataSet(completeDataSet.getRecDef());
+    filteredDataSet.setAll(selected);
+  }
+  
+  /**
+   Add a single record to the list, as when a user adds one interactively, 
+   inserting it into its proper position within the filtered list. Use 
+   reloadFilteredDataSet to rebuild the filtered list after loading many
+   records at once. 
+  
+   @param dataRec The record to be added. 
+  */
+  public void add (DataRecord dataRec) {
+    completeDataSet.add(dataRec);
+    addToFilteredDataSet(completeDataSet.size() - 1);
   }
   
   private void addToFilteredDataSet (int i) {
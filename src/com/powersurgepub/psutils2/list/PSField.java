@@ -32,6 +32,20 @@ public class PSField {
   /** Number of elements in each of the operand arrays. */
   public static final int      NUMBER_OF_LOGICAL_OPERANDS = 12;
   
+  /* Indexes into each of the operand arrays. */
+  public static final int      EQUALS                      = 0;
+  public static final int      GREATER_THAN                = 1;
+  public static final int      GREATER_THAN_OR_EQUAL_TO    = 2;
+  public static final int      LESS_THAN                   = 3;
+  public static final int      LESS_THAN_OR_EQUAL_TO       = 4;
+  public static final int      NOT_EQUAL_TO                = 5;
+  public static final int      CONTAINS                    = 6;
+  public static final int      DOES_NOT_CONTAIN            = 7;
+  public static final int      STARTS_WITH                 = 8;
+  public static final int      DOES_NOT_START_WITH         = 9;
+  public static final int      ENDS_WITH                   = 10;
+  public static final int      DOES_NOT_END_WITH           = 11;
+  
   /** An array of valid operands consisting of special characters. */
   public static final String[] SYMBOL_LOGICAL_OPERANDS = {
     "=",  ">",  ">=", "<",  "<=", "<>", "()", "!()", "(<)", "!(<)", "(>)", "!(>)"};
@@ -258,49 +272,66 @@ public class PSField {
      Perform standard processing on a data value.
    */
   private void processData () {
-    int i = 0;
-    int sign = +1;
-    char c;
-    dataInteger = 0;
-    dataLong = 0;
+    aNumber = isANumber (data);
+    if (aNumber) {
+      dataLong = toLong (data);
+    } else {
+      dataLong = 0;
+    }
+    dataInteger = (int)dataLong;
+  } // end method processData
+  
+  /**
+     Can the given string represent a number? Digits may be interspersed 
+     with commas and spaces, and preceded by a minus sign. 
+  
+     @param data The string to be examined. 
+  
+     @return True if the string represents a number. 
+   */
+  public static boolean isANumber (String data) {
     int digitCount = 0;
     int l = data.length();
-    aNumber = true;
-    while ((i < l) && (aNumber)) {
-      c = data.charAt(i);
+    for (int i = 0; i < l; i++) {
+      char c = data.charAt(i);
       if (Character.isDigit(c)) {
-        dataInteger = (dataInteger * 10) + Character.getNumericValue(c);
-        dataLong    = (dataLong    * 10) + Character.getNumericValue(c);
         digitCount++;
-      } 
-      else 
-      if (Character.isLetter(c)) {
-        aNumber = false;
       }
       else
-      if ((c == '-') && ((i == 0) || (i == l))){
-        sign = -1;
+      if ((c == '-') && (i == 0)) {
       }
       else
-      if (c == ',') {
+      if (c == ',' || c == ' ') {
+      } else {
+        return false;
       }
-      else
-      if (c == ' ') {
+    } // end for
+    return (digitCount > 0);
+  } // end method isANumber
+  
+  /**
+     Returns the value of a string representing a number.
+  
+     @param data A string for which isANumber is true. 
+  
+     @return The value of the number. 
+   */
+  public static long toLong (String data) {
+    long value = 0;
+    int sign = +1;
+    int l = data.length();
+    for (int i = 0; i < l; i++) {
+      char c = data.charAt(i);
+      if (Character.isDigit(c)) {
+        value = (value * 10) + Character.getNumericValue(c);
       }
-      else {
-        aNumber = false;
+      else
+      if ((c == '-') && (i == 0)) {
+        sign = -1;
       }
-      i++;
-    } // end while
-    if (aNumber && digitCount == 0) {
-      aNumber = false;
-    }
-    if (aNumber) {
-      dataInteger = dataInteger * sign;
-      dataLong    = dataLong    * sign;
-    }
-    
-  } // end method processData
+    } // end for
+    return value * sign;
+  } // end method toLong
   
   /**
      Returns this data field as some kind of string.
@@ -336,7 +367,44 @@ public class PSField {
    */
   public boolean operateLogically (String operator, PSField operand) 
       throws IllegalArgumentException {
+    return operateLogically (getOperatorIndex (operator), operand);
+  }
+  
+  /**
+     Performs given logical operation on this data field, 
+     using one operand.
+    
+     @return True if expression evaluates to True.
+    
+     @param opIndex  The index of the operator, as returned by 
+                     getOperatorIndex. 
+    
+     @param operand Second field to be used with the operator.
+   */
+  public boolean operateLogically (int opIndex, PSField operand) {
     boolean trueOrFalse = true;
+    if (opIndex < CONTAINS) {
+      trueOrFalse = compareLogically (opIndex, this.compareTo (operand));
+    } // end opIndex < 6
+    else {                      // text comparison
+      trueOrFalse = matchLogically 
+          (opIndex, data.toLowerCase(), operand.getData().toLowerCase());
+    }
+    return trueOrFalse;
+  } // end method operateLogically
+  
+  /**
+     Returns the index of a logical operator within the operand arrays. 
+  
+     @param operator A logical operator, in any of its forms. 
+  
+     @return The operator's index. 
+  
+     @throws IllegalArgumentException if operator not in any of the 
+               array constants.
+   */
+  public static int getOperatorIndex (String operator) 
+      throws IllegalArgumentException {
     int opLength = operator.length();
     char firstChar = ' ';
     String oplc = " ";
@@ -370,56 +438,75 @@ public class PSField {
       throw new IllegalArgumentException 
         ("Invalid logical operator (" + operator + ")");
     }
-    opIndex--;
-    if (opIndex < 6) {
-      int result = this.compareTo (operand);
-      if (opIndex == 0) {       // equals
-        trueOrFalse = (result == 0);
-      } else
-      if (opIndex == 1) {       // greater than
-        trueOrFalse = (result > 0);
-      } else
-      if (opIndex == 2) {       // greater than or equal to
-        trueOrFalse = (result >= 0);
-      } else
-      if (opIndex == 3) {       // less than
-        trueOrFalse = (result < 0);
-      } else
-      if (opIndex == 4) {       // less than or equal to
-        trueOrFalse = (result <= 0);
-      } else
-      if (opIndex == 5) {       // not equal to
-        trueOrFalse = (result != 0);
-      }
-    } // end opIndex < 6
-    else {                      // text comparison
-      String datalc = data.toLowerCase();
-      String operandlc = operand.getData().toLowerCase();
-      if (opIndex == 6) {
-        int ix = datalc.indexOf (operandlc);
-        trueOrFalse = (ix >= 0);
-      }
-      else
-      if (opIndex == 7) {
-        int ix = datalc.indexOf (operandlc);
-        trueOrFalse = (ix < 0);
-      }
-      else
-      if (opIndex == 8) {
-        trueOrFalse = (datalc.startsWith (operandlc));
-      }
-      else
-      if (opIndex == 9) {
-        trueOrFalse = (! datalc.startsWith (operandlc));
-      }
-      else 
-      if (opIndex == 10) {
-        trueOrFalse = (datalc.endsWith (operandlc));
-      }
-      else 
-      if (opIndex == 11) {
-        trueOrFalse = (! datalc.endsWith (operandlc));
-      }
+    return opIndex - 1;
+  } // end method getOperatorIndex
+  
+  /**
+     Applies one of the comparison operators to the result of a comparison.
+  
+     @param opIndex An operator index from EQUALS through NOT_EQUAL_TO.
+     @param result  The result of comparing the field to the operand.
+  
+     @return True if the expression evaluates to true.
+   */
+  public static boolean compareLogically (int opIndex, int result) {
+    boolean trueOrFalse = true;
+    if (opIndex == EQUALS) {
+      trueOrFalse = (result == 0);
+    } else
+    if (opIndex == GREATER_THAN) {
+      trueOrFalse = (result > 0);
+    } else
+    if (opIndex == GREATER_THAN_OR_EQUAL_TO) {
+      trueOrFalse = (result >= 0);
+    } else
+    if (opIndex == LESS_THAN) {
+      trueOrFalse = (result < 0);
+    } else
+    if (opIndex == LESS_THAN_OR_EQUAL_TO) {
+      trueOrFalse = (result <= 0);
+    } else
+    if (opIndex == NOT_EQUAL_TO) {
+      trueOrFalse = (result != 0);
+    }
+    return trueOrFalse;
+  }
+  
+  /**
+     Applies one of the text operators to lower-case data and operand. 
+  
+     @param opIndex   An operator index from CONTAINS through 
+                      DOES_NOT_END_WITH.
+     @param datalc    The field's data, in lower case.
+     @param operandlc The operand's data, in lower case.
+  
+     @return True if the expression evaluates to true.
+   */
+  public static boolean matchLogically 
+      (int opIndex, String datalc, String operandlc) {
+    boolean trueOrFalse = true;
+    if (opIndex == CONTAINS) {
+      trueOrFalse = (datalc.indexOf (operandlc) >= 0);
+    }
+    else
+    if (opIndex == DOES_NOT_CONTAIN) {
+      trueOrFalse = (datalc.indexOf (operandlc) < 0);
+    }
+    else
+    if (opIndex == STARTS_WITH) {
+      trueOrFalse = (datalc.startsWith (operandlc));
+    }
+    else
+    if (opIndex == DOES_NOT_START_WITH) {
+      trueOrFalse = (! datalc.startsWith (operandlc));
+    }
+    else 
+    if (opIndex == ENDS_WITH) {
+      trueOrFalse = (datalc.endsWith (operandlc));
+    }
+    else 
+    if (opIndex == DOES_NOT_END_WITH) {
+      trueOrFalse = (! datalc.endsWith (operandlc));
     }
     return trueOrFalse;
   } // end method operateLogically
@@ -16,11 +16,21 @@
 
 package com.powersurgepub.psutils2.list;
 
+  import com.powersurgepub.psutils2.records.*;
+  import com.powersurgepub.psutils2.values.*;
+
   import java.util.*;
 
 /**
    A comparator for a field within a list (used for sorting, etc.). <p>
 
+   Two values that are both integers are compared numerically; other values
+   are compared as strings. Once resolveType has been called, however, the
+   comparator treats all the values in its column as being of a single 
+   type: numbers, dates, sequence values or text. That type can be decided
+   once for the whole column, and each item's key extracted once, before 
+   sorting (see PSItemComparator.sort). <p>
+
    @author Herb Bowie 
  */
 
@@ -42,6 +52,33 @@ public class PSFieldComparator
   /** Is this field to be sorted in ascending sequence? */
   private    boolean            ascending = true;
 
+  /** Decide the type of the column from its definition and its values. */
+  public final static int     AUTO_TYPE   = 0;
+
+  /** Compare values as strings. */
+  public final static int     TEXT_TYPE   = 1;
+
+  /** Compare values as integers. */
+  public final static int     NUMBER_TYPE = 2;
+
+  /** Compare values as dates (see StringDate). */
+  public final static int     DATE_TYPE   = 3;
+
+  /** Compare values as sequence values (see DataValueSeq). */
+  public final static int     SEQ_TYPE    = 4;
+
+  /** Compare values of any class (the original comparison). */
+  public final static int     OBJECT_TYPE = 5;
+
+  /** Returned when a string is not an integer. */
+  private final static long   NOT_INTEGER = Long.MAX_VALUE;
+
+  /** The type of the column, as requested. */
+  private    int                type = AUTO_TYPE;
+
+  /** The type of the column, as decided by resolveType. */
+  private    int                resolvedType = AUTO_TYPE;
+
 /**
    Constructs the comparator, assuming an ascending sequence.
 
@@ -174,10 +211,208 @@ public class PSFieldComparator
   
   public void setColumn (int column) {
     this.column = column;
+    this.resolvedType = AUTO_TYPE;
   }
   
   public void setColumn (String fieldName) {
     this.column = psList.getColumnNumber(fieldName);
+    this.resolvedType = AUTO_TYPE;
+  }
+  
+  /**
+     Sets the type of values to be compared. 
+  
+     @param type One of the type constants, or AUTO_TYPE to have the 
+                 type decided by resolveType. 
+   */
+  public void setType (int type) {
+    this.type = type;
+    this.resolvedType = AUTO_TYPE;
+  }
+  
+  public int getType () {
+    return type;
+  }
+  
+  /**
+     Returns the type of values being compared, as decided by resolveType.
+  
+     @return The resolved type, or AUTO_TYPE if not yet resolved. 
+   */
+  public int getResolvedType () {
+    return resolvedType;
+  }
+  
+  /**
+     Decides the type of values in this column, for the given items. Unless
+     a type has been set, dates and sequence values are identified by the
+     list's record definition; other columns are numeric if every 
+     non-blank value is an integer, and text otherwise. 
+  
+     @param items The items that are to be compared. 
+  
+     @return The resolved type. 
+   */
+  public int resolveType (List<? extends PSItem> items) {
+    resolvedType = type;
+    if (resolvedType == AUTO_TYPE) {
+      RecordDefinition recDef = null;
+      if (psList != null) {
+        recDef = psList.getRecDef();
+      }
+      if (recDef != null && column >= 0 && column < recDef.getNumberOfFields()) {
+        int fieldType = recDef.getDef(column).getType();
+        if (fieldType == DataFieldDefinition.DATE_TYPE
+            || fieldType == DataFieldDefinition.DATE_ADDED_TYPE) {
+          resolvedType = DATE_TYPE;
+        }
+        else
+        if (fieldType == DataFieldDefinition.SEQ_TYPE) {
+          resolvedType = SEQ_TYPE;
+        }
+      }
+    }
+    if (resolvedType == AUTO_TYPE) {
+      boolean numbers = false;
+      boolean text = false;
+      for (int i = 0; i < items.size() && resolvedType == AUTO_TYPE; i++) {
+        Object fieldObj = items.get(i).getColumnValue(column);
+        if (fieldObj == null) {
+          // Nulls sort first, whatever the type
+        }
+        else
+        if (! (fieldObj instanceof String)) {
+          resolvedType = OBJECT_TYPE;
+        } 
+        else
+        if (((String)fieldObj).length() > 0) {
+          if (parseInteger((String)fieldObj) == NOT_INTEGER) {
+            text = true;
+          } else {
+            numbers = true;
+          }
+        }
+      }
+      if (resolvedType == AUTO_TYPE) {
+        if (numbers && (! text)) {
+          resolvedType = NUMBER_TYPE;
+        } else {
+          resolvedType = TEXT_TYPE;
+        }
+      }
+    }
+    return resolvedType;
+  }
+  
+  /**
+     Extracts the sort key for this column from each of the given items, 
+     according to the type decided by resolveType. 
+  
+     @param items The items to be sorted. 
+  
+     @return The keys, in the same order as the items. 
+   */
+  Keys getKeys (List<? extends PSItem> items) {
+    if (resolvedType == AUTO_TYPE) {
+      resolveType (items);
+    }
+    int size = items.size();
+    Keys keys = new Keys();
+    if (resolvedType == NUMBER_TYPE) {
+      keys.numbers = new long [size];
+    }
+    else
+    if (resolvedType == OBJECT_TYPE) {
+      keys.objects = new Object [size];
+    } else {
+      keys.strings = new String [size];
+    }
+    for (int i = 0; i < size; i++) {
+      Object fieldObj = items.get(i).getColumnValue(column);
+      if (resolvedType == OBJECT_TYPE) {
+        keys.objects [i] = fieldObj;
+      }
+      else
+      if (resolvedType == NUMBER_TYPE) {
+        long number;
+        if (fieldObj == null) {
+          // Nulls sort first, followed by blanks
+          number = Long.MIN_VALUE;
+        } else {
+          number = parseInteger((String)fieldObj);
+          if (number == NOT_INTEGER) {
+            number = Long.MIN_VALUE + 1;
+          }
+        }
+        keys.numbers [i] = number;
+      }
+      else
+      if (fieldObj != null) {
+        keys.strings [i] = getStringKey(fieldObj.toString());
+      }
+    }
+    return keys;
+  }
+  
+  /**
+     Compares the keys extracted for two items. 
+  
+     @param keys The keys returned by getKeys. 
+     @param i    The position of the first item. 
+     @param j    The position of the second item. 
+  
+     @return Negative, zero or positive, as the first item is to go before,
+             with, or after the second. 
+   */
+  int compareKeys (Keys keys, int i, int j) {
+    int result;
+    if (keys.numbers != null) {
+      result = Long.compare(keys.numbers [i], keys.numbers [j]);
+    }
+    else
+    if (keys.strings != null) {
+      result = compareStrings(keys.strings [i], keys.strings [j]);
+    } else {
+      result = compareObjects(keys.objects [i], keys.objects [j]);
+    }
+    if (ascending) {
+      return result;
+    } else {
+      return (result * -1);
+    }
+  }
+  
+  /**
+     Returns the string to be compared for a value of the resolved type. 
+  
+     @param str The value as a string. 
+  
+     @return The string to be compared. 
+   */
+  private String getStringKey (String str) {
+    if (resolvedType == DATE_TYPE) {
+      StringDate date = new StringDate();
+      date.parse(str);
+      return date.getYMD();
+    }
+    else
+    if (resolvedType == SEQ_TYPE) {
+      return new DataValueSeq(str).toPaddedString();
+    } else {
+      return str;
+    }
+  }
+  
+  private static int compareStrings (String str1, String str2) {
+    if (str1 == null) {
+      return (str2 == null ? 0 : -1);
+    }
+    else
+    if (str2 == null) {
+      return 1;
+    } else {
+      return str1.compareTo(str2);
+    }
   }
 
   /**
@@ -216,41 +451,15 @@ public class PSFieldComparator
       PSItem item2 = (PSItem)obj2;
       Object fieldObj1 = item1.getColumnValue(column);
       Object fieldObj2 = item2.getColumnValue(column);
-      if (fieldObj1 == null) {
-        result = -1;
-      }
-      else
-      if (fieldObj2 == null) {
-        result = 1;
+      if (resolvedType == DATE_TYPE
+          || resolvedType == SEQ_TYPE
+          || resolvedType == TEXT_TYPE) {
+        result = compareStrings(
+            (fieldObj1 == null ? null : getStringKey(fieldObj1.toString())),
+            (fieldObj2 == null ? null : getStringKey(fieldObj2.toString())));
+      } else {
+        result = compareObjects(fieldObj1, fieldObj2);
       }
-      else
-      if (fieldObj1 instanceof String
-          && fieldObj2 instanceof String) {
-        String str1 = (String)fieldObj1;
-        String str2 = (String)fieldObj2;
-        try {
-          int int1 = Integer.parseInt(str1);
-          int int2 = Integer.parseInt(str2);
-          if (int1 < int2) {
-            result = -1;
-          }
-          else 
-          if (int1 > int2) {
-            result = 1;
-          } else {
-            result = 0;
-          }
-        } catch (NumberFormatException e) {
-          result = str1.compareTo(str2);
-        }
-      }
-      else
-      if (fieldObj1 instanceof Comparable
-          && fieldObj2 instanceof Comparable) {
-        Comparable field1 = (Comparable)fieldObj1;
-        Comparable field2 = (Comparable)fieldObj2;
-        result = field1.compareTo(field2);
-      } 
     } 
     if (ascending) {
       return result;
@@ -262,6 +471,99 @@ public class PSFieldComparator
       return (result * -1);
     }
   }
+  
+  /**
+     Compares two field values, as integers if both are integers, otherwise
+     as strings or other comparable objects. 
+  
+     @param fieldObj1 The first value. 
+     @param fieldObj2 The second value. 
+  
+     @return Negative, zero or positive, as the first value is less than, 
+             equal to, or greater than the second. 
+   */
+  private static int compareObjects (Object fieldObj1, Object fieldObj2) {
+    int result = 0;
+    if (fieldObj1 == null && fieldObj2 == null) {
+      result = 0;
+    }
+    else
+    if (fieldObj1 == null) {
+      result = -1;
+    }
+    else
+    if (fieldObj2 == null) {
+      result = 1;
+    }
+    else
+    if (fieldObj1 instanceof String
+        && fieldObj2 instanceof String) {
+      String str1 = (String)fieldObj1;
+      String str2 = (String)fieldObj2;
+      long int1 = parseInteger(str1);
+      long int2 = NOT_INTEGER;
+      if (int1 != NOT_INTEGER) {
+        int2 = parseInteger(str2);
+      }
+      if (int2 != NOT_INTEGER) {
+        result = Long.compare(int1, int2);
+      } else {
+        result = str1.compareTo(str2);
+      }
+    }
+    else
+    if (fieldObj1 instanceof Comparable
+        && fieldObj2 instanceof Comparable) {
+      Comparable field1 = (Comparable)fieldObj1;
+      Comparable field2 = (Comparable)fieldObj2;
+      result = field1.compareTo(field2);
+    } 
+    return result;
+  }
+  
+  /**
+     Parses a string as an integer, accepting exactly what Integer.parseInt
+     would accept, but without throwing an exception for anything else. 
+  
+     @param str The string to be parsed. 
+  
+     @return The integer value, or NOT_INTEGER. 
+   */
+  private static long parseInteger (String str) {
+    int length = str.length();
+    if (length == 0) {
+      return NOT_INTEGER;
+    }
+    int i = 0;
+    boolean negative = false;
+    char first = str.charAt(0);
+    if (first == '-' || first == '+') {
+      negative = (first == '-');
+      i++;
+      if (length == 1) {
+        return NOT_INTEGER;
+      }
+    }
+    long value = 0;
+    while (i < length) {
+      int digit = Character.digit(str.charAt(i), 10);
+      if (digit < 0) {
+        return NOT_INTEGER;
+      }
+      value = (value * 10) + digit;
+      if (value > (long)Integer.MAX_VALUE + 1) {
+        return NOT_INTEGER;
+      }
+      i++;
+    }
+    if (negative) {
+      value = -value;
+    }
+    if (value > Integer.MAX_VALUE) {
+      return NOT_INTEGER;
+    }
+    return value;
+  }
 
   /**
      Returns this object as some kind of string.
@@ -274,5 +576,16 @@ public class PSFieldComparator
       + column + " " + (ascending ? "ascending" : "descending"));
   }
 
+  /**
+     The sort keys extracted for one column: numbers for a numeric column,
+     normalized strings for dates, sequence values and text, or the 
+     values themselves otherwise. 
+   */
+  static class Keys {
+    long[]    numbers = null;
+    String[]  strings = null;
+    Object[]  objects = null;
+  }
+
 } // end PSFIeldComparator Class
 
@@ -16,8 +16,15 @@
 
 package com.powersurgepub.psutils2.list;
 
+  import com.powersurgepub.psutils2.strings.*;
+
 /**
  Determines whether an item should be included in a list or excluded from it. 
+ <p>
+ The filter is compiled before its first use: the operator is resolved to 
+ its index, and the value to be compared is parsed as a number and 
+ converted to lower case, just once, rather than once for each item. Once
+ compiled, the filter may be used from several threads at once. 
 
  @author Herb Bowie.
  */
@@ -35,6 +42,30 @@ public class PSFieldFilter {
   /** Value to be compared to field data. */
   private    PSField            value;
   
+  /** Relative cost of a comparison with a number or string. */
+  public static final int       COMPARE_COST = 1;
+  
+  /** Relative cost of a text match, which converts data to lower case. */
+  public static final int       MATCH_COST   = 2;
+  
+  /** Has the filter been compiled since it was last changed? */
+  private    volatile boolean   compiled = false;
+  
+  /** Index of the operator, as returned by PSField.getOperatorIndex. */
+  private    int                opIndex = 0;
+  
+  /** Value to be compared, as a string. */
+  private    String             operand = "";
+  
+  /** Value to be compared, in lower case, for text matches. */
+  private    String             operandLower = "";
+  
+  /** Is the value to be compared a number? */
+  private    boolean            operandNumber = false;
+  
+  /** Value to be compared, as a number. */
+  private    long               operandLong = 0;
+  
   public PSFieldFilter() {
     
   }
@@ -68,15 +99,67 @@ public class PSFieldFilter {
   public boolean selects (PSItem psItem) 
     throws IllegalArgumentException {
 
+    if (! compiled) {
+      compile();
+    }
     Object obj = psItem.getColumnValue(column);
     String fieldValue;
     if (obj == null) {
       fieldValue = "";
     } else {
-      fieldValue = obj.toString();
+      fieldValue = StringUtils.purifyInvisibles (obj.toString());
+    }
+    if (opIndex < PSField.CONTAINS) {
+      int result;
+      if (operandNumber && PSField.isANumber (fieldValue)) {
+        result = Long.compare (PSField.toLong (fieldValue), operandLong);
+      } else {
+        result = fieldValue.compareTo (operand);
+      }
+      return PSField.compareLogically (opIndex, result);
+    } else {
+      return PSField.matchLogically 
+          (opIndex, fieldValue.toLowerCase(), operandLower);
+    }
+  }
+  
+  /**
+     Prepares the filter for use, resolving the operator and parsing the 
+     value to be compared. This is done automatically on first use, but 
+     should be done explicitly before the filter is shared between threads.
+  
+     @throws IllegalArgumentException if the operator is invalid.
+   */
+  public synchronized void compile () 
+      throws IllegalArgumentException {
+    if (! compiled) {
+      opIndex = PSField.getOperatorIndex (operator);
+      operand = value.getData();
+      operandLower = operand.toLowerCase();
+      operandNumber = value.isANumber();
+      operandLong = value.getDataLong();
+      compiled = true;
+    }
+  }
+  
+  /**
+     Returns the relative cost of evaluating this filter for one item, 
+     so that cheaper filters may be evaluated first.
+  
+     @return COMPARE_COST or MATCH_COST.
+  
+     @throws IllegalArgumentException if the operator is invalid.
+   */
+  public int getCost () 
+      throws IllegalArgumentException {
+    if (! compiled) {
+      compile();
+    }
+    if (opIndex < PSField.CONTAINS) {
+      return COMPARE_COST;
+    } else {
+      return MATCH_COST;
     }
-    PSField field = new PSField (fieldValue);
-    return field.operateLogically (operator, value);
   }
   
   public void setList (PSList psList) {
@@ -106,6 +189,7 @@ public class PSFieldFilter {
 
   public void setOperator (String operator) {
     this.operator = operator;
+    compiled = false;
   }
 
   /**
@@ -119,10 +203,12 @@ public class PSFieldFilter {
   
   public void setValue (String valueString) {
     this.value = new PSField(valueString);
+    compiled = false;
   }
   
   public void setValue (PSField value) {
     this.value = value;
+    compiled = false;
   }
 
   /**
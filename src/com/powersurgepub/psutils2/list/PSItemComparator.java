@@ -128,6 +128,92 @@ public class PSItemComparator
     return result;
   }
 
+  /**
+     Sorts the given list of items. The type of each sort field is decided
+     once for the whole list, and each item's keys are extracted once, so 
+     that the sort itself compares only numbers and prepared strings. The 
+     sort is stable, as is List.sort. 
+  
+     @param list The list of items to be sorted. 
+   */
+  public void sort (List<? extends PSItem> list) {
+    sortItems (list);
+  }
+  
+  /**
+     Sorts the given list of items, once its element type has been captured. 
+   */
+  private <T extends PSItem> void sortItems (List<T> items) {
+    int size = items.size();
+    for (int i = 0; i < size; i++) {
+      if (items.get(i) == null) {
+        items.sort((item1, item2) -> compare(item1, item2));
+        return;
+      }
+    }
+    PSFieldComparator.Keys[] keys 
+        = new PSFieldComparator.Keys [fieldComparators.size()];
+    for (int f = 0; f < fieldComparators.size(); f++) {
+      PSFieldComparator fieldComparator = fieldComparators.get(f);
+      fieldComparator.resolveType(items);
+      keys [f] = fieldComparator.getKeys(items);
+    }
+    int[] order = new int [size];
+    for (int i = 0; i < size; i++) {
+      order [i] = i;
+    }
+    mergeSort (order, new int [size], 0, size, keys);
+    ArrayList<T> sorted = new ArrayList<T>(size);
+    for (int i = 0; i < size; i++) {
+      sorted.add(items.get(order [i]));
+    }
+    for (int i = 0; i < size; i++) {
+      items.set(i, sorted.get(i));
+    }
+  }
+  
+  /**
+     Sorts a range of item positions, comparing the keys extracted for 
+     the items. 
+   */
+  private void mergeSort 
+      (int[] order, int[] work, int from, int to, PSFieldComparator.Keys[] keys) {
+    if (to - from < 2) {
+      return;
+    }
+    int middle = (from + to) >>> 1;
+    mergeSort (order, work, from, middle, keys);
+    mergeSort (order, work, middle, to, keys);
+    if (compareKeys (keys, order [middle - 1], order [middle]) <= 0) {
+      return;
+    }
+    System.arraycopy (order, from, work, from, to - from);
+    int left = from;
+    int right = middle;
+    for (int i = from; i < to; i++) {
+      if (right >= to
+          || (left < middle 
+            && compareKeys (keys, work [left], work [right]) <= 0)) {
+        order [i] = work [left];
+        left++;
+      } else {
+        order [i] = work [right];
+        right++;
+      }
+    }
+  }
+  
+  /**
+     Compares two items by the keys extracted for them, field by field. 
+   */
+  private int compareKeys (PSFieldComparator.Keys[] keys, int i, int j) {
+    int result = 0;
+    for (int f = 0; f < keys.length && result == 0; f++) {
+      result = fieldComparators.get(f).compareKeys(keys [f], i, j);
+    }
+    return result;
+  }
+
   /**
      Returns this object as some kind of string.
 
@@ -22,7 +22,11 @@ package com.powersurgepub.psutils2.list;
 
 /**
    A filter specification for a particular list, 
-   made up of zero or more field fieldFilters. 
+   made up of zero or more field fieldFilters. <p>
+
+   Since the result does not depend on the order in which the field filters
+   are evaluated, they are evaluated from cheapest to most expensive, 
+   stopping as soon as the outcome is known. 
 
    @author Herb Bowie
  */
@@ -35,6 +39,9 @@ public class PSItemFilter {
   /** The collection of field filters that make up this item filter. */
   private    ArrayList<PSFieldFilter> fieldFilters;
 
+  /** The field filters in the order in which they are to be evaluated. */
+  private    volatile PSFieldFilter[] evaluationOrder = null;
+
   /** 
      Constructs a new item filter specification.     
 
@@ -55,6 +62,28 @@ public class PSItemFilter {
    */
   public void addFilter (PSFieldFilter filter) {
     fieldFilters.add (filter);
+    evaluationOrder = null;
+  }
+
+  /**
+     Prepares the filter for use, compiling each field filter and deciding 
+     the order in which they are to be evaluated. This is done automatically
+     on first use, but should be done explicitly before the filter is 
+     shared between threads.
+
+     @throws IllegalArgumentException if an operator is invalid.
+   */
+  public synchronized void compile () 
+      throws IllegalArgumentException {
+    if (evaluationOrder == null) {
+      ArrayList<PSFieldFilter> ordered 
+          = new ArrayList<PSFieldFilter>(fieldFilters);
+      for (PSFieldFilter filter : ordered) {
+        filter.compile();
+      }
+      ordered.sort (Comparator.comparingInt (PSFieldFilter::getCost));
+      evaluationOrder = ordered.toArray (new PSFieldFilter [ordered.size()]);
+    }
   }
 
    /**
@@ -69,12 +98,17 @@ public class PSItemFilter {
   public boolean selects (PSItem psItem) 
       throws IllegalArgumentException {
 
-    int size = fieldFilters.size();
+    PSFieldFilter[] filters = evaluationOrder;
+    if (filters == null) {
+      compile();
+      filters = evaluationOrder;
+    }
+    int size = filters.length;
     if (size == 0) {
       return true;
     } else {
       int i = 0;
-      boolean selected = selectionAt (psItem, i);
+      boolean selected = filters [i].selects (psItem);
       boolean endCondition;
       if (andLogic) {
         endCondition = false;
@@ -83,20 +117,13 @@ public class PSItemFilter {
       }
       i = 1;
       while ((selected != endCondition) && (i < size)) {
-        selected = selectionAt (psItem, i);
+        selected = filters [i].selects (psItem);
         i++;
       }
       return selected;
     } // end condition where number of fieldFilters is non-zero
   } // end selects method
 
-  private boolean selectionAt (PSItem psItem, int index) 
-      throws IllegalArgumentException {
-
-    PSFieldFilter oneFilter = fieldFilters.get (index);
-    return oneFilter.selects (psItem);
-  }
-
   /**
      Sets the And logic flag.
 
@@ -0,0 +1,225 @@
+/*
+ * Copyright 1999 - 2017 Herb Bowie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powersurgepub.psutils2.logging;
+
+  import java.util.concurrent.*;
+  import java.util.concurrent.atomic.*;
+  import java.util.concurrent.locks.*;
+
+/**
+   Passes events and data from any number of threads to a Logger, which
+   processes them on a single writer thread. Callers add entries to a
+   lock-free queue and carry on; the writer takes them off the queue in
+   batches, processes them in the order received, and flushes the log
+   output once a batch is full or once entries have been waiting long
+   enough. <p>
+
+   When the queue is full, the Logger's backpressure policy determines
+   what happens: the caller may wait for room, minor events may be
+   dropped, or the caller may process the waiting entries itself.
+ */
+
+class LogAsyncWriter
+    implements Runnable {
+
+  /** Time for a blocked caller to wait before checking for room again. */
+  private static final long   BLOCK_WAIT_NANOS = 100000;
+
+  private   Logger                          logger;
+  private   int                             capacity;
+  private   int                             batchSize;
+  private   long                            flushNanos;
+  private   int                             backpressure;
+
+  private   ConcurrentLinkedQueue<Object>   queue
+      = new ConcurrentLinkedQueue<Object>();
+  private   AtomicInteger                   size = new AtomicInteger();
+  private   AtomicLong                      dropped = new AtomicLong();
+
+  private   Thread                          thread = null;
+  private   volatile boolean                running = false;
+
+  /**
+     Set once stop has been called. A caller that finds it set, either
+     before or after queueing its entry, writes the queue itself, so that
+     no entry is left behind by the final drain.
+   */
+  private   volatile boolean                closed = false;
+
+  /**
+     Creates a writer for the given Logger.
+
+     @param logger       The Logger that will process the entries.
+     @param capacity     The number of entries the queue may hold.
+     @param batchSize    The number of entries written between flushes.
+     @param flushMillis  The longest time an entry may wait to be flushed.
+     @param backpressure The policy to apply when the queue is full.
+   */
+  LogAsyncWriter (Logger logger, int capacity, int batchSize,
+      long flushMillis, int backpressure) {
+    this.logger = logger;
+    this.capacity = Math.max (1, capacity);
+    this.batchSize = Math.max (1, Math.min (batchSize, this.capacity));
+    this.flushNanos = TimeUnit.MILLISECONDS.toNanos (Math.max (1, flushMillis));
+    this.backpressure = backpressure;
+  }
+
+  /**
+     Starts the writer thread.
+   */
+  void start () {
+    running = true;
+    thread = new Thread (this, "Logger Writer");
+    thread.setDaemon (true);
+    thread.start();
+  }
+
+  /**
+     Stops the writer thread, once it has processed everything queued.
+   */
+  void stop () {
+    closed = true;
+    running = false;
+    if (thread != null) {
+      LockSupport.unpark (thread);
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      thread = null;
+    }
+    synchronized (logger) {
+      drain (Integer.MAX_VALUE);
+      logger.flushOutput();
+    }
+  }
+
+  /**
+     Adds an entry to the queue, applying the backpressure policy if the
+     queue is full.
+
+     @param entry    A LogEvent, a LogData, or a line to be written as is.
+     @param severity The severity of an event, or LogRingBuffer.DATA.
+   */
+  void add (Object entry, int severity) {
+    if (closed) {
+      synchronized (logger) {
+        drain (Integer.MAX_VALUE);
+        logger.process (entry);
+      }
+      return;
+    }
+    if (size.get() >= capacity) {
+      switch (backpressure) {
+        case (Logger.DROP_MINOR):
+          // Data lines are kept, since later data-related events need them
+          if (severity < LogEvent.MEDIUM
+              && (! (entry instanceof LogData))) {
+            dropped.incrementAndGet();
+            return;
+          }
+          break;
+        case (Logger.SPILL):
+          synchronized (logger) {
+            drain (Integer.MAX_VALUE);
+            logger.process (entry);
+          }
+          return;
+        default:
+          while (running && size.get() >= capacity) {
+            LockSupport.unpark (thread);
+            LockSupport.parkNanos (this, BLOCK_WAIT_NANOS);
+          }
+          break;
+      }
+    }
+    queue.add (entry);
+    if (size.incrementAndGet() == batchSize) {
+      LockSupport.unpark (thread);
+    }
+    if (closed) {
+      // Stopped while this entry was being added
+      synchronized (logger) {
+        drain (Integer.MAX_VALUE);
+      }
+    }
+  }
+
+  /**
+     Processes entries from the queue. The caller must hold the Logger's
+     lock.
+
+     @param max The most entries to be processed.
+
+     @return The number of entries processed.
+   */
+  int drain (int max) {
+    int processed = 0;
+    Object entry = null;
+    while (processed < max && (entry = queue.poll()) != null) {
+      size.decrementAndGet();
+      logger.process (entry);
+      processed++;
+    }
+    return processed;
+  }
+
+  /**
+     Writes batches of entries until stopped.
+   */
+  public void run () {
+    int unflushed = 0;
+    long firstUnflushed = 0;
+    while (running) {
+      int processed;
+      synchronized (logger) {
+        processed = drain (batchSize);
+      }
+      long now = System.nanoTime();
+      if (processed > 0) {
+        if (unflushed == 0) {
+          firstUnflushed = now;
+        }
+        unflushed = unflushed + processed;
+      }
+      if (unflushed > 0
+          && (unflushed >= batchSize || now - firstUnflushed >= flushNanos)) {
+        synchronized (logger) {
+          logger.flushOutput();
+        }
+        unflushed = 0;
+      }
+      if (processed < batchSize) {
+        long wait = flushNanos;
+        if (unflushed > 0) {
+          wait = flushNanos - (now - firstUnflushed);
+        }
+        LockSupport.parkNanos (this, Math.max (1, wait));
+      }
+    }
+  }
+
+  /**
+     Returns the number of entries dropped because the queue was full.
+
+     @return The number of entries dropped.
+   */
+  long getDropped () {
+    return dropped.get();
+  }
+
+} // end LogAsyncWriter class
@@ -87,6 +87,17 @@ public class LogData {
     this.sequenceNumber = sequenceNumber;
   }
   
+  /**
+     Returns a copy of this data as it stands now, so that it may be 
+     written later, even if the caller goes on to reuse this object for
+     the next line.
+    
+     @return A copy holding the current data as a String.
+   */
+  LogData snapshot () {
+    return new LogData (String.valueOf (data), sourceId, sequenceNumber);
+  }
+  
   /**
      Returns the object as a String.
     
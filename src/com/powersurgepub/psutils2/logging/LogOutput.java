@@ -66,6 +66,14 @@ public class LogOutput {
     }
   } // end open method
 
+  /**
+     Writes out any lines buffered but not yet written. 
+   */
+
+  public void flush () {
+    // Nothing buffered here.
+  } // end flush method
+
   /**
      Closes the log file.
    */
@@ -179,6 +179,28 @@ public class LogOutputDisk
 
   
 
+  public void flush () {
+
+    if (isLogOk() && isLogOpen()) {
+
+      try {
+
+        logFileBufWriter.flush();
+
+      } catch (IOException e) {
+
+        System.err.println (this.toString() + " suffered an I/O Exception on flush.");
+
+        setLogOk (false);
+
+      }
+
+    }
+
+  } // end flush method
+
+  
+
   public void close () {
 
     if (isLogOk() && isLogOpen()) {
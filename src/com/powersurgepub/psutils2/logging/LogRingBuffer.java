@@ -0,0 +1,219 @@
+/*
+ * Copyright 1999 - 2017 Herb Bowie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powersurgepub.psutils2.logging;
+
+  import java.util.*;
+
+/**
+   A fixed number of the most recent log lines, along with the severity
+   of the event that produced each one. Once the buffer is full, each new
+   line takes the place of the oldest one, so that memory use stays
+   bounded no matter how long logging continues. <p>
+
+   Lines may also be added as pending, meaning that they have not yet been
+   written to any log output. Pending lines that are overwritten before
+   they can be written are counted as dropped.
+ */
+
+public class LogRingBuffer {
+
+  /** The default number of lines kept. */
+  public static final int   DEFAULT_CAPACITY = 1000;
+
+  /** The severity recorded for lines of data, rather than events. */
+  public static final int   DATA = -1;
+
+  /** The lines kept, with the oldest at position start. */
+  private   String[]        lines;
+
+  /** The severity for each line kept. */
+  private   int[]           severities;
+
+  /** The position of the oldest line. */
+  private   int             start = 0;
+
+  /** The number of lines now kept. */
+  private   int             count = 0;
+
+  /** The number of the newest lines not yet written to an output. */
+  private   int             pending = 0;
+
+  /** The number of pending lines lost because the buffer was full. */
+  private   long            dropped = 0;
+
+  /**
+     Creates a buffer with the default capacity.
+   */
+  public LogRingBuffer () {
+    this (DEFAULT_CAPACITY);
+  }
+
+  /**
+     Creates a buffer with the given capacity.
+
+     @param capacity The maximum number of lines to be kept.
+   */
+  public LogRingBuffer (int capacity) {
+    capacity = Math.max (1, capacity);
+    lines = new String [capacity];
+    severities = new int [capacity];
+  }
+
+  /**
+     Adds a line to the buffer, replacing the oldest one if the buffer
+     is full.
+
+     @param line     The line to be kept.
+     @param severity The severity of the event producing the line, or DATA.
+     @param held     Is the line being held until an output is available?
+   */
+  public synchronized void add (String line, int severity, boolean held) {
+    int slot;
+    if (count < lines.length) {
+      slot = (start + count) % lines.length;
+      count++;
+    } else {
+      slot = start;
+      start = (start + 1) % lines.length;
+      if (pending >= count) {
+        dropped++;
+        pending--;
+      }
+    }
+    lines [slot] = line;
+    severities [slot] = severity;
+    if (held) {
+      pending++;
+    }
+  }
+
+  /**
+     Writes all pending lines to the given output, preceded by a note of
+     any lines dropped.
+
+     @param logOutput The output to which pending lines are to be written.
+   */
+  public synchronized void flush (LogOutput logOutput) {
+    if (dropped > 0) {
+      logOutput.writeLine (String.valueOf (dropped)
+          + " earlier log lines were dropped!");
+      dropped = 0;
+    }
+    for (int i = count - pending; i < count; i++) {
+      logOutput.writeLine (lines [(start + i) % lines.length]);
+    }
+    pending = 0;
+  }
+
+  /**
+     Returns the recent lines whose severity is at or above the given level,
+     oldest first.
+
+     @param minSeverity The lowest severity of interest. Passing DATA will
+                        return lines of data as well as events.
+
+     @return The matching lines.
+   */
+  public synchronized List<String> getLines (int minSeverity) {
+    ArrayList<String> matches = new ArrayList<String>();
+    for (int i = 0; i < count; i++) {
+      int slot = (start + i) % lines.length;
+      if (severities [slot] >= minSeverity) {
+        matches.add (lines [slot]);
+      }
+    }
+    return matches;
+  }
+
+  /**
+     Changes the number of lines that may be kept, keeping the most recent
+     ones if the buffer is shrinking.
+
+     @param capacity The maximum number of lines to be kept.
+   */
+  public synchronized void setCapacity (int capacity) {
+    capacity = Math.max (1, capacity);
+    String[] newLines = new String [capacity];
+    int[] newSeverities = new int [capacity];
+    int kept = Math.min (count, capacity);
+    for (int i = 0; i < kept; i++) {
+      int slot = (start + count - kept + i) % lines.length;
+      newLines [i] = lines [slot];
+      newSeverities [i] = severities [slot];
+    }
+    if (pending > kept) {
+      dropped = dropped + (pending - kept);
+      pending = kept;
+    }
+    lines = newLines;
+    severities = newSeverities;
+    start = 0;
+    count = kept;
+  }
+
+  public synchronized int getCapacity () {
+    return lines.length;
+  }
+
+  /**
+     Returns the number of lines now kept.
+
+     @return The number of lines in the buffer.
+   */
+  public synchronized int size () {
+    return count;
+  }
+
+  /**
+     Returns the number of lines waiting to be written to an output.
+
+     @return The number of pending lines.
+   */
+  public synchronized int getPending () {
+    return pending;
+  }
+
+  /**
+     Returns the number of pending lines lost since the last flush.
+
+     @return The number of lines dropped.
+   */
+  public synchronized long getDropped () {
+    return dropped;
+  }
+
+  /**
+     Discards all lines.
+   */
+  public synchronized void clear () {
+    Arrays.fill (lines, null);
+    start = 0;
+    count = 0;
+    pending = 0;
+    dropped = 0;
+  }
+
+  /**
+     Returns the object as a string.
+
+     @return A description of the buffer's contents.
+   */
+  public String toString () {
+    return "LogRingBuffer " + String.valueOf (size()) + " of "
+        + String.valueOf (getCapacity()) + " lines";
+  }
+
+} // end LogRingBuffer class
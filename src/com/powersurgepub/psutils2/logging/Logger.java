@@ -23,16 +23,48 @@ package com.powersurgepub.psutils2.logging;
   
    This class should be passed events and data. Significant events will
    be written to the log. Data will be written when it is related to an event
-   (or optionally all data can be written). 
+   (or optionally all data can be written). <p>
+  
+   Normally events are written on the caller's thread. Once startAsync has
+   been called, events and data are instead queued, and written in the 
+   order received by a single writer thread, so that callers on many 
+   threads need not wait on one another, or on the log output. 
  */
 
 public class Logger {
   
+  /** When the async queue is full, wait until there is room. */
+  public static final int       BLOCK = 0;
+  
+  /** 
+     When the async queue is full, drop any events less severe than 
+     MEDIUM. Data lines are still queued. 
+   */
+  public static final int       DROP_MINOR = 1;
+  
+  /** 
+     When the async queue is full, spill over into the caller's thread, 
+     which writes everything waiting in the queue, and then its own entry. 
+   */
+  public static final int       SPILL = 2;
+  
+  /** Default number of entries the async queue may hold. */
+  public static final int       DEFAULT_QUEUE_CAPACITY = 10000;
+  
+  /** Default number of entries written between flushes in async mode. */
+  public static final int       DEFAULT_BATCH_SIZE = 256;
+  
+  /** Default longest time, in milliseconds, before queued entries are flushed. */
+  public static final long      DEFAULT_FLUSH_MILLIS = 200;
+  
   /** Single shared occurrence of Logger. */
   private static        Logger     sharedLogger;
   
-  /** Hold area for log messages received before any log output is available. */
-  private               ArrayList  hold = new ArrayList();
+  /** 
+     The most recent log lines, including any received before a log output
+     is available, which are held there until one is. 
+   */
+  private               LogRingBuffer recent = new LogRingBuffer();
   
   /** 
      The actual output destination for the log records. Note that this
@@ -65,7 +97,7 @@ public class Logger {
      Has an event occurred whose significance has passed the failure 
      threshold?
    */
-  private boolean      failure = false;
+  private volatile boolean failure = false;
   
   /** The last data line passed. */
   private  LogData     lastData;
@@ -76,6 +108,15 @@ public class Logger {
    */
   private boolean      dataLogged = true;
   
+  /** Writes queued entries in async mode; null in the normal mode. */
+  private volatile LogAsyncWriter asyncWriter = null;
+  
+  /** Held while the async writer is started or stopped. */
+  private final Object asyncControl = new Object();
+  
+  /** Entries dropped by async writers that have since been stopped. */
+  private long         droppedAsync = 0;
+  
   /** 
     Returns a single instance of Logger that can be shared by many classes. This
     is not the only way to obtain an instance of Logger, since this method was
@@ -139,12 +180,29 @@ public class Logger {
      @param data a line of data being processed by the caller.
    */  
   public void nextLine (LogData data) {
+    LogAsyncWriter writer = asyncWriter;
+    if (writer != null) {
+      // Callers commonly reuse one LogData for every line, so queue a copy
+      writer.add (data.snapshot(), LogRingBuffer.DATA);
+    } else {
+      synchronized (this) {
+        processData (data);
+      }
+    }
+  } // end nextLine method
+  
+  /**
+     Processes a line of data. 
+    
+     @param data a line of data being processed by the caller.
+   */
+  private void processData (LogData data) {
     lastData = data;
     dataLogged = false;
     if (logAllData) {
       writeData();
     } // end if dataLogged
-  } // end nextLine method
+  } // end processData method
   
   public synchronized static void sharedRecordEvent
       (int severity, String message, boolean dataRelated) {
@@ -162,7 +220,7 @@ public class Logger {
      @param dataRelated   indicates whether this event is related
                           to preceding data.
    */
-  public synchronized void recordEvent (int severity, String message, boolean dataRelated) {
+  public void recordEvent (int severity, String message, boolean dataRelated) {
     LogEvent event = new LogEvent(severity, message, dataRelated);
     recordEvent (event);
   }
@@ -175,7 +233,30 @@ public class Logger {
      @param event Something of interest that happened while processing
      data.
    */
-  public synchronized void recordEvent (LogEvent event) {
+  public void recordEvent (LogEvent event) {
+    LogAsyncWriter writer = asyncWriter;
+    if (writer == null) {
+      synchronized (this) {
+        processEvent (event);
+      }
+    } else {
+      int severity = event.getSeverity();
+      if (severity >= logThreshold) {
+        if (severity >= failureThreshold) {
+          failure = true;
+        }
+        writer.add (event, severity);
+      }
+    }
+  } // end recordEvent method
+  
+  /**
+     Writes an event to the log, if it is severe enough. 
+    
+     @param event Something of interest that happened while processing
+     data.
+   */
+  private void processEvent (LogEvent event) {
     int severity = event.getSeverity();
     if (severity >= logThreshold) {
       if ((! dataLogged) && (event.isDataRelated())) {
@@ -195,45 +276,178 @@ public class Logger {
         // "S" +
         // StringUtils.stringFromInt (severity, 1) +
         // " " + 
-        event.getMessage() + suffix);
+        event.getMessage() + suffix, severity);
       if (severity >= failureThreshold) {
         failure = true;
-        writeLine ("Fatal Error!!!");
-        close();
+        writeLine ("Fatal Error!!!", severity);
+        closeOutput();
       }
     } // end if event is logged
-  } // end nextEvent method
+  } // end processEvent method
   
   public void logDebugLine(String debugLine) {
-    writeLine("DEBUG: " + debugLine);
+    LogAsyncWriter writer = asyncWriter;
+    if (writer != null) {
+      writer.add ("DEBUG: " + debugLine, LogEvent.NORMAL);
+    } else {
+      synchronized (this) {
+        writeLine("DEBUG: " + debugLine, LogEvent.NORMAL);
+      }
+    }
+  }
+  
+  /**
+     Processes an entry taken from the async queue. The caller must hold
+     this Logger's lock. 
+    
+     @param entry A LogEvent, a LogData, or a line to be written as is. 
+   */
+  void process (Object entry) {
+    if (entry instanceof LogEvent) {
+      processEvent ((LogEvent)entry);
+    }
+    else
+    if (entry instanceof LogData) {
+      processData ((LogData)entry);
+    } else {
+      writeLine (entry.toString(), LogEvent.NORMAL);
+    }
+  }
+  
+  /**
+     Start writing events and data on a separate thread, using default
+     settings, and waiting for room if the queue fills up. 
+   */
+  public void startAsync () {
+    startAsync (DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE, 
+        DEFAULT_FLUSH_MILLIS, BLOCK);
+  }
+  
+  /**
+     Start writing events and data on a separate thread. 
+    
+     @param capacity     The number of entries that may be queued. 
+     @param batchSize    The number of entries written between flushes 
+                         of the log output. 
+     @param flushMillis  The longest time, in milliseconds, that an entry
+                         may wait before the log output is flushed. 
+     @param backpressure What to do when the queue is full: BLOCK, 
+                         DROP_MINOR or SPILL. 
+   */
+  public void startAsync 
+      (int capacity, int batchSize, long flushMillis, int backpressure) {
+    synchronized (asyncControl) {
+      if (asyncWriter == null) {
+        LogAsyncWriter writer = new LogAsyncWriter 
+            (this, capacity, batchSize, flushMillis, backpressure);
+        writer.start();
+        asyncWriter = writer;
+      }
+    }
+  }
+  
+  /**
+     Stop writing on a separate thread, once everything queued has been 
+     written, and return to writing on the caller's thread. Callers that 
+     reach the writer while it is stopping write their entries themselves, 
+     after anything still queued. This must not be called while holding 
+     this Logger's lock. 
+   */
+  public void stopAsync () {
+    synchronized (asyncControl) {
+      LogAsyncWriter writer = asyncWriter;
+      if (writer != null) {
+        writer.stop();
+        droppedAsync = droppedAsync + writer.getDropped();
+        asyncWriter = null;
+      }
+    }
+  }
+  
+  /**
+     Are events being written on a separate thread?
+    
+     @return True if in async mode. 
+   */
+  public boolean isAsync () {
+    return (asyncWriter != null);
+  }
+  
+  /**
+     Write everything queued so far, and flush the log output. 
+   */
+  public void flush () {
+    LogAsyncWriter writer = asyncWriter;
+    synchronized (this) {
+      if (writer != null) {
+        writer.drain (Integer.MAX_VALUE);
+      }
+      flushOutput();
+    }
+  }
+  
+  /**
+     Returns the number of events and data lines dropped because the async 
+     queue was full. 
+    
+     @return The number of entries dropped. 
+   */
+  public long getDroppedEvents () {
+    LogAsyncWriter writer = asyncWriter;
+    if (writer == null) {
+      return droppedAsync;
+    } else {
+      return droppedAsync + writer.getDropped();
+    }
   }
   
   /**
      Writes the last data line to the LogOutput destination.
    */
   private void writeData() {
-    writeLine (lastData.toString());
+    writeLine (lastData.toString(), LogRingBuffer.DATA);
     dataLogged = true;
   } // end writeData method
   
-  private void writeLine (String line) {
+  private void writeLine (String line, int severity) {
     if (logOutput == null
         || logOutput instanceof LogOutputNone) {
-      hold.add (line);
+      recent.add (line, severity, true);
     } else {
+      recent.add (line, severity, false);
       logOutput.writeLine (line);
     }
   }
   
   /**
-     Closes the LogOutput destination.
+     Closes the LogOutput destination, after writing anything queued. 
    */
   public void close() {
+    LogAsyncWriter writer = asyncWriter;
+    synchronized (this) {
+      if (writer != null) {
+        writer.drain (Integer.MAX_VALUE);
+      }
+      closeOutput();
+    }
+  }
+  
+  private void closeOutput() {
     if (logOutput != null) {
       logOutput.close();
     }
   }
   
+  /**
+     Flushes the LogOutput destination. The caller must hold this Logger's 
+     lock. 
+   */
+  void flushOutput() {
+    if (logOutput != null) {
+      logOutput.flush();
+    }
+  }
+  
   /**
      Returns the LogOutput destination being used.
     
@@ -257,20 +471,56 @@ public class Logger {
     
      @param logOutput A new LogOutput destination.
    */
-  public void setLogOutput (LogOutput logOutput) {
+  public synchronized void setLogOutput (LogOutput logOutput) {
     this.logOutput = logOutput;
-    if ((this.logOutput != null
-        && (! (this.logOutput instanceof LogOutputNone)))
-        && hold != null
-        && (hold.size() > 0)) {
-      for (int i = 0; i < hold.size(); i++) {
-        String line = (String)hold.get (i);
-        this.logOutput.writeLine (line);
-      }
-      hold = null;
+    if (this.logOutput != null
+        && (! (this.logOutput instanceof LogOutputNone))) {
+      recent.flush (this.logOutput);
     }
   }
   
+  /**
+     Changes the number of recent log lines kept, including those held 
+     while no log output is available. 
+    
+     @param capacity The maximum number of lines to be kept. 
+   */
+  public void setRecentCapacity (int capacity) {
+    recent.setCapacity (capacity);
+  }
+  
+  /**
+     Returns the number of recent log lines that may be kept. 
+    
+     @return The maximum number of lines kept. 
+   */
+  public int getRecentCapacity () {
+    return recent.getCapacity();
+  }
+  
+  /**
+     Returns the number of held lines lost, because more lines were logged
+     than could be kept before a log output became available. 
+    
+     @return The number of lines dropped. 
+   */
+  public long getDroppedLines () {
+    return recent.getDropped();
+  }
+  
+  /**
+     Returns the most recent log lines for events with severities greater
+     than or equal to the given value, oldest first. 
+    
+     @param minSeverity The lowest severity of interest, or 
+                        LogRingBuffer.DATA to include lines of data. 
+    
+     @return The matching lines. 
+   */
+  public List<String> getRecentLines (int minSeverity) {
+    return recent.getLines (minSeverity);
+  }
+  
   /**
     Gets the logging threshold.
    
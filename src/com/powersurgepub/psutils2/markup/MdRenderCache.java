@@ -0,0 +1,298 @@
+/*
+ * Copyright 2016 - 2017 Herb Bowie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.powersurgepub.psutils2.markup;
+
+  import com.powersurgepub.psutils2.files.*;
+  import com.powersurgepub.psutils2.logging.*;
+
+  import java.io.*;
+  import java.nio.charset.*;
+  import java.nio.file.*;
+  import java.security.*;
+  import java.util.*;
+
+/**
+ A bounded cache of HTML rendered from Markdown, keyed by a digest of the
+ Markdown source along with the options used to render it. When either the
+ number of entries or their total length exceeds its limit, the least
+ recently used entries are discarded. <p>
+
+ A folder may optionally be named as a second tier, in which case each
+ rendering is also saved there as a file named for its key, so that later
+ runs may skip rendering text that has not changed since.
+
+ @author Herb Bowie
+ */
+public class MdRenderCache {
+
+  /** The default maximum number of entries. */
+  public static final int     DEFAULT_MAX_ENTRIES = 1000;
+
+  /** The default maximum number of characters of HTML held. */
+  public static final long    DEFAULT_MAX_CHARS   = 4000000;
+
+  /** Algorithm used to digest Markdown source. */
+  public static final String  DIGEST              = "SHA-256";
+
+  /** Extension for renderings saved in the cache folder. */
+  public static final String  FILE_EXT            = ".html";
+
+  private static final Charset UTF8 = StandardCharsets.UTF_8;
+
+  private             int                     maxEntries;
+  private             long                    maxChars;
+  private             long                    chars = 0;
+  private             File                    folder = null;
+
+  /** Rendered HTML keyed by digest, with the least recently used first. */
+  private             LinkedHashMap<String, String> entries
+      = new LinkedHashMap<String, String>(16, 0.75f, true);
+
+  private             long                    hits = 0;
+  private             long                    diskHits = 0;
+  private             long                    misses = 0;
+  private             long                    evictions = 0;
+
+  /**
+   Create a cache with the default limits.
+  */
+  public MdRenderCache () {
+    this (DEFAULT_MAX_ENTRIES, DEFAULT_MAX_CHARS);
+  }
+
+  /**
+   Create a cache with the given limits.
+
+   @param maxEntries The most entries to be held in memory.
+   @param maxChars   The most characters of HTML to be held in memory.
+  */
+  public MdRenderCache (int maxEntries, long maxChars) {
+    setLimits (maxEntries, maxChars);
+  }
+
+  /**
+   Change the limits on the cache, discarding entries if necessary.
+
+   @param maxEntries The most entries to be held in memory.
+   @param maxChars   The most characters of HTML to be held in memory.
+  */
+  public synchronized void setLimits (int maxEntries, long maxChars) {
+    this.maxEntries = Math.max (0, maxEntries);
+    this.maxChars = Math.max (0, maxChars);
+    trim();
+  }
+
+  public synchronized int getMaxEntries () {
+    return maxEntries;
+  }
+
+  public synchronized long getMaxChars () {
+    return maxChars;
+  }
+
+  /**
+   Name a folder in which renderings are to be saved, so that they may
+   be reused by later runs.
+
+   @param folder The folder to be used, or null to keep renderings only in
+                 memory. The folder will be created if it does not exist.
+  */
+  public synchronized void setFolder (File folder) {
+    this.folder = folder;
+    if (folder != null && (! folder.exists())) {
+      folder.mkdirs();
+    }
+  }
+
+  public synchronized File getFolder () {
+    return folder;
+  }
+
+  /**
+   Compute the key for the given Markdown source and rendering options.
+
+   @param optionsKey Identifies the options used for rendering.
+   @param md         The Markdown source.
+
+   @return The key, as a string of hex digits.
+  */
+  public static String getKey (String optionsKey, String md) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance (DIGEST);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException (e);
+    }
+    digest.update (optionsKey.getBytes (UTF8));
+    digest.update ((byte)0);
+    return CheckedFile.toHex (digest.digest (md.getBytes (UTF8)));
+  }
+
+  /**
+   Look up a rendering, first in memory and then in the cache folder.
+
+   @param key The key returned by getKey.
+
+   @return The HTML, or null if it has not been cached.
+  */
+  public String get (String key) {
+    File file;
+    synchronized (this) {
+      String html = entries.get (key);
+      if (html != null) {
+        hits++;
+        return html;
+      }
+      file = getFile (key);
+    }
+    String html = null;
+    if (file != null && file.isFile()) {
+      try {
+        html = new String (Files.readAllBytes (file.toPath()), UTF8);
+      } catch (IOException e) {
+        Logger.getShared().recordEvent (LogEvent.MINOR,
+            "Cached rendering at " + file.toString()
+              + " could not be read", false);
+      }
+    }
+    synchronized (this) {
+      if (html == null) {
+        misses++;
+      } else {
+        diskHits++;
+        putInMemory (key, html);
+      }
+    }
+    return html;
+  }
+
+  /**
+   Add a rendering to the cache, and to the cache folder if there is one.
+
+   @param key  The key returned by getKey.
+   @param html The HTML rendered.
+  */
+  public void put (String key, String html) {
+    File file;
+    synchronized (this) {
+      putInMemory (key, html);
+      file = getFile (key);
+    }
+    if (file != null) {
+      try {
+        CheckedFile.replace (file, html.getBytes (UTF8));
+      } catch (IOException e) {
+        Logger.getShared().recordEvent (LogEvent.MINOR,
+            "Rendering could not be cached at " + file.toString(), false);
+      }
+    }
+  }
+
+  /**
+   Discard all renderings held in memory, and reset the counts. Renderings
+   saved in the cache folder are left in place.
+  */
+  public synchronized void clear () {
+    entries.clear();
+    chars = 0;
+    hits = 0;
+    diskHits = 0;
+    misses = 0;
+    evictions = 0;
+  }
+
+  private void putInMemory (String key, String html) {
+    String old = entries.put (key, html);
+    if (old != null) {
+      chars = chars - old.length();
+    }
+    chars = chars + html.length();
+    trim();
+  }
+
+  private void trim () {
+    Iterator<Map.Entry<String, String>> iterator
+        = entries.entrySet().iterator();
+    while ((entries.size() > maxEntries || chars > maxChars)
+        && iterator.hasNext()) {
+      chars = chars - iterator.next().getValue().length();
+      iterator.remove();
+      evictions++;
+    }
+  }
+
+  private File getFile (String key) {
+    if (folder == null) {
+      return null;
+    } else {
+      return new File (folder, key + FILE_EXT);
+    }
+  }
+
+  /**
+   Return the number of renderings now held in memory.
+
+   @return The number of entries.
+  */
+  public synchronized int size () {
+    return entries.size();
+  }
+
+  /**
+   Return the number of characters of HTML now held in memory.
+
+   @return The total length of all entries.
+  */
+  public synchronized long getChars () {
+    return chars;
+  }
+
+  /** Return the number of lookups found in memory. */
+  public synchronized long getHits () {
+    return hits;
+  }
+
+  /** Return the number of lookups found in the cache folder. */
+  public synchronized long getDiskHits () {
+    return diskHits;
+  }
+
+  /** Return the number of lookups not found. */
+  public synchronized long getMisses () {
+    return misses;
+  }
+
+  /** Return the number of entries discarded to stay within the limits. */
+  public synchronized long getEvictions () {
+    return evictions;
+  }
+
+  /**
+   Return the object as a string.
+
+   @return A summary of the cache's contents and counts.
+  */
+  public synchronized String toString () {
+    return "MdRenderCache " + String.valueOf (entries.size()) + " entries, "
+        + String.valueOf (chars) + " chars, "
+        + String.valueOf (hits) + " hits, "
+        + String.valueOf (diskHits) + " disk hits, "
+        + String.valueOf (misses) + " misses, "
+        + String.valueOf (evictions) + " evictions";
+  }
+
+} // end class MdRenderCache
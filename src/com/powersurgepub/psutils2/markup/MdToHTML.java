@@ -25,18 +25,39 @@ package com.powersurgepub.psutils2.markup;
   import com.vladsch.flexmark.util.options.*;
 
   import java.util.*;
+  import java.util.stream.*;
 
 /**
- Converts markdown text to HTML. 
+ Converts markdown text to HTML. Conversions are cached, so that text 
+ converted repeatedly need only be parsed and rendered once. <p>
+ 
+ The parser and renderer are built once, from one immutable set of 
+ options, and shared by all instances; since neither keeps any state 
+ between conversions, an instance may be used from any number of threads 
+ at once. 
 
  @author Herb Bowie
  */
 public class MdToHTML {
   
   private static MdToHTML mdToHTML = null;
-  private MutableDataSet options = null;
-  private Parser parser = null;
-  private HtmlRenderer renderer = null;
+  
+  /** The standard options: definitions, tables and typographic conversions. */
+  private static final DataHolder OPTIONS = new MutableDataSet()
+      .set(Parser.EXTENSIONS, Arrays.asList(
+          DefinitionExtension.create(),
+          TablesExtension.create(), 
+          TypographicExtension.create()))
+      .toImmutable();
+  
+  private static final Parser PARSER = Parser.builder(OPTIONS).build();
+  private static final HtmlRenderer RENDERER 
+      = HtmlRenderer.builder(OPTIONS).build();
+  
+  /** Identifies the options used, as part of each cache key. */
+  public static final String OPTIONS_KEY = "definition,tables,typographic";
+  
+  private volatile MdRenderCache cache = new MdRenderCache();
   
   /**
    Return a standard, shared instance for converting Markdown to HTML, using 
@@ -44,7 +65,7 @@ public class MdToHTML {
   
    @return A standard, shared instance. 
   */
-  public static MdToHTML getShared() {
+  public static synchronized MdToHTML getShared() {
     if (mdToHTML == null) {
       mdToHTML = new MdToHTML();
     }
@@ -57,13 +78,7 @@ public class MdToHTML {
    Options include definitions, tables, and typographic conversions. 
   */
   public MdToHTML() {
-    options = new MutableDataSet();
-    options.set(Parser.EXTENSIONS, Arrays.asList(
-        DefinitionExtension.create(),
-        TablesExtension.create(), 
-        TypographicExtension.create()));
-    parser = Parser.builder(options).build();
-    renderer = HtmlRenderer.builder(options).build();
+    
   }
   
   /**
@@ -74,9 +89,66 @@ public class MdToHTML {
    @return A string containing the equivalent HTML. 
    */
   public String markdownToHtml(String md) {
-    Node document = parser.parse(md);
-    String html = renderer.render(document); 
+    MdRenderCache cache = this.cache;
+    if (cache == null) {
+      return render(md);
+    }
+    String key = MdRenderCache.getKey(OPTIONS_KEY, md);
+    String html = cache.get(key);
+    if (html == null) {
+      html = render(md);
+      cache.put(key, html);
+    }
+    return html;
+  }
+  
+  /**
+   Parse the Markdown and render it as HTML, without using the cache. 
+  
+   @param md Source written in Markdown. 
+  
+   @return A string containing the equivalent HTML. 
+   */
+  private String render(String md) {
+    Node document = PARSER.parse(md);
+    String html = RENDERER.render(document); 
     return html;
   }
+  
+  /**
+   Convert a list of Markdown sources to HTML, spreading the work across 
+   the available processors. 
+  
+   @param mds A list of sources written in Markdown. 
+  
+   @return A list containing the equivalent HTML for each source, in the 
+           same order. 
+   */
+  public List<String> renderAll(List<String> mds) {
+    String[] html = new String[mds.size()];
+    IntStream.range(0, html.length)
+        .parallel()
+        .forEach(i -> html[i] = markdownToHtml(mds.get(i)));
+    return Arrays.asList(html);
+  }
+  
+  /**
+   Set the cache to be used for conversions. 
+  
+   @param cache The cache to be used, or null to convert every time. 
+   */
+  public void setCache(MdRenderCache cache) {
+    this.cache = cache;
+  }
+  
+  /**
+   Return the cache used for conversions, from which its limits may be 
+   changed, its counts obtained, or a cache folder set. 
+  
+   @return The cache in use, or null if there is none. 
+   */
+  public MdRenderCache getCache() {
+    return cache;
+  }
 
 }
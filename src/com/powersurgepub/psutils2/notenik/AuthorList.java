@@ -3,6 +3,8 @@ package com.powersurgepub.psutils2.notenik;
   import com.powersurgepub.psutils2.values.*;
   import com.powersurgepub.psutils2.ui.*;
 
+  import java.util.*;
+
   import javafx.scene.control.*;
 
 public class AuthorList
@@ -18,22 +20,46 @@ public class AuthorList
   }
 
   public void add(Note note) {
-    if (note.hasAuthor()) {
-      Author author = note.getAuthor();
-      registerValue (author.getCompleteName());
-      registerValue (author.getCompleteNameLastNamesFirst());
-    }
+    registerValues (note, getValues(note));
   }
 
   public void modify(Note note) {
-    if (note.hasAuthor()) {
-      Author author = note.getAuthor();
-      registerValue (author.getCompleteName());
-      registerValue (author.getCompleteNameLastNamesFirst());
-    }
+    registerValues (note, getValues(note));
   }
 
   public void remove(Note note) {
-    // No need to do anything
+    releaseValues (note);
+  }
+
+  /**
+   Add a batch of notes, updating the list just once. 
+
+   @param notes The notes to be added. 
+  */
+  public void addAll(List<Note> notes) {
+    IdentityHashMap<Note, List<String>> valuesByNote
+        = new IdentityHashMap<Note, List<String>>(notes.size());
+    for (Note note : notes) {
+      valuesByNote.put (note, getValues(note));
+    }
+    registerAll (valuesByNote);
+  }
+
+  /**
+   Return the author names to be listed for a note. 
+
+   @param note The note. 
+
+   @return The author's name, both first name first and last name first, or
+           an empty list if the note has no author. 
+  */
+  private List<String> getValues(Note note) {
+    if (note.hasAuthor()) {
+      Author author = note.getAuthor();
+      return Arrays.asList (author.getCompleteName(),
+          author.getCompleteNameLastNamesFirst());
+    } else {
+      return Collections.emptyList();
+    }
   }
 }
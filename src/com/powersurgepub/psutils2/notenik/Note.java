@@ -88,6 +88,10 @@ public class Note
   private DataField           dateField = null;
   private boolean             dateAdded = false;
   
+  // The last sort key generated, and the sort parm for which it was generated
+  private String              sortKey = null;
+  private int                 sortKeyParm = -1;
+  
   private RecursValue         recursValue = null;
   private DataField           recursField = null;
   private boolean             recursAdded = false;
@@ -238,6 +242,8 @@ public class Note
   
   private void initNoteFields() {
     
+    sortKey = null;
+    
     // Build the Title field
     titleValue = new Title();
     titleField = new DataField(NoteParms.TITLE_DEF, titleValue);
@@ -426,6 +432,22 @@ public class Note
    @return The string containing this note's current sort key. 
   */
   public String getSortKey (NoteSortParm parm) {
+    
+    if (sortKey == null || sortKeyParm != parm.getParm()) {
+      sortKey = genSortKey(parm);
+      sortKeyParm = parm.getParm();
+    }
+    return sortKey;
+  }
+  
+  /**
+   Generate a new sort key for the note. 
+  
+   @param parm Indicates the type of sort the user has requested. 
+  
+   @return The string containing this note's current sort key. 
+  */
+  private String genSortKey (NoteSortParm parm) {
 
     switch (parm.getParm()) {
       case NoteSortParm.SORT_TASKS_BY_DATE:
@@ -627,6 +649,7 @@ public class Note
   */
   public void setTitle(String title) {
     titleValue.set(title);
+    sortKey = null;
 		if (title == null) {
 			fileName = "";
 		}
@@ -664,6 +687,7 @@ public class Note
   public void setAuthor(String author) {
 
     authorValue.set(author);
+    sortKey = null;
     if (! authorAdded) {
       storeField (recDef, authorField);
       authorAdded = true;
@@ -675,6 +699,7 @@ public class Note
   
   public void setAuthor(Author author) {
     authorValue.set(author.toString());
+    sortKey = null;
     if (! authorAdded) {
       storeField (recDef, authorField);
       authorAdded = true;
@@ -760,6 +785,7 @@ public class Note
   
   public void setSeq(String seq) {
     seqValue.set(seq);
+    sortKey = null;
     if (! seqAdded) {
       storeField (recDef, seqField);
       seqAdded = true;
@@ -793,10 +819,12 @@ public class Note
       this.setSeq("0");
     }
     seqValue.increment(onLeft);
+    sortKey = null;
   }
   
   public void setStatus(String status) {
     statusValue.set(status);
+    sortKey = null;
     if (! statusAdded) {
       storeField (recDef, statusField);
       statusAdded = true;
@@ -805,6 +833,7 @@ public class Note
   
   public void setStatus(ItemStatus status) {
     statusValue.set(status.toString());
+    sortKey = null;
     if (! statusAdded) {
       storeField (recDef, statusField);
       statusAdded = true;
@@ -813,6 +842,7 @@ public class Note
   
   public void setStatus(int status) {
     statusValue.setStatus(status);
+    sortKey = null;
     if (! statusAdded) {
       storeField (recDef, statusField);
       statusAdded = true;
@@ -859,6 +889,7 @@ public class Note
   public void setDate(String date) {
 
     dateValue.set(date);
+    sortKey = null;
     if (! dateAdded) {
       storeField (recDef, dateField);
       dateAdded = true;
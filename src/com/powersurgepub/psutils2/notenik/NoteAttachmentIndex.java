@@ -0,0 +1,153 @@
+/*
+ * Copyright 2012 - 2017 Herb Bowie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.powersurgepub.psutils2.notenik;
+
+  import java.util.*;
+
+/**
+ An index of the notes in a collection by their file names, used to find
+ the notes to which a file in the attachments folder belongs. An attachment
+ belongs to every note whose file name is a prefix of the attachment's
+ name, so an attachment is matched by looking up each leading portion of
+ its name whose length is that of at least one note's file name, rather
+ than by comparing its name against every note in the collection.
+
+ @author Herb Bowie
+ */
+public class NoteAttachmentIndex {
+
+  /** Notes keyed by file name. */
+  private HashMap<String, ArrayList<Note>> byFileName
+      = new HashMap<String, ArrayList<Note>>();
+
+  /** The file name under which each note is currently indexed. */
+  private IdentityHashMap<Note, String>    indexedAs
+      = new IdentityHashMap<Note, String>();
+
+  /** The number of indexed file names of each length. */
+  private TreeMap<Integer, Integer>        lengths
+      = new TreeMap<Integer, Integer>();
+
+  public NoteAttachmentIndex() {
+
+  }
+
+  /**
+   Add a note to the index, under its current file name.
+
+   @param note The note to be added.
+  */
+  public void add(Note note) {
+    if (note == null || indexedAs.containsKey(note)) {
+      return;
+    }
+    String fileName = note.getFileName();
+    if (fileName == null || fileName.length() == 0) {
+      return;
+    }
+    ArrayList<Note> notes = byFileName.get(fileName);
+    if (notes == null) {
+      notes = new ArrayList<Note>(1);
+      byFileName.put(fileName, notes);
+      lengths.merge(fileName.length(), 1, Integer::sum);
+    }
+    notes.add(note);
+    indexedAs.put(note, fileName);
+  }
+
+  /**
+   Remove a note from the index.
+
+   @param note The note to be removed.
+  */
+  public void remove(Note note) {
+    String fileName = indexedAs.remove(note);
+    if (fileName == null) {
+      return;
+    }
+    ArrayList<Note> notes = byFileName.get(fileName);
+    if (notes != null) {
+      int i = 0;
+      while (i < notes.size() && notes.get(i) != note) {
+        i++;
+      }
+      if (i < notes.size()) {
+        notes.remove(i);
+      }
+      if (notes.isEmpty()) {
+        byFileName.remove(fileName);
+        int count = lengths.get(fileName.length()) - 1;
+        if (count > 0) {
+          lengths.put(fileName.length(), count);
+        } else {
+          lengths.remove(fileName.length());
+        }
+      }
+    }
+  }
+
+  /**
+   Make sure a note is indexed under its current file name, following any
+   change to its title.
+
+   @param note The note that may have been renamed.
+  */
+  public void update(Note note) {
+    String fileName = indexedAs.get(note);
+    if (fileName == null
+        || (! fileName.equals(note.getFileName()))) {
+      remove(note);
+      add(note);
+    }
+  }
+
+  /**
+   Return the notes to which the named attachment belongs.
+
+   @param attachmentName The name of a file in the attachments folder.
+
+   @return The notes whose file names are prefixes of the attachment's
+           name; empty if there are none.
+  */
+  public List<Note> getNotesFor(String attachmentName) {
+    List<Note> found = Collections.emptyList();
+    for (Integer length : lengths.headMap(attachmentName.length(), true).keySet()) {
+      ArrayList<Note> notes
+          = byFileName.get(attachmentName.substring(0, length));
+      if (notes != null) {
+        if (found.isEmpty()) {
+          found = Collections.unmodifiableList(notes);
+        } else {
+          ArrayList<Note> more = new ArrayList<Note>(found);
+          more.addAll(notes);
+          found = more;
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   Return the number of notes indexed.
+
+   @return The number of notes indexed.
+  */
+  public int size() {
+    return indexedAs.size();
+  }
+
+}
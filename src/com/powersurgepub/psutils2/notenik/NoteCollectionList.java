@@ -49,6 +49,17 @@ public class NoteCollectionList {
     return id;
   }
   
+  /**
+   Make sure the list has room for at least the given number of notes, 
+   so that a batch of notes can be added without repeatedly growing 
+   the list. 
+  
+   @param minCapacity The number of notes the list should be able to hold.
+  */
+  public void ensureCapacity(int minCapacity) {
+    notes.ensureCapacity(minCapacity);
+  }
+  
   /**
    Delete a note from the collection by setting its deleted flag to true. 
   
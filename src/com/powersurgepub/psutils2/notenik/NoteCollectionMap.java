@@ -52,6 +52,22 @@ public class NoteCollectionMap {
     }
   }
   
+  /**
+   Make sure the map has room for at least the given number of notes, 
+   so that a batch of notes can be added without repeatedly rehashing 
+   the map. 
+  
+   @param minCapacity The number of notes the map should be able to hold.
+  */
+  public void ensureCapacity(int minCapacity) {
+    if (minCapacity > mappedNotes.size()) {
+      Map<String, Note> resized 
+          = new HashMap<String, Note>((int)(minCapacity / 0.75f) + 1);
+      resized.putAll(mappedNotes);
+      mappedNotes = resized;
+    }
+  }
+  
   /**
    Rmove the indicated note from this collection. 
   
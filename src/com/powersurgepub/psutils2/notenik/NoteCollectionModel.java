@@ -27,7 +27,11 @@ package com.powersurgepub.psutils2.notenik;
   import com.powersurgepub.psutils2.values.*;
 
   import java.io.*;
+  import java.nio.file.*;
+  import java.nio.file.attribute.*;
   import java.util.*;
+  import java.util.concurrent.*;
+  import javafx.application.*;
   import javafx.scene.control.*;
 
 /**
@@ -71,6 +75,7 @@ public class NoteCollectionModel {
   private             TagsView                tagsView;
   private             AuthorList              authorList;
   private             WorkList                workList;
+  private             NoteAttachmentIndex     attachmentIndex;
   
   private             Note                    selectedNote = null;
   private             int                     selectedSortIndex = 0;
@@ -85,6 +90,10 @@ public class NoteCollectionModel {
   
   private             boolean                 quoteCollection = false;
   
+  private             boolean                 watchForChanges = false;
+  private             Executor                changeApplier = null;
+  private             NoteCollectionWatcher   watcher = null;
+  
   /**
    Create a new Model. This should be done whenever we're switching from one 
    Notes Collection to another. 
@@ -116,6 +125,7 @@ public class NoteCollectionModel {
   */
   private void newCollection() {
 
+    stopWatching();
     deselect();
     title     = "Notes";
     collectionInfo = new CollectionInfo();
@@ -129,6 +139,7 @@ public class NoteCollectionModel {
     tagsView   = new TagsView();
     authorList = new AuthorList();
     workList   = new WorkList();
+    attachmentIndex = new NoteAttachmentIndex();
     
     tagsList.registerValue("");
     authorList.registerValue("");
@@ -311,6 +322,10 @@ public class NoteCollectionModel {
     }
 
     open = openOK;
+    
+    if (open && watchForChanges) {
+      startWatching();
+    }
 
     return openOK;
   }
@@ -425,6 +440,7 @@ public class NoteCollectionModel {
   */
   public boolean close() {
     boolean closed = false;
+    stopWatching();
     if (open) {
       fileSpec.setNoteSortParm(sortParm.getParm());
       if (filePrefs != null) {
@@ -568,28 +584,7 @@ public class NoteCollectionModel {
       throw new NoteCollectionException
         ("Attempt to Load from Unspecified Disk Location");
     } else {
-      int notesLoaded = 0;
-      noteIO.openForInput();
-      Note noteFromDisk = noteIO.readNextNote();
-      while (noteFromDisk != null) {
-        if (noteFromDisk.hasTags() || (! loadTaggedOnly)) {
-          boolean added = addToMemory(noteFromDisk);
-          if (added) {
-            notesLoaded++;
-          } else {
-            Logger.getShared().recordEvent(LogEvent.MEDIUM,
-                "Could not load duplicate title found at: " + noteFromDisk.getDiskLocation(),
-                false);
-          }
-        }
-        noteFromDisk = noteIO.readNextNote();
-      }
-      noteIO.loadAttachments(this);
-
-      noteIO.close();
-
-      Logger.getShared().recordEvent(LogEvent.NORMAL, 
-          String.valueOf(notesLoaded) + " Notes loaded", false);
+      noteIO.load(this, (! loadTaggedOnly));
     }
   }
   
@@ -693,11 +688,56 @@ public class NoteCollectionModel {
       tagsView.add(newNote);
       authorList.add(newNote);
       workList.add(newNote);
+      attachmentIndex.add(newNote);
       added = true;
     }
     return added;
   }
   
+  /**
+   Add a batch of notes to the lists stored in memory, assuming they are
+   coming from disk, and so do not need to be stored to disk. Each list 
+   is sized once for the whole batch, and the sorted list and the value 
+   lists are each built in a single pass. If the tags tree is empty, it is 
+   built on a background thread while the notes are sorted, and attached 
+   to the view once complete. Notes whose titles duplicate those already 
+   loaded are logged and skipped. 
+  
+   @param notesFromDisk The notes to be added. 
+  
+   @return The number of notes added. 
+  */
+  public int addAllToMemory(List<Note> notesFromDisk) {
+    list.ensureCapacity(list.size() + notesFromDisk.size());
+    map.ensureCapacity(map.size() + notesFromDisk.size());
+    ArrayList<Note> added = new ArrayList<Note>(notesFromDisk.size());
+    for (Note noteFromDisk : notesFromDisk) {
+      if (map.add(noteFromDisk)) {
+        list.add(noteFromDisk);
+        attachmentIndex.add(noteFromDisk);
+        added.add(noteFromDisk);
+      } else {
+        Logger.getShared().recordEvent(LogEvent.MEDIUM,
+            "Could not load duplicate title found at: " 
+              + noteFromDisk.getDiskLocation(),
+            false);
+      }
+    }
+    tagsList.addAll(added);
+    authorList.addAll(added);
+    workList.addAll(added);
+    if (tagsView.isEmpty()) {
+      CompletableFuture<TreeItem<TagsNodeValue>> tree
+          = CompletableFuture.supplyAsync(() -> tagsView.buildTree(added));
+      sorted.addAll(added);
+      tagsView.setRoot(tree.join());
+    } else {
+      tagsView.addAll(added);
+      sorted.addAll(added);
+    }
+    return added.size();
+  }
+  
   /**
    Does this collection already contain a note with this unique key?
   
@@ -853,7 +893,11 @@ public class NoteCollectionModel {
     boolean sortedOK  = sorted.remove(noteToRemove);
     boolean mapOK     = map.remove(noteToRemove);
     boolean listOK    = list.remove(noteToRemove);
+    tagsList.remove(noteToRemove);
     tagsView.remove(noteToRemove);
+    authorList.remove(noteToRemove);
+    workList.remove(noteToRemove);
+    attachmentIndex.remove(noteToRemove);
     boolean deleted   = false;
     if (noteToRemove.hasDiskLocation()) {
       String locToDelete = noteToRemove.getDiskLocation();
@@ -863,6 +907,326 @@ public class NoteCollectionModel {
     return (sortedOK && mapOK && listOK && deleted);
   }
   
+  /**
+   Remove this note from the lists stored in memory, leaving its disk file
+   alone. 
+  
+   @param noteToRemove The note to be removed. 
+  
+   @return True if the note was found and removed. 
+  */
+  public boolean removeFromMemory(Note noteToRemove) {
+    boolean sortedOK  = sorted.remove(noteToRemove);
+    boolean mapOK     = map.remove(noteToRemove);
+    boolean listOK    = list.remove(noteToRemove);
+    tagsList.remove(noteToRemove);
+    tagsView.remove(noteToRemove);
+    authorList.remove(noteToRemove);
+    workList.remove(noteToRemove);
+    attachmentIndex.remove(noteToRemove);
+    return (sortedOK && mapOK && listOK);
+  }
+  
+  /* ============================================================================
+   *  
+   * Routines to pick up changes made to the collection by other processes.  
+   *
+   * =========================================================================*/
+  
+  /**
+   Should the collection folder be watched for changes made by other 
+   processes, once a collection has been opened? Defaults to false. 
+   Changes are applied to the collection on the JavaFX application thread. 
+  
+   @param watchForChanges True to watch for changes. 
+  */
+  public void setWatchForChanges(boolean watchForChanges) {
+    setWatchForChanges(watchForChanges, null);
+  }
+  
+  /**
+   Should the collection folder be watched for changes made by other 
+   processes, once a collection has been opened? Defaults to false. 
+  
+   @param watchForChanges True to watch for changes. 
+   @param changeApplier   Runs each batch of changes on the thread that 
+                          owns this collection, never on the watcher's own
+                          thread; or null to use the JavaFX application 
+                          thread. A caller without a user interface might 
+                          pass a single thread executor that does all of 
+                          its work with the collection. 
+  */
+  public void setWatchForChanges(boolean watchForChanges, 
+      Executor changeApplier) {
+    stopWatching();
+    this.watchForChanges = watchForChanges;
+    this.changeApplier = changeApplier;
+    if (watchForChanges && open) {
+      startWatching();
+    }
+  }
+  
+  public boolean isWatchingForChanges() {
+    return (watcher != null && watcher.isRunning());
+  }
+  
+  /**
+   Start watching the collection folder for changes, applying them with the
+   executor supplied, or else on the JavaFX application thread. 
+  */
+  private void startWatching() {
+    if (watcher == null && fileSpec != null) {
+      Executor applier = changeApplier;
+      if (applier == null) {
+        applier = Platform::runLater;
+      }
+      watcher = new NoteCollectionWatcher(this, fileSpec.getFolder(), 
+          applier);
+      if (! watcher.start()) {
+        watcher = null;
+      }
+    }
+  }
+  
+  private void stopWatching() {
+    if (watcher != null) {
+      watcher.stop();
+      watcher = null;
+    }
+  }
+  
+  /**
+   Apply changes made on disk to the notes in memory, one note at a time, 
+   without reloading the collection. Each note file is compared against 
+   the note in memory (if any) stored at the same location: a file that 
+   is new is added, a file that has been changed replaces its note, and 
+   a note whose file has disappeared is removed. Notes whose contents 
+   are unchanged -- including those just saved by this model -- are left
+   alone. 
+  
+   @param noteFiles       The note files that may have changed. 
+   @param attachmentNames The names of files in the attachments folder 
+                          that may have changed. 
+   @param checkAll        If true, then changes may have been missed, so
+                          every note file and attachment is to be checked. 
+  
+   @return The number of notes added, changed or removed. 
+  */
+  public int applyDiskChanges(
+      List<File> noteFiles, 
+      List<String> attachmentNames, 
+      boolean checkAll) {
+    
+    if (! open) {
+      return 0;
+    }
+    
+    // Index the notes in memory by their disk locations
+    HashMap<String, Note> byLocation = new HashMap<String, Note>();
+    for (int i = 0; i < list.size(); i++) {
+      Note note = list.get(i);
+      if (note != null 
+          && (! note.isDeleted()) 
+          && note.hasDiskLocation()) {
+        byLocation.put(note.getDiskLocation(), note);
+      }
+    }
+    
+    List<File> filesToCheck = noteFiles;
+    if (checkAll) {
+      LinkedHashSet<File> allFiles = new LinkedHashSet<File>();
+      File[] folderFiles = getFolder().listFiles();
+      if (folderFiles != null) {
+        allFiles.addAll(Arrays.asList(folderFiles));
+      }
+      for (String location : byLocation.keySet()) {
+        allFiles.add(new File(location));
+      }
+      filesToCheck = new ArrayList<File>(allFiles);
+    }
+    
+    int changes = 0;
+    ArrayList<Note> added = new ArrayList<Note>();
+    for (File noteFile : filesToCheck) {
+      Note changed = applyDiskChange(noteFile, byLocation, checkAll);
+      if (changed != null) {
+        changes++;
+        if (! changed.isDeleted()) {
+          added.add(changed);
+        }
+      }
+    }
+    
+    // Now bring attachments up to date
+    File attachmentsFolder = getAttachmentsFolder();
+    if (checkAll) {
+      for (Note note : byLocation.values()) {
+        while (note.hasAttachments()) {
+          note.deleteAttachment(0);
+        }
+      }
+      noteIO.loadAttachments(this);
+    } else {
+      if (added.size() > 0) {
+        String[] existing = attachmentsFolder.list();
+        if (existing != null) {
+          attachmentNames = new ArrayList<String>(attachmentNames);
+          attachmentNames.addAll(Arrays.asList(existing));
+        }
+      }
+      for (String attachmentName : attachmentNames) {
+        boolean exists = new File(attachmentsFolder, attachmentName).isFile();
+        for (Note note : attachmentIndex.getNotesFor(attachmentName)) {
+          int index = note.getAttachmentIndex(attachmentName);
+          if (exists && index < 0) {
+            noteIO.addAttachment(note, attachmentsFolder, attachmentName);
+          }
+          else
+          if ((! exists) && index >= 0) {
+            note.deleteAttachment(index);
+          }
+        }
+      }
+    }
+    
+    if (changes > 0) {
+      logger.recordEvent(LogEvent.NORMAL, 
+          String.valueOf(changes) + " " 
+            + StringUtils.pluralize("note", changes)
+            + " refreshed from disk", 
+          false);
+    }
+    return changes;
+  }
+  
+  /**
+   Apply any change made to one note file. 
+  
+   @param noteFile   The note file that may have changed. 
+   @param byLocation The notes in memory, indexed by disk location; kept 
+                     up to date as notes are added, replaced and removed. 
+   @param newerOnly  If true, then skip files no more recent than 
+                     their notes in memory. 
+  
+   @return The note added or replacing an existing one, or the note 
+           removed; null if nothing changed. 
+  */
+  private Note applyDiskChange(
+      File noteFile, 
+      HashMap<String, Note> byLocation, 
+      boolean newerOnly) {
+    
+    String location;
+    try {
+      location = noteFile.getCanonicalPath();
+    } catch (IOException e) {
+      location = noteFile.getAbsolutePath();
+    }
+    Note inMemory = byLocation.get(location);
+    
+    if (! noteFile.exists()) {
+      if (inMemory != null) {
+        removeFromMemory(inMemory);
+        byLocation.remove(location);
+      }
+      return inMemory;
+    }
+    
+    if (! NoteIO.isInterestedIn(noteFile)) {
+      return null;
+    }
+    
+    if (newerOnly 
+        && inMemory != null
+        && inMemory.getLastModDate() != null
+        && noteFile.lastModified() <= inMemory.getLastModDate().getTime()) {
+      return null;
+    }
+    
+    Note fromDisk = null;
+    try {
+      fromDisk = noteIO.getNote(noteFile, "");
+    } catch (IOException e) {
+      logger.recordEvent(LogEvent.MINOR, 
+          "Could not refresh note from " + noteFile.toString(), false);
+    }
+    if (fromDisk == null) {
+      return null;
+    }
+    
+    if (inMemory == null) {
+      if (loadTaggedOnly && (! fromDisk.hasTags())) {
+        return null;
+      }
+      if (addToMemory(fromDisk)) {
+        byLocation.put(location, fromDisk);
+        return fromDisk;
+      } else {
+        logger.recordEvent(LogEvent.MEDIUM,
+            "Could not add duplicate title found at: " + location,
+            false);
+        return null;
+      }
+    }
+    
+    if (sameFields(inMemory, fromDisk)) {
+      return null;
+    }
+    
+    Note sameKey = map.get(fromDisk.getUniqueKey());
+    if (sameKey != null && sameKey != inMemory) {
+      logger.recordEvent(LogEvent.MEDIUM,
+          "Could not refresh note with duplicate title found at: " + location,
+          false);
+      return null;
+    }
+    
+    removeFromMemory(inMemory);
+    byLocation.remove(location);
+    for (int i = 0; i < inMemory.getNumberOfAttachments(); i++) {
+      NoteAttachment attachment = inMemory.getAttachment(i);
+      attachment.setParentNote(fromDisk);
+      fromDisk.addAttachment(attachment);
+    }
+    if (loadTaggedOnly && (! fromDisk.hasTags())) {
+      return inMemory;
+    }
+    addToMemory(fromDisk);
+    byLocation.put(location, fromDisk);
+    if (selectedNote == inMemory) {
+      select(fromDisk);
+    }
+    return fromDisk;
+  }
+  
+  /**
+   Do these two notes have the same values in all of their fields? 
+  */
+  private boolean sameFields(Note note1, Note note2) {
+    
+    // Fields are matched by name, since the same note may have its fields
+    // in a different order after being read again
+    HashMap<String, String> fields2 = new HashMap<String, String>();
+    for (int i = 0; i < note2.getNumberOfFields(); i++) {
+      DataField field2 = note2.getField(i);
+      String data2 = field2.getData();
+      if (data2 != null && data2.length() > 0) {
+        fields2.put(field2.getCommonFormOfName(), data2);
+      }
+    }
+    for (int i = 0; i < note1.getNumberOfFields(); i++) {
+      DataField field1 = note1.getField(i);
+      String data1 = field1.getData();
+      if (data1 != null && data1.length() > 0) {
+        String data2 = fields2.remove(field1.getCommonFormOfName());
+        if (! data1.equals(data2)) {
+          return false;
+        }
+      }
+    }
+    return fields2.isEmpty();
+  }
+  
   /**
    Return a table view that can be used to view the sorted list. 
   
@@ -935,6 +1299,14 @@ public class NoteCollectionModel {
 
   public WorkList getWorkList () { return workList; }
   
+  /**
+   Return the index used to match files in the attachments folder to the
+   notes to which they belong. 
+  
+   @return The attachment index. 
+  */
+  public NoteAttachmentIndex getAttachmentIndex () { return attachmentIndex; }
+  
   /* ============================================================================
    *  
    * The methods in this section deal with a single selected note 
@@ -1137,9 +1509,10 @@ public class NoteCollectionModel {
         || tagsChanged) {
       tagsList.modify(note);
       tagsView.modify(note);
-      authorList.modify(note);
     }
+    authorList.modify(note);
     workList.modify(note);
+    attachmentIndex.update(note);
     if (editingMasterCollection) {
       master.modRecentFile(priorTitle, note.getTitle(), note.getSeq());
     }
@@ -1167,10 +1540,11 @@ public class NoteCollectionModel {
         || tagsChanged()) {
       tagsList.modify(selectedNote);
       tagsView.modify(selectedNote);
-      authorList.modify(selectedNote);
     }
 
+    authorList.modify(selectedNote);
     workList.modify(selectedNote);
+    attachmentIndex.update(selectedNote);
     
   }
   
@@ -1509,66 +1883,104 @@ public class NoteCollectionModel {
     int synced = 0;
     int added = 0;
     int addedToSyncFolder = 0;
+    int skipped = 0;
+    NoteSyncFingerprints fingerprints = null;
     
     if (ok) {  
       
-      // Now go through the items on the list and mark them all as unsynced
+      fingerprints = new NoteSyncFingerprints(getFolder(), 
+          syncPrefs.getSyncFolder(), syncPrefs.getSyncPrefix());
+      fingerprints.read();
+      
+      // Now go through the items on the list, marking them all as unsynced,
+      // and indexing them by title
+      HashMap<String, Note> byTitle = new HashMap<String, Note>(list.size() * 2);
       Note workNote;
       for (int workIndex = 0; workIndex < list.size(); workIndex++) {
         workNote = list.get (workIndex);
         workNote.setSynced(false);
+        byTitle.putIfAbsent(workNote.getTitle(), workNote);
       }
-
+      
       // Now match directory entries in the folder with items on the list
-      DirectoryReader directoryReader = new DirectoryReader (syncFolder);
-      directoryReader.setLog (Logger.getShared());
-      directoryReader.openForInput();
-      while (! directoryReader.isAtEnd()) {
-        File nextFile = directoryReader.nextFileIn();
-        FileName nextFileName = new FileName(nextFile);
-        if ((nextFile != null) 
-            && (! nextFile.getName().startsWith ("."))
-            && nextFile.exists()
-            && NoteIO.isInterestedIn(nextFile)
-            && nextFile.getName().startsWith(syncPrefs.getSyncPrefix())
-            && nextFileName.getBase().length() > syncPrefs.getSyncPrefix().length()) {
-          String fileNameBase = nextFileName.getBase();
-          String nextTitle 
-              = fileNameBase.substring(syncPrefs.getSyncPrefix().length()).trim();
-          int i = 0;
-          boolean found = false;
-          while (i < list.size() && (! found)) {
-            workNote = list.get(i);
-            found = (workNote.getTitle().equals(nextTitle));
-            if (found) {
+      ArrayList<Note> notesToSave = new ArrayList<Note>();
+      ArrayList<Note> notesToAdd = new ArrayList<Note>();
+      String syncPrefix = syncPrefs.getSyncPrefix();
+      try (DirectoryStream<Path> dir 
+          = Files.newDirectoryStream(syncFolder.toPath())) {
+        for (Path nextPath : dir) {
+          String nextName = nextPath.getFileName().toString();
+          BasicFileAttributes attrs;
+          try {
+            attrs = Files.readAttributes(nextPath, BasicFileAttributes.class);
+          } catch (IOException e) {
+            continue;
+          }
+          File nextFile = nextPath.toFile();
+          FileName nextFileName = new FileName(nextFile);
+          if ((! nextName.startsWith ("."))
+              && attrs.isRegularFile()
+              && NoteIO.isInterestedIn(nextPath, attrs)
+              && nextName.startsWith(syncPrefix)
+              && nextFileName.getBase().length() > syncPrefix.length()) {
+            long size = attrs.size();
+            long lastModified = attrs.lastModifiedTime().toMillis();
+            String nextTitle 
+                = nextFileName.getBase().substring(syncPrefix.length()).trim();
+            workNote = byTitle.get(nextTitle);
+            if (workNote != null) {
               workNote.setSynced(true);
-              Date lastModDate = new Date (nextFile.lastModified());
-              if (lastModDate.compareTo(workNote.getLastModDate()) > 0) {
-                Note syncNote = noteIO.getNote(nextFile, syncPrefs.getSyncPrefix());
-                msgs.append(
-                    "Note updated to match more recent info from sync folder for "
-                    + syncNote.getTitle()
-                    + "\n");
-                workNote.setTags(syncNote.getTagsAsString());
-                workNote.setLink(syncNote.getLinkAsString());
-                workNote.setBody(syncNote.getBody());
-                noteIO.save(syncNote, true);
-              }
               synced++;
+              if (fingerprints.isUnchanged(nextName, size, lastModified)) {
+                // Nothing has touched this file since our last sync
+                fingerprints.keep(nextName);
+                skipped++;
+              }
+              else
+              if (lastModified > workNote.getLastModDate().getTime()) {
+                byte[] contents = Files.readAllBytes(nextPath);
+                byte[] digest = NoteSyncFingerprints.digest(contents);
+                if (fingerprints.isSameContent(nextName, digest)) {
+                  skipped++;
+                } else {
+                  Note syncNote = noteIO.getNote
+                      (nextFile, syncPrefix, lastModified, contents);
+                  msgs.append(
+                      "Note updated to match more recent info from sync folder for "
+                      + syncNote.getTitle()
+                      + "\n");
+                  workNote.setTags(syncNote.getTagsAsString());
+                  workNote.setLink(syncNote.getLinkAsString());
+                  workNote.setBody(syncNote.getBody());
+                  notesToSave.add(syncNote);
+                }
+                fingerprints.put(nextName, size, lastModified, digest);
+              } else {
+                fingerprints.put(nextName, size, lastModified, null);
+              }
             } else {
-              i++;
+              // Add new nvAlt note to Notenik collection
+              byte[] contents = Files.readAllBytes(nextPath);
+              Note syncNote = noteIO.getNote
+                  (nextFile, syncPrefix, lastModified, contents);
+              syncNote.setLastModDateToday();
+              notesToAdd.add(syncNote);
+              byTitle.put(nextTitle, syncNote);
             }
-          } // end while looking for a matching newNote
-          if ((! found)) {
-            // Add new nvAlt newNote to Notenik collection
-            Note syncNote = noteIO.getNote(nextFile, syncPrefs.getSyncPrefix());
-            syncNote.setLastModDateToday();
-            noteIO.save(syncNote, true);
-            add (syncNote);
-          }
-        } // end if file exists, can be read, etc.
-      } // end while more files in sync folder
-      directoryReader.close();
+          } // end if file exists, can be read, etc.
+        } // end for each file in sync folder
+      }
+      
+      // Now write out the changes, all at once
+      for (Note syncNote : notesToSave) {
+        noteIO.save(syncNote, true);
+      }
+      for (Note syncNote : notesToAdd) {
+        if (add (syncNote)) {
+          added++;
+          fingerprints.put(getSyncFile(syncNote.getTitle()));
+        }
+      }
     }
       
     if (ok) {
@@ -1580,6 +1992,10 @@ public class NoteCollectionModel {
           + StringUtils.pluralize("item", synced)
           + " synced\n");
       
+      msgs.append(String.valueOf(skipped) + " unchanged "
+          + StringUtils.pluralize("item", skipped)
+          + " skipped\n");
+      
       // Now add any unsynced notes to the sync folder
       Note workNote;
       for (int workIndex = 0; workIndex < list.size(); workIndex++) {
@@ -1587,6 +2003,7 @@ public class NoteCollectionModel {
         if (! workNote.isSynced()) {
           workNote.setLastModDateToday();
           saveNote(workNote);
+          fingerprints.put(getSyncFile(workNote.getTitle()));
           msgs.append("Added to Sync Folder " + workNote.getTitle() + "\n");
           addedToSyncFolder++;
         }
@@ -1594,6 +2011,7 @@ public class NoteCollectionModel {
       msgs.append(String.valueOf(addedToSyncFolder) + " "
           + StringUtils.pluralize("note", addedToSyncFolder)
           + " added to sync folder\n");
+      fingerprints.write();
       msgs.append("Folder Sync Completed!\n");
     }
     
@@ -1614,6 +2032,7 @@ public class NoteCollectionModel {
     BackupInfo backupInfo = new BackupInfo();
     backupInfo.setSource(fileSpec);
     backupInfo.setToZip();
+    backupInfo.setParallelZip(true);
     backupInfo.setBackupFolder(getBackupFolder());
     backupInfo.setBackupsToKeep(filePrefs);
     return backupInfo;
@@ -16,6 +16,8 @@
 
 package com.powersurgepub.psutils2.notenik;
 
+  import java.util.*;
+
   import javafx.collections.*;
   import javafx.scene.control.*;
   import javafx.scene.control.cell.*;
@@ -31,6 +33,14 @@ package com.powersurgepub.psutils2.notenik;
  */
 public class NoteCollectionSorted {
   
+  /** Orders sorted notes by their sort keys. */
+  private static final Comparator<SortedNote> SORT_KEY_ORDER
+      = new Comparator<SortedNote>() {
+    public int compare(SortedNote sorted1, SortedNote sorted2) {
+      return sorted1.getSortKey().compareTo(sorted2.getSortKey());
+    }
+  };
+  
   private NoteSortParm                          sortParm = null;
   private NoteCollectionList                    notes = null;
   
@@ -108,7 +118,10 @@ public class NoteCollectionSorted {
    Given a Sort Parm and a basic list of notes, create and populate the 
    sorted list and its associated table. Note that whenever we have a 
    new list of notes, or new / modified sort parms, both the observable 
-   list and the table view will be created from scratch. 
+   list and the table view will be created from scratch. The sort keys
+   are generated in parallel, and the list is then sorted in one pass, 
+   rather than having each note inserted in turn. Notes that have been
+   deleted are left out. 
    
    @param notes    The list of notes to be used. 
   */
@@ -116,11 +129,18 @@ public class NoteCollectionSorted {
     
     this.notes = notes;
     
-    sortedNotes = FXCollections.observableArrayList();
+    ArrayList<Note> liveNotes = new ArrayList<Note>(notes.size());
     for (int i = 0; i < notes.size(); i++) {
       Note nextNote = notes.get(i);
-      add(nextNote);
+      if (nextNote != null && (! nextNote.isDeleted())) {
+        liveNotes.add(nextNote);
+      }
     }
+    SortedNote[] sortedArray = new SortedNote[liveNotes.size()];
+    Arrays.parallelSetAll(sortedArray, 
+        i -> new SortedNote(liveNotes.get(i), sortParm));
+    Arrays.parallelSort(sortedArray, SORT_KEY_ORDER);
+    sortedNotes = FXCollections.observableArrayList(sortedArray);
     
     genNoteTable();
   }
@@ -177,6 +197,7 @@ public class NoteCollectionSorted {
   void add (Note newNote) {
 
     SortedNote sorted = new SortedNote(newNote, sortParm);
+    String newKey = sorted.getSortKey();
     
     if (sortedNotes.isEmpty()) {
       // If this is the first note being added to the collection, simply add it
@@ -184,19 +205,40 @@ public class NoteCollectionSorted {
       sortIndex = 0;
     }
     else
-    if (compareSort(sortedNotes.size() - 1, newNote) < 0) {
+    if (compareSort(sortedNotes.size() - 1, newKey) < 0) {
       // If the new Note has a key higher than the highest item in the
       // collection, simply add the new Note to the end
       // (more efficient if an input file happens to be pre-sorted).
       sortIndex = sortedNotes.size();
       sortedNotes.add (sorted);
     } else {
-      findSortInternal (newNote);
+      findSortInternal (newKey);
       sortedNotes.add(sortIndex, sorted);
     }
     
   } // end add method
   
+  /**
+   Add a batch of notes to the list of sorted, filtered notes. The new 
+   notes are sorted along with those already present, and the list is 
+   then replaced in a single operation. Notes with equal sort keys remain
+   in the order in which they were added. 
+   
+   @param newNotes The notes to be added. 
+   */
+  void addAll (List<Note> newNotes) {
+    
+    ArrayList<SortedNote> combined 
+        = new ArrayList<SortedNote>(sortedNotes.size() + newNotes.size());
+    combined.addAll(sortedNotes);
+    for (Note newNote : newNotes) {
+      combined.add(new SortedNote(newNote, sortParm));
+    }
+    combined.sort(SORT_KEY_ORDER);
+    sortedNotes.setAll(combined);
+    
+  } // end addAll method
+  
   /**
    Remove the given note.
   
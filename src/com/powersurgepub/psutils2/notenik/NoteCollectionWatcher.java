@@ -0,0 +1,307 @@
+/*
+ * Copyright 2012 - 2017 Herb Bowie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.powersurgepub.psutils2.notenik;
+
+  import com.powersurgepub.psutils2.logging.*;
+
+  import java.io.*;
+  import java.nio.file.*;
+  import java.util.*;
+  import java.util.concurrent.*;
+
+  import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ Watches a collection folder, and its attachments folder, for changes made
+ by other processes, and passes them along to the collection model so that
+ they can be applied to the notes in memory, one note at a time, without
+ reloading the whole collection. <p>
+
+ Events tend to arrive in bursts -- a single save may generate several, and
+ a sync or a pull may touch many files at once -- so changes are collected
+ until the folders have been quiet for a short while (or until a maximum
+ delay has passed), and then handed over as a single batch. Each batch is
+ applied by the supplied executor, so that a model displayed by a user
+ interface can be updated on the interface's own thread.
+
+ @author Herb Bowie
+ */
+public class NoteCollectionWatcher
+    implements Runnable {
+
+  /** Default time, in milliseconds, without events before a batch is sent. */
+  public static final long    DEFAULT_QUIET_MILLIS    = 500;
+
+  /** Default longest time, in milliseconds, that a change will be held. */
+  public static final long    DEFAULT_MAX_DELAY_MILLIS = 5000;
+
+  private             NoteCollectionModel     model;
+  private             File                    folder;
+  private             File                    attachmentsFolder;
+  private             Executor                applier;
+
+  private             long                    quietMillis
+      = DEFAULT_QUIET_MILLIS;
+  private             long                    maxDelayMillis
+      = DEFAULT_MAX_DELAY_MILLIS;
+
+  private             WatchService            watchService = null;
+  private             WatchKey                folderKey = null;
+  private             WatchKey                attachmentsKey = null;
+  private             Thread                  thread = null;
+  private volatile    boolean                 running = false;
+
+  /** Note files changed since the last batch was sent. */
+  private             LinkedHashSet<File>     notesChanged
+      = new LinkedHashSet<File>();
+
+  /** Attachment file names changed since the last batch was sent. */
+  private             LinkedHashSet<String>   attachmentsChanged
+      = new LinkedHashSet<String>();
+
+  /** Were some events lost, so that the whole folder must be checked? */
+  private             boolean                 overflow = false;
+
+  /** Time at which the oldest change in the current batch was seen. */
+  private             long                    firstChangeTime = 0;
+
+  /**
+   Create a watcher for the given collection.
+
+   @param model   The model to which changes are to be applied.
+   @param folder  The collection folder to be watched.
+   @param applier The executor to be used to apply each batch of changes
+                  to the model.
+  */
+  public NoteCollectionWatcher
+      (NoteCollectionModel model, File folder, Executor applier) {
+    this.model = model;
+    this.folder = folder;
+    this.attachmentsFolder = new File (folder, NoteIO.FILES_FOLDER_NAME);
+    this.applier = applier;
+  }
+
+  /**
+   Set the time without any further events that must pass before a batch
+   of changes is applied.
+
+   @param quietMillis The quiet period, in milliseconds.
+  */
+  public void setQuietMillis (long quietMillis) {
+    this.quietMillis = Math.max (1, quietMillis);
+  }
+
+  public long getQuietMillis () {
+    return quietMillis;
+  }
+
+  /**
+   Set the longest time that a change may be held while waiting for events
+   to quiet down.
+
+   @param maxDelayMillis The maximum delay, in milliseconds.
+  */
+  public void setMaxDelayMillis (long maxDelayMillis) {
+    this.maxDelayMillis = Math.max (1, maxDelayMillis);
+  }
+
+  public long getMaxDelayMillis () {
+    return maxDelayMillis;
+  }
+
+  /**
+   Start watching the collection folder.
+
+   @return True if the folder is now being watched; false if it could
+           not be.
+  */
+  public boolean start () {
+    if (running) {
+      return true;
+    }
+    attachmentsKey = null;
+    try {
+      watchService = folder.toPath().getFileSystem().newWatchService();
+      folderKey = register (folder);
+      registerAttachmentsFolder();
+    } catch (IOException | UnsupportedOperationException e) {
+      Logger.getShared().recordEvent (LogEvent.MINOR,
+          "Unable to watch folder " + folder.toString()
+            + " for changes", false);
+      closeWatchService();
+      return false;
+    }
+    running = true;
+    thread = new Thread (this, "Notenik Folder Watcher");
+    thread.setDaemon (true);
+    thread.start();
+    return true;
+  }
+
+  /**
+   Stop watching the collection folder. Any changes not yet applied are
+   discarded.
+  */
+  public void stop () {
+    running = false;
+    closeWatchService();
+    if (thread != null) {
+      thread.interrupt();
+      thread = null;
+    }
+  }
+
+  /**
+   Are we currently watching the collection folder?
+
+   @return True if watching.
+  */
+  public boolean isRunning () {
+    return running;
+  }
+
+  /**
+   Wait for events, collecting them into batches, until stopped.
+  */
+  public void run () {
+    while (running) {
+      WatchKey key;
+      try {
+        if (firstChangeTime == 0) {
+          key = watchService.take();
+        } else {
+          long wait = Math.min (quietMillis,
+              firstChangeTime + maxDelayMillis - System.currentTimeMillis());
+          key = watchService.poll (Math.max (0, wait), TimeUnit.MILLISECONDS);
+        }
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        break;
+      }
+      if (key != null) {
+        collectEvents (key);
+      }
+      if (firstChangeTime > 0
+          && (key == null
+            || System.currentTimeMillis() - firstChangeTime >= maxDelayMillis)) {
+        sendBatch();
+      }
+    }
+  }
+
+  /**
+   Record the changes reported for one watched folder.
+
+   @param key The key for the folder reporting events.
+  */
+  private void collectEvents (WatchKey key) {
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW) {
+        overflow = true;
+      } else {
+        Path name = (Path)event.context();
+        if (key == folderKey) {
+          File changed = new File (folder, name.toString());
+          if (changed.equals (attachmentsFolder)) {
+            registerAttachmentsFolder();
+          } else {
+            notesChanged.add (changed);
+          }
+        }
+        else
+        if (key == attachmentsKey) {
+          attachmentsChanged.add (name.toString());
+        }
+      }
+      if (firstChangeTime == 0) {
+        firstChangeTime = System.currentTimeMillis();
+      }
+    }
+    if (! key.reset()) {
+      if (key == attachmentsKey) {
+        attachmentsKey = null;
+      }
+      else
+      if (key == folderKey) {
+        Logger.getShared().recordEvent (LogEvent.MINOR,
+            "Folder " + folder.toString() + " is no longer being watched",
+            false);
+        running = false;
+      }
+    }
+  }
+
+  /**
+   Hand the changes collected so far to the model.
+  */
+  private void sendBatch () {
+    final List<File> notes = new ArrayList<File>(notesChanged);
+    final List<String> attachments = new ArrayList<String>(attachmentsChanged);
+    final boolean checkAll = overflow;
+    notesChanged = new LinkedHashSet<File>();
+    attachmentsChanged = new LinkedHashSet<String>();
+    overflow = false;
+    firstChangeTime = 0;
+    try {
+      applier.execute (new Runnable() {
+        public void run() {
+          if (running) {
+            model.applyDiskChanges (notes, attachments, checkAll);
+          }
+        }
+      });
+    } catch (RejectedExecutionException | IllegalStateException e) {
+      // Rejected, or no JavaFX toolkit is running
+      Logger.getShared().recordEvent (LogEvent.MINOR,
+          "Changes to folder " + folder.toString() + " could not be applied",
+          false);
+    }
+  }
+
+  /**
+   Start watching the attachments folder, if it exists and we are not
+   already doing so.
+  */
+  private void registerAttachmentsFolder () {
+    if (attachmentsKey == null
+        && attachmentsFolder.isDirectory()) {
+      try {
+        attachmentsKey = register (attachmentsFolder);
+      } catch (IOException e) {
+        Logger.getShared().recordEvent (LogEvent.MINOR,
+            "Unable to watch folder " + attachmentsFolder.toString()
+              + " for changes", false);
+      }
+    }
+  }
+
+  private WatchKey register (File dir)
+      throws IOException {
+    return dir.toPath().register
+        (watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+  }
+
+  private void closeWatchService () {
+    if (watchService != null) {
+      try {
+        watchService.close();
+      } catch (IOException e) {
+        // Nothing more to be done
+      }
+    }
+  }
+
+}
@@ -23,7 +23,11 @@ package com.powersurgepub.psutils2.notenik;
   import com.powersurgepub.psutils2.values.StringDate;
 
   import java.io.*;
+  import java.nio.charset.*;
+  import java.nio.file.*;
+  import java.nio.file.attribute.*;
   import java.util.*;
+  import java.util.concurrent.*;
 
 /**
  A class to perform input and output for note files. 
@@ -58,6 +62,22 @@ public class NoteIO
   private             NoteCollectionModel model               = null;
   private             int                 notesLoaded         = 0;
   
+  /** Log a progress message each time this many more notes are loaded. */
+  public static final int                 LOAD_PROGRESS_INTERVAL = 5000;
+  
+  /** Maximum number of threads used to read note files during a load. */
+  private             int                 loadThreads         
+      = Math.max (1, Math.min (8, Runtime.getRuntime().availableProcessors()));
+  
+  /** Should a snapshot of the collection be used to speed up loading? */
+  private             boolean             useSnapshot         = false;
+  
+  /** Time at which the last load started. */
+  private             long                loadStartTime       = 0;
+  
+  /** Elapsed time, in milliseconds, taken by the last load. */
+  private             long                loadMillis          = 0;
+  
   /** Sequential number identifying last record read or written. */
   private             int                 recordNumber;
   
@@ -259,7 +279,11 @@ public class NoteIO
    * ======================================================================= */
   
   /**
-   Load the notes from disk to memory. 
+   Load the notes from disk to memory. When loading a folder, the folder is
+   scanned first, then the note files are read on a pool of threads while 
+   the notes are built, one at a time, in the same order in which they 
+   would have been read serially. The notes are then added to the model 
+   as a single batch, without being saved back to disk. 
   
    @param model The model to contain the loaded notes. 
    @param loadUnTagged Should untagged notes be loaded? If not, they will
@@ -269,32 +293,312 @@ public class NoteIO
   public void load (NoteCollectionModel model, boolean loadUnTagged) 
       throws IOException {
     
+    loadStartTime = System.currentTimeMillis();
     notesLoaded = 0;
     String taggedMsg = "";
     if (! loadUnTagged) {
       taggedMsg = " Tagged";
     }
     this.model = model;
-    openForInput();
-    Note note = readNextNote();
-    while (note != null) {
-      if (note.hasTags() || loadUnTagged) {
-        model.add(note);
-        notesLoaded++;
+    ArrayList<Note> notes = new ArrayList<Note>();
+    if (homeFolder == null) {
+      openForInput();
+      Note note = readNextNote();
+      while (note != null) {
+        if (note.hasTags() || loadUnTagged) {
+          notes.add(note);
+          notesLoaded++;
+        }
+        note = readNextNote();
       }
-      note = readNextNote();
+      close();
+    } else {
+      loadFolder (notes, loadUnTagged, taggedMsg);
     }
-    close();
+    notesLoaded = model.addAllToMemory(notes);
+    loadMillis = System.currentTimeMillis() - loadStartTime;
 
     Logger.getShared().recordEvent(LogEvent.NORMAL, 
-        String.valueOf(notesLoaded) + taggedMsg + " Notes loaded", false);
+        String.valueOf(notesLoaded) + taggedMsg + " Notes loaded" 
+          + getThroughput(), false);
 
     loadAttachments(model);
   }
+  
+  /**
+   Load all the notes found in the home folder and its sub-folders. 
+  
+   @param notes        The list to which the notes are to be added. 
+   @param loadUnTagged Should untagged notes be loaded?
+   @param taggedMsg    Text to be used in progress messages. 
+  
+   @throws IOException If there's a problem reading the notes from disk. 
+  */
+  private void loadFolder 
+      (List<Note> notes, boolean loadUnTagged, String taggedMsg) 
+      throws IOException {
+    
+    List<NoteFileEntry> entries = listNoteFiles();
+    recordNumber = 0;
+    
+    // Find the notes that can be taken from the last snapshot
+    NoteSnapshot snapshot = null;
+    if (useSnapshot) {
+      snapshot = new NoteSnapshot 
+          (homeFolder, noteParms.getNoteType(), noteParms.getRecDef());
+      snapshot.read();
+      Path root = homeFolder.getAbsoluteFile().toPath();
+      for (NoteFileEntry entry : entries) {
+        entry.relativePath = root.relativize(entry.path).toString();
+        entry.cached = snapshot.get
+            (entry.relativePath, entry.size, entry.lastModified);
+      }
+    }
+    
+    int threads = Math.max (1, Math.min (loadThreads, entries.size()));
+    int readAhead = threads * 4;
+    ExecutorService pool = Executors.newFixedThreadPool (threads);
+    try {
+      int submitted = 0;
+      for (int i = 0; i < entries.size(); i++) {
+        
+        // Keep the pool busy reading the files that follow this one
+        while (submitted < entries.size() && submitted <= i + readAhead) {
+          NoteFileEntry nextEntry = entries.get(submitted);
+          if (nextEntry.cached == null) {
+            nextEntry.lines = pool.submit 
+                (new NoteFileReader (nextEntry.path));
+          }
+          submitted++;
+        }
+        
+        NoteFileEntry entry = entries.get(i);
+        Note note = null;
+        if (entry.cached != null) {
+          note = buildNote (entry.path.toFile(), "", 
+              entry.lastModified, entry.cached);
+          snapshot.add (entry.cached);
+          entry.cached = null;
+        } else {
+          List<NoteLine> lines = getLines (entry);
+          if (lines != null) {
+            note = buildScannedNote (entry.path.toFile(), 
+                entry.lastModified, lines);
+            if (snapshot != null) {
+              snapshot.add (entry.relativePath, entry.size, 
+                  entry.lastModified, note);
+            }
+          }
+        }
+        if (note != null) {
+          recordNumber++;
+          if (note.hasTags() || loadUnTagged) {
+            notes.add(note);
+            notesLoaded++;
+            if (notesLoaded % LOAD_PROGRESS_INTERVAL == 0) {
+              loadMillis = System.currentTimeMillis() - loadStartTime;
+              Logger.getShared().recordEvent(LogEvent.NORMAL, 
+                  String.valueOf(notesLoaded) + " of " 
+                    + String.valueOf(entries.size()) + taggedMsg 
+                    + " Notes loaded so far" + getThroughput(), false);
+            }
+          }
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    
+    if (snapshot != null) {
+      Logger.getShared().recordEvent(LogEvent.NORMAL, 
+          String.valueOf(snapshot.getReused()) 
+            + " Notes loaded from snapshot", false);
+      if (snapshot.isChanged()) {
+        snapshot.write();
+      }
+    }
+  }
+  
+  /**
+   Wait for the lines of a note file to be read and scanned, and return 
+   them. 
+  
+   @param entry The entry for the note file. 
+  
+   @return The scanned lines of the file, or null if it could not be read. 
+  
+   @throws IOException If there's a problem reading the note from disk. 
+  */
+  private List<NoteLine> getLines (NoteFileEntry entry) 
+      throws IOException {
+    try {
+      return entry.lines.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException ("Note loading was interrupted");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException)cause;
+      } else
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      } else {
+        throw new IOException (cause);
+      }
+    } finally {
+      entry.lines = null;
+    }
+  }
+  
+  /**
+   Scan the home folder and its sub-folders, returning all the note files 
+   of interest, in the same order in which they would be read by 
+   nextRecordIn: the files in each folder, followed by those in each of 
+   its sub-folders, in turn. Each file's attributes are obtained only 
+   once, as part of the scan. 
+  
+   @return A list of note files to be loaded. 
+  
+   @throws IOException If the home folder could not be scanned. 
+  */
+  private List<NoteFileEntry> listNoteFiles () 
+      throws IOException {
+    
+    final Path root = homeFolder.getAbsoluteFile().toPath();
+    final HashMap<Path, ArrayList<NoteFileEntry>> folders 
+        = new HashMap<Path, ArrayList<NoteFileEntry>>();
+    folders.put (root, new ArrayList<NoteFileEntry>());
+    
+    Files.walkFileTree (root, EnumSet.of (FileVisitOption.FOLLOW_LINKS), 
+        maxDepth, new SimpleFileVisitor<Path>() {
+      
+      @Override
+      public FileVisitResult preVisitDirectory 
+          (Path dir, BasicFileAttributes attrs) {
+        if (dir.equals (root)) {
+          return FileVisitResult.CONTINUE;
+        }
+        String dirName = dir.getFileName().toString();
+        if (dirName.equalsIgnoreCase("templates")
+            || dirName.equalsIgnoreCase("publish")
+            || dirName.equalsIgnoreCase("reports")
+            || dirName.equalsIgnoreCase("files")
+            || dirName.equalsIgnoreCase("images")
+            || dirName.equalsIgnoreCase("lists")) {
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+        ArrayList<NoteFileEntry> parentEntries = folders.get (dir.getParent());
+        if (parentEntries != null) {
+          parentEntries.add (new NoteFileEntry (dir, 0, true));
+        }
+        folders.put (dir, new ArrayList<NoteFileEntry>());
+        return FileVisitResult.CONTINUE;
+      }
+      
+      @Override
+      public FileVisitResult visitFile 
+          (Path file, BasicFileAttributes attrs) {
+        if (attrs.isRegularFile() && isInterestedIn (file, attrs)) {
+          ArrayList<NoteFileEntry> parentEntries 
+              = folders.get (file.getParent());
+          if (parentEntries != null) {
+            NoteFileEntry entry = new NoteFileEntry 
+                (file, attrs.lastModifiedTime().toMillis(), false);
+            entry.size = attrs.size();
+            parentEntries.add (entry);
+          }
+        }
+        return FileVisitResult.CONTINUE;
+      }
+      
+      @Override
+      public FileVisitResult visitFileFailed (Path file, IOException e) {
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    
+    // Now list the files, a folder at a time, breadth first
+    ArrayList<NoteFileEntry> noteFiles = new ArrayList<NoteFileEntry>();
+    ArrayDeque<Path> folderQueue = new ArrayDeque<Path>();
+    folderQueue.add (root);
+    while (! folderQueue.isEmpty()) {
+      ArrayList<NoteFileEntry> entries = folders.get (folderQueue.remove());
+      for (NoteFileEntry entry : entries) {
+        if (entry.folder) {
+          if (folders.containsKey (entry.path)) {
+            folderQueue.add (entry.path);
+          }
+        } else {
+          noteFiles.add (entry);
+        }
+      }
+    }
+    return noteFiles;
+  }
+  
+  /**
+   Indicate whether a snapshot of the collection should be kept within the
+   collection folder, and used to avoid reading and parsing note files
+   that have not changed since the last load. 
+  
+   @param useSnapshot True to use a snapshot, false to read every note.
+  */
+  public void setUseSnapshot (boolean useSnapshot) {
+    this.useSnapshot = useSnapshot;
+  }
+  
+  public boolean isUsingSnapshot () {
+    return useSnapshot;
+  }
+  
+  /**
+   Set the maximum number of threads to be used to read note files 
+   when loading a collection. 
+  
+   @param loadThreads The maximum number of threads; values less than 1 
+                      are treated as 1. 
+  */
+  public void setLoadThreads (int loadThreads) {
+    this.loadThreads = Math.max (1, loadThreads);
+  }
+  
+  public int getLoadThreads () {
+    return loadThreads;
+  }
+  
+  /**
+   Return the elapsed time taken by the last load. 
+  
+   @return The elapsed time, in milliseconds. 
+  */
+  public long getLoadMillis () {
+    return loadMillis;
+  }
+  
+  /**
+   Return a description of the load rate achieved so far. 
+  
+   @return The elapsed time and notes per second, ready to be appended to
+           a log message. 
+  */
+  private String getThroughput () {
+    StringBuilder throughput = new StringBuilder();
+    throughput.append (" in ");
+    throughput.append (String.valueOf (loadMillis));
+    throughput.append (" ms");
+    if (loadMillis > 0) {
+      throughput.append (" (");
+      throughput.append (String.valueOf (notesLoaded * 1000L / loadMillis));
+      throughput.append (" per second)");
+    }
+    return throughput.toString();
+  }
 
     /**
      * Look for a files folder within the collection and, if found, try to match the file names within
-     * to the file names of the notes for the collection.
+     * to the file names of the notes for the collection. Each file is matched through the
+     * model's index of note file names.
      *
      * @param model The model for this collection.
      */
@@ -306,33 +610,44 @@ public class NoteIO
         && attachmentsFolder.canRead()
         && attachmentsFolder.canWrite()) {
       String[] attachments = attachmentsFolder.list();
-      NoteCollectionList notes = model.getNoteList();
-      for (int i = 0; i < notes.size(); i++ ) {
-        Note nextNote = notes.get(i);
-        if (nextNote == null) {
-          // System.out.println("Next Note is null");
-        } else {
-          String noteFileName = nextNote.getFileName();
-          for (int j = 0; j < attachments.length; j++) {
-            String attachmentName = attachments[j];
-            if (attachmentName.startsWith(noteFileName)) {
-              NoteAttachment attachment = new NoteAttachment();
-              attachment.setParentNote(nextNote);
-              File attachmentFile = new File(attachmentsFolder, attachmentName);
-              FileName attachmentFileName = new FileName(attachmentFile);
-              String attachmentBaseName = attachmentFileName.getBase();
-              String attachmentExt = attachmentFileName.getExt();
-              String attachmentSuffix = attachmentBaseName.substring(noteFileName.length());
-              attachment.setFileNameSuffix(attachmentSuffix);
-              attachment.setFileNameExtension(attachmentExt);
-              nextNote.addAttachment(attachment);
-            }
-          }
+      if (attachments == null) {
+        return;
+      }
+      NoteAttachmentIndex index = model.getAttachmentIndex();
+      for (int j = 0; j < attachments.length; j++) {
+        String attachmentName = attachments[j];
+        for (Note nextNote : index.getNotesFor(attachmentName)) {
+          addAttachment(nextNote, attachmentsFolder, attachmentName);
         }
       }
     }
   }
   
+  /**
+   Add the named file in the attachments folder to the given note's list
+   of attachments. 
+  
+   @param note              The note to which the file is attached; the 
+                            attachment's name must begin with the note's
+                            file name. 
+   @param attachmentsFolder The folder containing the attachment. 
+   @param attachmentName    The name of the attachment file. 
+  */
+  public void addAttachment(Note note, File attachmentsFolder, 
+      String attachmentName) {
+    String noteFileName = note.getFileName();
+    NoteAttachment attachment = new NoteAttachment();
+    attachment.setParentNote(note);
+    File attachmentFile = new File(attachmentsFolder, attachmentName);
+    FileName attachmentFileName = new FileName(attachmentFile);
+    String attachmentBaseName = attachmentFileName.getBase();
+    String attachmentExt = attachmentFileName.getExt();
+    String attachmentSuffix = attachmentBaseName.substring(noteFileName.length());
+    attachment.setFileNameSuffix(attachmentSuffix);
+    attachment.setFileNameExtension(attachmentExt);
+    note.addAttachment(attachment);
+  }
+  
   public int getNotesLoaded() {
     return notesLoaded;
   }
@@ -561,13 +876,12 @@ public class NoteIO
            otherwise false. 
   */
   public static boolean isInterestedIn(File candidate) {
-    File parent = candidate.getParentFile();
     String name = candidate.getName();
     if (candidate.isHidden()) {
       return false;
     }
     else
-    if (candidate.getName().startsWith(".")) {
+    if (name.startsWith(".")) {
       return false;
     }
     else
@@ -577,34 +891,82 @@ public class NoteIO
     else
     if (candidate.isFile() 
         && candidate.length() == 0
-        && candidate.getName().equals("Icon\r")) {
+        && name.equals("Icon\r")) {
       return false;
     }
     else
     if (candidate.isDirectory()) {
       return false;
+    } else {
+      return isNoteFileName(candidate.getParentFile(), name);
+    }
+  }
+  
+  /**
+   Is this input module interested in processing the specified file, 
+   judging by attributes already obtained? Readability is not checked 
+   here: a file that cannot be read is simply skipped when it is loaded. 
+  
+   @param candidate The file being considered. 
+   @param attrs     The file's attributes. 
+  
+   @return True if the input module thinks this file is worth processing,
+           otherwise false. 
+  */
+  public static boolean isInterestedIn(Path candidate, BasicFileAttributes attrs) {
+    String name = candidate.getFileName().toString();
+    if (name.startsWith(".")) {
+      return false;
+    }
+    else
+    if (attrs instanceof DosFileAttributes
+        && ((DosFileAttributes)attrs).isHidden()) {
+      return false;
     }
     else
-    if (candidate.getParent().toLowerCase().endsWith("templates")) {
+    if (attrs.isRegularFile()
+        && attrs.size() == 0
+        && name.equals("Icon\r")) {
+      return false;
+    }
+    else
+    if (attrs.isDirectory()) {
+      return false;
+    } else {
+      return isNoteFileName(candidate.toFile().getParentFile(), name);
+    }
+  }
+  
+  /**
+   Does this look like the name of a note file?
+  
+   @param parent The folder containing the file. 
+   @param name   The name of the file, without any path. 
+  
+   @return True if the name and location are those of a note file. 
+  */
+  private static boolean isNoteFileName(File parent, String name) {
+    String parentPath = parent.getPath().toLowerCase();
+    if (parentPath.endsWith("templates")) {
       return false;
     }
     else
-    if (candidate.getParent().toLowerCase().endsWith("reports")) {
+    if (parentPath.endsWith("reports")) {
       return false;
     }
     else
-    if (candidate.getName().equalsIgnoreCase("New Event.txt")) {
+    if (name.equalsIgnoreCase("New Event.txt")) {
       return false;
     }
     else
-    if (candidate.getName().contains("conflicted copy")) {
+    if (name.contains("conflicted copy")) {
       return false;
     }
     else
-    if (candidate.getName().contains(PARMS_TITLE)) {
+    if (name.contains(PARMS_TITLE)) {
       return false;
     }
-    else if (candidate.getName().equals(CollectionInfo.COLLECTION_INFO_FILE_NAME)) {
+    else if (name.equals(CollectionInfo.COLLECTION_INFO_FILE_NAME)) {
         return false;
     }
     else
@@ -612,19 +974,19 @@ public class NoteIO
       return false;
     }
     else
-    if (candidate.getName().equalsIgnoreCase(README_FILE_NAME)) {
+    if (name.equalsIgnoreCase(README_FILE_NAME)) {
       return false;
     }
     else
-    if (candidate.getName().endsWith (".txt")
-        || candidate.getName().endsWith (".text")
-        || candidate.getName().endsWith (".markdown")
-        || candidate.getName().endsWith (".md")
-        || candidate.getName().endsWith (".mdown")
-        || candidate.getName().endsWith (".mkdown")
-        || candidate.getName().endsWith (".mdtext")
-        || candidate.getName().endsWith (".nnk")
-        || candidate.getName().endsWith (".notenik")) {
+    if (name.endsWith (".txt")
+        || name.endsWith (".text")
+        || name.endsWith (".markdown")
+        || name.endsWith (".md")
+        || name.endsWith (".mdown")
+        || name.endsWith (".mkdown")
+        || name.endsWith (".mdtext")
+        || name.endsWith (".nnk")
+        || name.endsWith (".notenik")) {
       return true;
     } else {
       return false;
@@ -652,51 +1014,175 @@ public class NoteIO
     Note note = null;
     
     if (FileUtils.isGoodInputFile(noteFile)) {
-      FileName noteFileName = new FileName(noteFile);
-      String fileNameIn = "";
-      if (syncPrefix != null
-          && syncPrefix.length() > 0
-          && noteFileName.getBase().startsWith(syncPrefix)) {
-        fileNameIn = noteFileName.getBase().substring(syncPrefix.length());
-      } else {
-        fileNameIn = noteFileName.getBase();
-      }
-      NoteBuilder builder = new NoteBuilder (noteParms);
-      note = new Note(noteParms.getRecDef());
-      note.setDiskLocation(noteFile);
-      
-      // Use the file name (minus the path and extension) as the default title
-      note.setTitle(fileNameIn);
-      
-      // Set the last modified date
-      Date lastModDate = new Date(noteFile.lastModified());
-      note.setLastModDate(lastModDate);
       
       // Get ready to read the text file
       FileInputStream fileInputStream = new FileInputStream(noteFile);
       InputStreamReader inReader = new InputStreamReader (fileInputStream);
       inBuffered = new BufferedReader (inReader);
       
-      this.builder = new NoteBuilder(noteParms);
-      
+      ArrayList<String> lines = new ArrayList<String>();
       String line = inBuffered.readLine();
-      
-      // For each line in the file
       while (line != null) {
-        NoteLine noteLine = new NoteLine
-          (noteParms, builder, note, line);
+        lines.add(line);
         line = inBuffered.readLine();
       }
       inBuffered.close();
-      if (! note.hasDateAdded()) {
-        // Use the last modified date as a default value for the Date Added field
-        note.setDateAdded(StringDate.YMDHMS_FORMAT.format(lastModDate));
+      note = buildNote(noteFile, syncPrefix, noteFile.lastModified(), lines);
+    }
+    
+    return note;
+  }
+  
+  /**
+   Build a note from the contents already read from a note file. 
+  
+   @param noteFile The file containing the note on disk. 
+   @param syncPrefix An optional prefix that might be appended to the front
+          of the note's title to form the file name. 
+   @param lastModified The time the file was last modified. 
+   @param contents The bytes read from the file. 
+  
+   @return A Note object. 
+  */
+  Note getNote(File noteFile, String syncPrefix, long lastModified, 
+      byte[] contents) 
+        throws IOException {
+    return buildNote(noteFile, syncPrefix, lastModified, 
+        NoteFileReader.toLines(contents));
+  }
+  
+  /**
+   Build a note from the lines read from a note file. 
+  
+   @param noteFile The file containing the note on disk. 
+   @param syncPrefix An optional prefix that might be appended to the front
+          of the note's title to form the file name. 
+   @param lastModified The time the file was last modified. 
+   @param lines The lines of text read from the file. 
+  
+   @return A Note object. 
+  */
+  private Note buildNote(File noteFile, String syncPrefix, 
+      long lastModified, List<String> lines) {
+    
+    Note note = startNote(noteFile, syncPrefix, lastModified);
+
+    // For each line in the file
+    for (String line : lines) {
+      NoteLine noteLine = new NoteLine
+        (noteParms, builder, note, line);
+    }
+    
+    finishNote(note, lastModified);
+    return note;
+  }
+  
+  /**
+   Build a note from the lines of a note file, already scanned on another 
+   thread. Storing the lines here, in the order the files are found, means 
+   that fields are added to the record definition in the same order as 
+   when each line is scanned and stored in turn. 
+  
+   @param noteFile The file containing the note on disk. 
+   @param lastModified The time the file was last modified. 
+   @param lines The scanned lines of the file. 
+  
+   @return A Note object. 
+  */
+  private Note buildScannedNote(File noteFile, long lastModified, 
+      List<NoteLine> lines) {
+    
+    Note note = startNote(noteFile, "", lastModified);
+    
+    for (NoteLine noteLine : lines) {
+      noteLine.storeLine(noteParms, builder, note);
+    }
+    
+    finishNote(note, lastModified);
+    return note;
+  }
+  
+  /**
+   Rebuild a note from the field values saved in a snapshot. Each value is
+   stored just as it would have been had its line been read from the file, 
+   so that the note is the same as one built from the file itself. 
+  
+   @param noteFile The file containing the note on disk. 
+   @param syncPrefix An optional prefix that might be appended to the front
+          of the note's title to form the file name. 
+   @param lastModified The time the file was last modified. 
+   @param entry The snapshot entry for the note. 
+  
+   @return A Note object. 
+  */
+  private Note buildNote(File noteFile, String syncPrefix, 
+      long lastModified, NoteSnapshot.Entry entry) {
+    
+    Note note = startNote(noteFile, syncPrefix, lastModified);
+    
+    // For each field saved in the snapshot
+    for (int i = 0; i < entry.getNumberOfFields(); i++) {
+      DataFieldDefinition fieldDef 
+          = noteParms.checkForFieldName(entry.getName(i));
+      if (fieldDef == null) {
+        note.setField(entry.getName(i), entry.getValue(i));
+      } else {
+        NoteLine.storeField
+            (noteParms, builder, note, fieldDef, entry.getValue(i));
       }
     }
     
+    finishNote(note, lastModified);
+    return note;
+  }
+  
+  /**
+   Start building a note, before its contents are stored. 
+  
+   @param noteFile The file containing the note on disk. 
+   @param syncPrefix An optional prefix that might be appended to the front
+          of the note's title to form the file name. 
+   @param lastModified The time the file was last modified. 
+  
+   @return A Note object, with a default title. 
+  */
+  private Note startNote(File noteFile, String syncPrefix, long lastModified) {
+    
+    FileName noteFileName = new FileName(noteFile);
+    String fileNameIn = "";
+    if (syncPrefix != null
+        && syncPrefix.length() > 0
+        && noteFileName.getBase().startsWith(syncPrefix)) {
+      fileNameIn = noteFileName.getBase().substring(syncPrefix.length());
+    } else {
+      fileNameIn = noteFileName.getBase();
+    }
+    Note note = new Note(noteParms.getRecDef());
+    note.setDiskLocation(noteFile);
+
+    // Use the file name (minus the path and extension) as the default title
+    note.setTitle(fileNameIn);
+
+    // Set the last modified date
+    note.setLastModDate(new Date(lastModified));
+
+    this.builder = new NoteBuilder(noteParms);
     return note;
   }
   
+  /**
+   Finish building a note, once its contents have been stored. 
+  
+   @param note The note being built. 
+   @param lastModified The time the file was last modified. 
+  */
+  private void finishNote(Note note, long lastModified) {
+    if (! note.hasDateAdded()) {
+      // Use the last modified date as a default value for the Date Added field
+      note.setDateAdded(StringDate.YMDHMS_FORMAT.format(new Date(lastModified)));
+    }
+  }
+  
   /**
    Read one note the passed line reader and return it as a note object. 
   
@@ -1112,6 +1598,76 @@ public class NoteIO
     return dataLogging;
   }
   
+  /**
+     Inner class to define a note file, or a folder, found while 
+     scanning a collection. 
+   */
+  class NoteFileEntry {
+    Path                  path;
+    String                relativePath = "";
+    long                  size = 0;
+    long                  lastModified = 0;
+    NoteSnapshot.Entry    cached = null;
+    boolean               folder = false;
+    Future<List<NoteLine>> lines = null;
+    
+    NoteFileEntry (Path path, long lastModified, boolean folder) {
+      this.path = path;
+      this.lastModified = lastModified;
+      this.folder = folder;
+    } // NoteFileEntry constructor
+  } // end NoteFileEntry inner class
+  
+  /**
+     Inner class to read all the lines of a note file, and scan each one, 
+     returning null if the file may not be read. The scanned lines are 
+     stored in a note later, on the loading thread. 
+   */
+  static class NoteFileReader 
+      implements Callable<List<NoteLine>> {
+    
+    private Path path;
+    
+    NoteFileReader (Path path) {
+      this.path = path;
+    }
+    
+    public List<NoteLine> call () 
+        throws IOException {
+      byte[] bytes;
+      try {
+        bytes = Files.readAllBytes (path);
+      } catch (AccessDeniedException e) {
+        return null;
+      } catch (NoSuchFileException e) {
+        return null;
+      }
+      List<String> lines = toLines (bytes);
+      ArrayList<NoteLine> noteLines = new ArrayList<NoteLine>(lines.size());
+      for (String line : lines) {
+        noteLines.add (new NoteLine (line));
+      }
+      return noteLines;
+    }
+    
+    /**
+     Split the contents of a note file into lines, decoding them with the 
+     platform's default character set, as a FileReader would. 
+    */
+    static List<String> toLines (byte[] bytes) 
+        throws IOException {
+      BufferedReader reader = new BufferedReader 
+          (new StringReader (new String (bytes, Charset.defaultCharset())));
+      ArrayList<String> lines = new ArrayList<String>();
+      String line = reader.readLine();
+      while (line != null) {
+        lines.add (line);
+        line = reader.readLine();
+      }
+      return lines;
+    }
+  } // end NoteFileReader inner class
+  
   /**
      Inner class to define a directory to be processed.
    */
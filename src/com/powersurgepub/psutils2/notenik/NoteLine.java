@@ -25,7 +25,8 @@ package com.powersurgepub.psutils2.notenik;
 /**
  One line of note data, following MultiMarkdown conventions. The line will be
  parsed, and its contents will be appropriately stored in the passed 
- Note object. 
+ Note object. A line may also be scanned first, on its own, and stored in a
+ note later, so that the scanning can be done on another thread. 
 
  @author Herb Bowie
  */
@@ -50,18 +51,30 @@ public class NoteLine {
     setLine(noteParms, builder, note, line);
   }
   
+  /**
+   Scan a line, without yet storing its contents in a note. The scan uses 
+   nothing but the line itself, so it may be done on any thread. 
+  
+   @param line The line to be scanned. 
+  */
+  NoteLine (String line) {
+    this.line = line;
+    scanStartAndEndOfLine();
+  }
+  
   public void setLine (NoteParms noteParms, NoteBuilder builder, Note note, String line) {
     this.line = line;
-    parseStartAndEndOfLine(noteParms, builder, note);
+    scanStartAndEndOfLine();
+    storeLine(noteParms, builder, note);
   } // end setLine method
   
-  private void parseStartAndEndOfLine(NoteParms noteParms, NoteBuilder builder, Note note) {
+  /**
+   Analyze the leading and trailing white space and punctuation on the 
+   line. 
+  */
+  private void scanStartAndEndOfLine() {
     
     if (line != null) {
-      builder.incrementLineNumber();
-      builder.addToFileSize(line.length() + 1);
-      
-      boolean contentStored = false;
       
       first = 0;
       
@@ -176,12 +189,6 @@ public class NoteLine {
         }
       }
       
-      if (getFirstNoteLineLeadingSymbol().isH1() && builder.hasLastLine()) {
-        note.setTitle(builder.getLastLine());
-        builder.setLastStringBuilder(null);
-        contentStored = true;
-      }
-      
       // Now that we've processed leading and trailing punctuation, let's 
       // skip past any more white space on the front or end of the line
       while (first <= last
@@ -197,6 +204,30 @@ public class NoteLine {
       if (first <= last && headingLevel > 0) {
         setHeadingLevel(headingLevel);
       }
+    } // end if line not null
+  } // end of scanStartAndEndOfLine method
+  
+  /**
+   Store the contents of a scanned line in a note, in the order in which 
+   the lines appear in the note's file. 
+  
+   @param noteParms The parameters for the collection. 
+   @param builder   The state of the note being built. 
+   @param note      The note in which the contents are to be stored. 
+  */
+  void storeLine(NoteParms noteParms, NoteBuilder builder, Note note) {
+    
+    if (line != null) {
+      builder.incrementLineNumber();
+      builder.addToFileSize(line.length() + 1);
+      
+      boolean contentStored = false;
+      
+      if (getFirstNoteLineLeadingSymbol().isH1() && builder.hasLastLine()) {
+        note.setTitle(builder.getLastLine());
+        builder.setLastStringBuilder(null);
+        contentStored = true;
+      }
       
       int endOfFirstWord = first;
       
@@ -235,110 +266,7 @@ public class NoteLine {
             CommonName metaKeyCommon = fieldDef.getCommonName();
             metaKey = metaKeyCommon.getCommonForm();
             builder.setLastStringBuilder(null);
-            
-            if (NoteParms.isTitle(metaKeyCommon)) {
-              note.setTitle(getMetaData());
-              builder.setLastStringBuilder(null);
-            }
-            else
-            if (NoteParms.isAuthor(metaKeyCommon)) {
-              note.setAuthor(getMetaData());
-              builder.setLastStringBuilder(null);
-            }
-            else
-            if (NoteParms.isDate(metaKeyCommon)) {
-              note.setDate(getMetaData());
-              builder.setLastStringBuilder(null);
-            }
-            else
-            if (NoteParms.isRecurs(metaKeyCommon)) {
-              note.setRecurs(getMetaData());
-              builder.setLastStringBuilder(null);
-            }
-            else
-            if (NoteParms.isLink(metaKeyCommon)) {
-              note.setLink(getMetaData());
-              builder.setLastStringBuilder(null);
-            }
-            else
-            if (NoteParms.isTags(metaKeyCommon)) {
-              note.setTags(getMetaData());
-              builder.setLastStringBuilder(null);
-            }
-            else
-            if (NoteParms.isRating(metaKeyCommon)) {
-              note.setRating(getMetaData());
-              builder.setLastStringBuilder(null);
-            }
-            else
-            if (NoteParms.isType(metaKeyCommon)) {
-              note.setType(getMetaData());
-              builder.setLastStringBuilder(null);
-            }
-            else
-            if (NoteParms.isStatus(metaKeyCommon)) {
-              note.setStatus(getMetaData());
-              if (noteParms.isTemplate()) {
-                noteParms.setItemStatusConfig(getMetaData());
-              }
-              builder.setLastStringBuilder(null);
-            }
-            else 
-            if (NoteParms.isSeq(metaKeyCommon)) {
-              note.setSeq(getMetaData());
-              builder.setLastStringBuilder(null);
-            } 
-            else
-            if (NoteParms.isIndex(metaKeyCommon)) {
-              note.setIndex(getMetaData());
-              builder.setLastStringBuilder(null);
-            }
-            else
-              if (NoteParms.isDateAdded(metaKeyCommon)) {
-                note.setDateAdded(getMetaData());
-                builder.setLastStringBuilder(null);
-              }
-            else
-            if (NoteParms.isCode(metaKeyCommon)) {
-              note.setCode(getMetaData());
-              builder.setLastStringBuilder(note.getCodeAsDataValue());
-            }
-            else
-            if (NoteParms.isTeaser(metaKeyCommon)) {
-              note.setTeaser(getMetaData());
-              builder.setLastStringBuilder(note.getTeaserAsDataValue());
-            }
-            else
-            if (NoteParms.isBody(metaKeyCommon)) {
-              note.setBody(getMetaData());
-              builder.setLastStringBuilder(note.getBodyAsDataValue());
-              builder.setBodyStarted(true);
-            } 
-            else
-            {
-              // fieldDef.setTypeFromName();
-              if (noteParms.isTemplate()) {
-                String data = getMetaData();
-                int typeDelimLeft = data.indexOf('<');
-                if (typeDelimLeft >= 0) {
-                  int typeDelimRight = data.indexOf('>', typeDelimLeft + 1);
-                  if (typeDelimRight > typeDelimLeft) {
-                    String type = data.substring
-                        (typeDelimLeft + 1, typeDelimRight).trim();
-                    String typeCommon = StringUtils.commonName(type);
-                    if (typeCommon.equals("3")
-                        || typeCommon.equals("builder")
-                        || typeCommon.equals("longtext")) {
-                      fieldDef.setType(DataFieldDefinition.STRING_BUILDER_TYPE);
-                    }
-                  }
-                }
-              }
-              DataValueStringBuilder dataValue = new DataValueStringBuilder(getMetaData());
-              DataField dataField = new DataField (fieldDef, dataValue);
-              note.setField(fieldDef.getProperName(), dataValue.toString());
-              builder.setLastStringBuilder(dataValue);
-            }
+            storeField(noteParms, builder, note, fieldDef, getMetaData());
             contentStored = true;
           }  // end if valid metadata key found
         } // end if colon found
@@ -378,7 +306,127 @@ public class NoteLine {
         }
       } // End if content not yet stored
     } // end if line not null
-  } // end of parseStartAndEndOfLine method
+  } // end of storeLine method
+  
+  /**
+   Store the value of a metadata field in a note, using the note's own 
+   setter for fields of which it has special knowledge. 
+  
+   @param noteParms The parameters for the collection. 
+   @param builder   The builder tracking the field to which any following
+                    lines are to be appended. 
+   @param note      The note in which the value is to be stored. 
+   @param fieldDef  The definition of the field. 
+   @param data      The value to be stored. 
+  */
+  public static void storeField (NoteParms noteParms, NoteBuilder builder, 
+      Note note, DataFieldDefinition fieldDef, String data) {
+    
+    CommonName metaKeyCommon = fieldDef.getCommonName();
+    
+    if (NoteParms.isTitle(metaKeyCommon)) {
+      note.setTitle(data);
+      builder.setLastStringBuilder(null);
+    }
+    else
+    if (NoteParms.isAuthor(metaKeyCommon)) {
+      note.setAuthor(data);
+      builder.setLastStringBuilder(null);
+    }
+    else
+    if (NoteParms.isDate(metaKeyCommon)) {
+      note.setDate(data);
+      builder.setLastStringBuilder(null);
+    }
+    else
+    if (NoteParms.isRecurs(metaKeyCommon)) {
+      note.setRecurs(data);
+      builder.setLastStringBuilder(null);
+    }
+    else
+    if (NoteParms.isLink(metaKeyCommon)) {
+      note.setLink(data);
+      builder.setLastStringBuilder(null);
+    }
+    else
+    if (NoteParms.isTags(metaKeyCommon)) {
+      note.setTags(data);
+      builder.setLastStringBuilder(null);
+    }
+    else
+    if (NoteParms.isRating(metaKeyCommon)) {
+      note.setRating(data);
+      builder.setLastStringBuilder(null);
+    }
+    else
+    if (NoteParms.isType(metaKeyCommon)) {
+      note.setType(data);
+      builder.setLastStringBuilder(null);
+    }
+    else
+    if (NoteParms.isStatus(metaKeyCommon)) {
+      note.setStatus(data);
+      if (noteParms.isTemplate()) {
+        noteParms.setItemStatusConfig(data);
+      }
+      builder.setLastStringBuilder(null);
+    }
+    else 
+    if (NoteParms.isSeq(metaKeyCommon)) {
+      note.setSeq(data);
+      builder.setLastStringBuilder(null);
+    } 
+    else
+    if (NoteParms.isIndex(metaKeyCommon)) {
+      note.setIndex(data);
+      builder.setLastStringBuilder(null);
+    }
+    else
+      if (NoteParms.isDateAdded(metaKeyCommon)) {
+        note.setDateAdded(data);
+        builder.setLastStringBuilder(null);
+      }
+    else
+    if (NoteParms.isCode(metaKeyCommon)) {
+      note.setCode(data);
+      builder.setLastStringBuilder(note.getCodeAsDataValue());
+    }
+    else
+    if (NoteParms.isTeaser(metaKeyCommon)) {
+      note.setTeaser(data);
+      builder.setLastStringBuilder(note.getTeaserAsDataValue());
+    }
+    else
+    if (NoteParms.isBody(metaKeyCommon)) {
+      note.setBody(data);
+      builder.setLastStringBuilder(note.getBodyAsDataValue());
+      builder.setBodyStarted(true);
+    } 
+    else
+    {
+      // fieldDef.setTypeFromName();
+      if (noteParms.isTemplate()) {
+        int typeDelimLeft = data.indexOf('<');
+        if (typeDelimLeft >= 0) {
+          int typeDelimRight = data.indexOf('>', typeDelimLeft + 1);
+          if (typeDelimRight > typeDelimLeft) {
+            String type = data.substring
+                (typeDelimLeft + 1, typeDelimRight).trim();
+            String typeCommon = StringUtils.commonName(type);
+            if (typeCommon.equals("3")
+                || typeCommon.equals("builder")
+                || typeCommon.equals("longtext")) {
+              fieldDef.setType(DataFieldDefinition.STRING_BUILDER_TYPE);
+            }
+          }
+        }
+      }
+      DataValueStringBuilder dataValue = new DataValueStringBuilder(data);
+      DataField dataField = new DataField (fieldDef, dataValue);
+      note.setField(fieldDef.getProperName(), dataValue.toString());
+      builder.setLastStringBuilder(dataValue);
+    }
+  } // end of storeField method
   
   private void addNoteLineLeadingSymbol() {
     leadingSymbols.add(leadingSymbol);
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2012 - 2017 Herb Bowie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.powersurgepub.psutils2.notenik;
+
+  import com.powersurgepub.psutils2.files.*;
+  import com.powersurgepub.psutils2.logging.*;
+  import com.powersurgepub.psutils2.records.*;
+
+  import java.io.*;
+  import java.nio.*;
+  import java.util.*;
+
+/**
+ A compact binary snapshot of the notes in a collection, stored in a hidden
+ file within the collection folder. For each note file, the snapshot records
+ the file's path (relative to the collection folder), its size and last
+ modified time, and the name and value of each of the note's fields. When
+ a collection is opened, any note file whose size and last modified time
+ still match those in the snapshot can be rebuilt from the snapshot,
+ without being read or parsed again. <p>
+
+ The snapshot file begins with an identifier, a format version, the
+ type of collection and the names of the fields defined for the collection
+ before any notes were loaded, and ends with a checksum. If any of these 
+ fail to match, then the snapshot is ignored, and a new one written once the
+ collection has been loaded.
+
+ @author Herb Bowie
+ */
+public class NoteSnapshot {
+
+  /** Name of the snapshot file within the collection folder. */
+  public static final String  FILE_NAME       = ".notenik-snapshot";
+
+  /** Identifies a snapshot file ("NNKS"). */
+  public static final int     MAGIC           = 0x4E4E4B53;
+
+  /** Version of the snapshot format. */
+  public static final int     VERSION         = 1;
+
+  private             File                    snapshotFile;
+  private             int                     noteType;
+  private             String                  fieldNames;
+
+  /** Entries read from the existing snapshot, keyed by relative path. */
+  private             HashMap<String, Entry>  previous
+      = new HashMap<String, Entry>();
+
+  /** Entries to be written to the new snapshot, in load order. */
+  private             ArrayList<Entry>        current
+      = new ArrayList<Entry>();
+
+  /** Number of entries taken from the previous snapshot. */
+  private             int                     reused = 0;
+
+  /**
+   Create a snapshot for the notes in the given collection folder.
+
+   @param folder   The collection folder.
+   @param noteType The type of collection, as defined in NoteParms.
+   @param recDef   The record definition for the collection, before any 
+                   notes have been loaded. 
+  */
+  public NoteSnapshot (File folder, int noteType, RecordDefinition recDef) {
+    this.noteType = noteType;
+    StringBuilder names = new StringBuilder();
+    for (int i = 0; i < recDef.getNumberOfFields(); i++) {
+      names.append (recDef.getDef(i).getProperName());
+      names.append ('\t');
+    }
+    fieldNames = names.toString();
+    snapshotFile = new File (folder, FILE_NAME);
+  }
+
+  /**
+   Read the existing snapshot file, if there is one.
+
+   @return True if a valid snapshot was read; false if there was no
+           snapshot, or if it was unusable.
+  */
+  public boolean read () {
+    previous = new HashMap<String, Entry>();
+    if (! snapshotFile.isFile()) {
+      return false;
+    }
+    try {
+      ByteBuffer buffer = CheckedFile.map (snapshotFile, MAGIC, VERSION);
+      if (buffer.getInt() != noteType
+          || (! CheckedFile.getString (buffer).equals (fieldNames))) {
+        throw new IOException ("Unrecognized format");
+      }
+      int count = buffer.getInt();
+      for (int i = 0; i < count; i++) {
+        Entry entry = new Entry (CheckedFile.getString (buffer),
+            buffer.getLong(), buffer.getLong());
+        int fieldCount = buffer.getInt();
+        for (int j = 0; j < fieldCount; j++) {
+          entry.names.add (CheckedFile.getString (buffer));
+          entry.values.add (CheckedFile.getString (buffer));
+        }
+        previous.put (entry.path, entry);
+      }
+    } catch (IOException | RuntimeException e) {
+      previous = new HashMap<String, Entry>();
+      Logger.getShared().recordEvent (LogEvent.MINOR,
+          "Note snapshot at " + snapshotFile.toString()
+            + " could not be used and will be rebuilt", false);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   Return the entry from the previous snapshot for the given note file,
+   if the file appears to be unchanged since the snapshot was taken.
+
+   @param path         The path to the note file, relative to the folder.
+   @param size         The current size of the file.
+   @param lastModified The current last modified time of the file.
+
+   @return The matching entry, or null if the file is new or changed.
+  */
+  public Entry get (String path, long size, long lastModified) {
+    Entry entry = previous.get (path);
+    if (entry != null
+        && entry.size == size
+        && entry.lastModified == lastModified) {
+      return entry;
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   Add an entry from the previous snapshot to the new one.
+
+   @param entry An unchanged entry returned by get.
+  */
+  public void add (Entry entry) {
+    current.add (entry);
+    reused++;
+  }
+
+  /**
+   Add a freshly loaded note to the new snapshot.
+
+   @param path         The path to the note file, relative to the folder.
+   @param size         The size of the file.
+   @param lastModified The last modified time of the file.
+   @param note         The note loaded from the file.
+  */
+  public void add (String path, long size, long lastModified, Note note) {
+    Entry entry = new Entry (path, size, lastModified);
+    for (int i = 0; i < note.getNumberOfFields(); i++) {
+      DataField field = note.getField (i);
+      String data = field.getData();
+      if (data != null && data.length() > 0) {
+        entry.names.add (field.getProperName());
+        entry.values.add (data);
+      }
+    }
+    current.add (entry);
+  }
+
+  /**
+   Does the new snapshot differ from the one previously read?
+
+   @return True if any note files have been added, changed or removed.
+  */
+  public boolean isChanged () {
+    return (reused != current.size() || reused != previous.size());
+  }
+
+  /**
+   Write the new snapshot, replacing the previous one. The snapshot is
+   first written to a temporary file, which then replaces the snapshot
+   file, so that an interrupted write never leaves a partial snapshot.
+
+   @return True if written successfully.
+  */
+  public boolean write () {
+    try {
+      CheckedFile out = new CheckedFile (MAGIC, VERSION);
+      out.writeInt (noteType);
+      out.writeString (fieldNames);
+      out.writeInt (current.size());
+      for (Entry entry : current) {
+        out.writeString (entry.path);
+        out.writeLong (entry.size);
+        out.writeLong (entry.lastModified);
+        out.writeInt (entry.names.size());
+        for (int j = 0; j < entry.names.size(); j++) {
+          out.writeString (entry.names.get (j));
+          out.writeString (entry.values.get (j));
+        }
+      }
+      out.save (snapshotFile);
+    } catch (IOException e) {
+      Logger.getShared().recordEvent (LogEvent.MINOR,
+          "Note snapshot could not be written to " + snapshotFile.toString(),
+          false);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   Return the number of notes taken from the previous snapshot.
+
+   @return The number of unchanged notes.
+  */
+  public int getReused () {
+    return reused;
+  }
+
+  /**
+   One note file, as recorded in the snapshot.
+  */
+  public static class Entry {
+
+    private String              path;
+    private long                size;
+    private long                lastModified;
+    private ArrayList<String>   names = new ArrayList<String>();
+    private ArrayList<String>   values = new ArrayList<String>();
+
+    Entry (String path, long size, long lastModified) {
+      this.path = path;
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+
+    /**
+     Return the number of fields with values.
+    */
+    public int getNumberOfFields () {
+      return names.size();
+    }
+
+    /**
+     Return the proper name of the indicated field.
+    */
+    public String getName (int i) {
+      return names.get (i);
+    }
+
+    /**
+     Return the value of the indicated field.
+    */
+    public String getValue (int i) {
+      return values.get (i);
+    }
+  } // end inner class Entry
+
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2012 - 2017 Herb Bowie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.powersurgepub.psutils2.notenik;
+
+  import com.powersurgepub.psutils2.files.*;
+  import com.powersurgepub.psutils2.logging.*;
+
+  import java.io.*;
+  import java.nio.*;
+  import java.nio.file.*;
+  import java.security.*;
+  import java.util.*;
+
+/**
+ Fingerprints of the files in a sync folder, as of the last time the
+ collection was synced with that folder, stored in a hidden file within the
+ collection folder. Each fingerprint records a file's size, its last
+ modified time and, if the file was read, a digest of its contents. A sync
+ file whose size and last modified time still match its fingerprint has not
+ changed since the last sync, and need not be opened; one whose time has
+ changed but whose contents still match its digest need not be parsed. <p>
+
+ The fingerprint file begins with an identifier, a format version, the
+ path to the sync folder and the sync prefix, and ends with a checksum. If
+ any of these fail to match, then the fingerprints are ignored, and every
+ sync file is treated as new.
+
+ @author Herb Bowie
+ */
+public class NoteSyncFingerprints {
+
+  /** Name of the fingerprints file within the collection folder. */
+  public static final String  FILE_NAME       = ".notenik-sync";
+
+  /** Identifies a fingerprints file ("NNKF"). */
+  public static final int     MAGIC           = 0x4E4E4B46;
+
+  /** Version of the fingerprints format. */
+  public static final int     VERSION         = 1;
+
+  /** Algorithm used to digest file contents. */
+  public static final String  DIGEST          = "SHA-1";
+
+  private static final byte[] NO_DIGEST       = new byte[0];
+
+  private             File                    fingerprintsFile;
+  private             String                  syncFolder;
+  private             String                  syncPrefix;
+
+  /** Fingerprints read from disk, keyed by file name. */
+  private             HashMap<String, Fingerprint> previous
+      = new HashMap<String, Fingerprint>();
+
+  /** Fingerprints to be written, keyed by file name. */
+  private             TreeMap<String, Fingerprint> current
+      = new TreeMap<String, Fingerprint>();
+
+  /**
+   Create the fingerprints for syncing the given collection with the given
+   sync folder.
+
+   @param folder     The collection folder.
+   @param syncFolder The path to the sync folder.
+   @param syncPrefix The prefix identifying synced files.
+  */
+  public NoteSyncFingerprints (File folder, String syncFolder,
+      String syncPrefix) {
+    this.syncFolder = syncFolder;
+    this.syncPrefix = syncPrefix;
+    fingerprintsFile = new File (folder, FILE_NAME);
+  }
+
+  /**
+   Read the fingerprints saved by the last sync, if there are any.
+
+   @return True if fingerprints were read; false if there were none, or if
+           they were unusable.
+  */
+  public boolean read () {
+    previous = new HashMap<String, Fingerprint>();
+    if (! fingerprintsFile.isFile()) {
+      return false;
+    }
+    try {
+      ByteBuffer buffer = CheckedFile.read (fingerprintsFile, MAGIC, VERSION);
+      if ((! CheckedFile.getString (buffer).equals (syncFolder))
+          || (! CheckedFile.getString (buffer).equals (syncPrefix))) {
+        throw new IOException ("Unrecognized format");
+      }
+      int count = buffer.getInt();
+      for (int i = 0; i < count; i++) {
+        String name = CheckedFile.getString (buffer);
+        long size = buffer.getLong();
+        long lastModified = buffer.getLong();
+        byte[] digest = CheckedFile.getBytes (buffer);
+        previous.put (name, new Fingerprint (size, lastModified, digest));
+      }
+    } catch (IOException | RuntimeException e) {
+      previous = new HashMap<String, Fingerprint>();
+      Logger.getShared().recordEvent (LogEvent.MINOR,
+          "Sync fingerprints at " + fingerprintsFile.toString()
+            + " could not be used", false);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   Has the named sync file been left untouched since the last sync?
+
+   @param name         The name of the file within the sync folder.
+   @param size         The current size of the file.
+   @param lastModified The current last modified time of the file.
+
+   @return True if the file's size and time match its fingerprint.
+  */
+  public boolean isUnchanged (String name, long size, long lastModified) {
+    Fingerprint fingerprint = previous.get (name);
+    return (fingerprint != null
+        && fingerprint.size == size
+        && fingerprint.lastModified == lastModified);
+  }
+
+  /**
+   Do the contents of the named sync file match those recorded by the
+   last sync?
+
+   @param name   The name of the file within the sync folder.
+   @param digest A digest of the file's current contents.
+
+   @return True if the file's contents are known to be unchanged; false if
+           they differ, or if no digest was recorded.
+  */
+  public boolean isSameContent (String name, byte[] digest) {
+    Fingerprint fingerprint = previous.get (name);
+    return (fingerprint != null
+        && fingerprint.digest.length > 0
+        && MessageDigest.isEqual (fingerprint.digest, digest));
+  }
+
+  /**
+   Carry the previous fingerprint for the named file forward unchanged.
+
+   @param name The name of the file within the sync folder.
+  */
+  public void keep (String name) {
+    Fingerprint fingerprint = previous.get (name);
+    if (fingerprint != null) {
+      current.put (name, fingerprint);
+    }
+  }
+
+  /**
+   Record a new fingerprint for the named file.
+
+   @param name         The name of the file within the sync folder.
+   @param size         The size of the file.
+   @param lastModified The last modified time of the file.
+   @param digest       A digest of the file's contents, or null if the
+                       file was not read.
+  */
+  public void put (String name, long size, long lastModified, byte[] digest) {
+    if (digest == null) {
+      digest = NO_DIGEST;
+    }
+    current.put (name, new Fingerprint (size, lastModified, digest));
+  }
+
+  /**
+   Record a new fingerprint for a file just written to the sync folder.
+
+   @param file The file written.
+  */
+  public void put (File file) {
+    try {
+      byte[] contents = Files.readAllBytes (file.toPath());
+      put (file.getName(), contents.length, file.lastModified(),
+          digest (contents));
+    } catch (IOException e) {
+      current.remove (file.getName());
+    }
+  }
+
+  /**
+   Write the fingerprints recorded during this sync, replacing those
+   previously saved.
+
+   @return True if written successfully.
+  */
+  public boolean write () {
+    try {
+      CheckedFile out = new CheckedFile (MAGIC, VERSION);
+      out.writeString (syncFolder);
+      out.writeString (syncPrefix);
+      out.writeInt (current.size());
+      for (Map.Entry<String, Fingerprint> entry : current.entrySet()) {
+        Fingerprint fingerprint = entry.getValue();
+        out.writeString (entry.getKey());
+        out.writeLong (fingerprint.size);
+        out.writeLong (fingerprint.lastModified);
+        out.writeBytes (fingerprint.digest);
+      }
+      out.save (fingerprintsFile);
+    } catch (IOException e) {
+      Logger.getShared().recordEvent (LogEvent.MINOR,
+          "Sync fingerprints could not be written to "
+            + fingerprintsFile.toString(),
+          false);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   Return a digest of the given file contents.
+
+   @param contents The contents of a file.
+
+   @return The digest.
+  */
+  public static byte[] digest (byte[] contents) {
+    try {
+      return MessageDigest.getInstance (DIGEST).digest (contents);
+    } catch (NoSuchAlgorithmException e) {
+      return NO_DIGEST;
+    }
+  }
+
+  /**
+   The fingerprint of one sync file.
+  */
+  static class Fingerprint {
+
+    private long    size;
+    private long    lastModified;
+    private byte[]  digest;
+
+    Fingerprint (long size, long lastModified, byte[] digest) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.digest = digest;
+    }
+  } // end inner class Fingerprint
+
+}
@@ -30,23 +30,43 @@ public class WorkList
   }
 
   public void add(Note note) {
-    if (note.hasWorkTitle()) {
-      Work work = note.getWork();
-      registerValue (work.getTitle());
-      if (works.containsKey(work.getKey())) {
-        Work existingWork = works.get(work.getKey());
-        existingWork.mergeLatest(work);
-        note.getWork().mergeLatest(existingWork);
-      } else {
-        works.put(work.getKey(), work);
-      }
-    }
+    registerValues (note, getValues(note));
   }
 
   public void modify(Note note) {
+    registerValues (note, getValues(note));
+  }
+
+  public void remove(Note note) {
+    releaseValues (note);
+  }
+
+  /**
+   Add a batch of notes, updating the list just once. 
+
+   @param notes The notes to be added. 
+  */
+  public void addAll(List<Note> notes) {
+    IdentityHashMap<Note, List<String>> valuesByNote
+        = new IdentityHashMap<Note, List<String>>(notes.size());
+    for (Note note : notes) {
+      valuesByNote.put (note, getValues(note));
+    }
+    registerAll (valuesByNote);
+  }
+
+  /**
+   Record the note's work, merging it with any other occurrence of the same
+   work, and return the work title to be listed. 
+
+   @param note The note. 
+
+   @return The title of the note's work, or an empty list if the note has 
+           no work title. 
+  */
+  private List<String> getValues(Note note) {
     if (note.hasWorkTitle()) {
       Work work = note.getWork();
-      registerValue (work.getTitle());
       if (works.containsKey(work.getKey())) {
         Work existingWork = works.get(work.getKey());
         existingWork.mergeLatest(work);
@@ -54,13 +74,12 @@ public class WorkList
       } else {
         works.put(work.getKey(), work);
       }
+      return Collections.singletonList (work.getTitle());
+    } else {
+      return Collections.emptyList();
     }
   }
 
-  public void remove(Note note) {
-    // No need to do anything
-  }
-
   public Work getWork(String workTitle) {
     String workKey = StringUtils.commonName(workTitle);
     return works.get(workKey);
@@ -21,6 +21,7 @@ package com.powersurgepub.psutils2.records;
   import com.powersurgepub.psutils2.strings.*;
 
   import java.io.IOException;
+  import java.util.HashMap;
   import java.util.Vector;
   
   
@@ -73,6 +74,12 @@ public class DataDictionary
   /** A collection of DataFieldAlias objects. */
   private   Vector       aliases;
   
+  /** Index to the defs collection, keyed by the common form of each name. */
+  private   HashMap<String, Integer> defIndex;
+  
+  /** Index to the aliases collection, keyed by the common form of each alias. */
+  private   HashMap<String, Integer> aliasIndex;
+  
   /** An index for cycling through the definitions sequentially. */
   private   int          defNumber;
   
@@ -106,6 +113,8 @@ public class DataDictionary
   public DataDictionary () {
     defs = new Vector ();
     aliases = new Vector ();
+    defIndex = new HashMap<String, Integer>();
+    aliasIndex = new HashMap<String, Integer>();
     resetDefNumber();
   }
   
@@ -495,7 +504,7 @@ public class DataDictionary
                    be converted to a common name internally.
    */
   public DataFieldDefinition getDef (String name) {
-    CommonName common = new CommonName (name);
+    CommonName common = CommonName.getShared (name);
     return getDef (common);
   }
   
@@ -541,7 +550,7 @@ public class DataDictionary
                    which will be converted to its common form.
    */
   public int getDefNum (String name) {
-    CommonName common = new CommonName (name);
+    CommonName common = CommonName.getShared (name);
     return getDefNum (common);
   }
   
@@ -574,15 +583,11 @@ public class DataDictionary
    */
   public int getDefNum (CommonName inCommon) {
     CommonName common = getAliasOriginal (inCommon);
-    int i = 0;
-    while ((i < defs.size()) 
-      && (!(common.equals(getDef(i).getCommonName())))) {
-      i++;
-    }
-    if (i < defs.size()) {
-      return i;
-    } else {
+    Integer i = defIndex.get (common.getCommonForm());
+    if (i == null) {
       return GlobalConstants.NOT_FOUND;
+    } else {
+      return i.intValue();
     }
   }
   
@@ -611,6 +616,7 @@ public class DataDictionary
       } else {
         defs.addElement (new DataFieldDefinition (original.toString()));
       }
+      defIndex.put (original.getCommonForm(), seq);
     } 
     return seq;
   }
@@ -661,22 +667,16 @@ public class DataDictionary
                            the dictionary.
    */
   public int putAlias (DataFieldAlias inAliasObject) {
-    int i = 0;
-    boolean found = false;
-    CommonName inAlias = inAliasObject.getAlias();
-    while ((i < aliases.size()) && (! found)) {
-      DataFieldAlias currAlias = (DataFieldAlias)aliases.elementAt(i);
-      if (inAlias.equals(currAlias.getAlias())) {
-        found = true; 
-      } else {
-        i++;
-      }
-    }
-    if (found) {
+    String inAlias = inAliasObject.getAlias().getCommonForm();
+    Integer found = aliasIndex.get (inAlias);
+    int i;
+    if (found != null) {
+      i = found.intValue();
       aliases.setElementAt (inAliasObject, i);
     } else {
       i = aliases.size();
       aliases.addElement (inAliasObject);
+      aliasIndex.put (inAlias, i);
     }
     return i;
   }
@@ -692,7 +692,7 @@ public class DataDictionary
                      is desired.
    */
   public CommonName getAliasOriginal (String inAlias) {
-    CommonName commonAlias = new CommonName (inAlias);
+    CommonName commonAlias = CommonName.getShared (inAlias);
     return getAliasOriginal (commonAlias);
   }
 
@@ -707,19 +707,12 @@ public class DataDictionary
                          is desired, in CommonName format.
    */
   public CommonName getAliasOriginal (CommonName commonAlias) {
-    int i = 0;
-    boolean found = false;
-    DataFieldAlias currAlias;
-    while ((i < aliases.size()) && (! found)) {
-      currAlias = (DataFieldAlias)aliases.elementAt(i);
-      if (commonAlias.equals(currAlias.getAlias())) {
-        found = true; 
-      } else {
-        i++;
-      }
+    if (aliases.isEmpty()) {
+      return commonAlias;
     }
-    if (found) {
-      currAlias = (DataFieldAlias)aliases.elementAt(i);
+    Integer i = aliasIndex.get (commonAlias.getCommonForm());
+    if (i != null) {
+      DataFieldAlias currAlias = (DataFieldAlias)aliases.elementAt(i);
       return currAlias.getOriginal();
     } else {
       return commonAlias;
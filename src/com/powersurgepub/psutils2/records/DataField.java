@@ -753,18 +753,11 @@ public class DataField {
    */
   public int getColumnNumber (String inName) {
     int i = 0;
-    CommonName workName = new CommonName ("");
-    DataField workField = null;
-    DataFieldDefinition workDef;
-    CommonName searchName = new CommonName (inName);
+    CommonName searchName = CommonName.getShared (inName);
     while ((i < fields.size()) 
-      && (! searchName.equals (workName))) {
-      workField = (DataField)fields.get (i);
-      workDef = workField.getDef ();
-      workName = workDef.getCommonName ();
-      if (! searchName.equals (workName)) {
-        i++;
-      }
+      && (! searchName.equals 
+          (((DataField)fields.get (i)).getDef().getCommonName()))) {
+      i++;
     }
     if (i < fields.size()) {
       return i;
@@ -854,7 +847,7 @@ public class DataField {
    @return The data field with a matching field name. 
   */
   public DataField getField(int columnNumber, String inName) {
-    CommonName inNameCommon = new CommonName(inName);
+    CommonName inNameCommon = CommonName.getShared(inName);
     DataField workField = getField(columnNumber);
     if (! workField.getCommonFormOfName().equals(inNameCommon.getCommonForm())) {
       workField = getField(inName);
@@ -441,22 +441,18 @@ public class DataSet
    */
   public void setSequence (SequenceSpec seqSpec) {
     this.seqSpec = seqSpec;
-    boolean sorted = false;
-    int passes = 0;
-    DataRecord reci, recj;
-    while (! sorted) {
-      sorted = true;
-      for (int i = 0, j = 1; j < records.size(); i++, j++) {
-        reci = (DataRecord)records.get (i);
-        recj = (DataRecord)records.get (j);
-        if (reci.compareTo(recj, seqSpec) > 0) {
-          sorted = false;
-          records.set(i, recj);
-          records.set(j, reci);
-        } // end of comparison
-      } // end of one loop through Vector
-      passes++;
-    } // end of sorting operation
+    if (records.size() > 1) {
+      RecordSorter sorter = new RecordSorter (seqSpec);
+      List<DataRecord> sorted = sorter.sort (records);
+      // Leave the list, and anyone listening to it, alone if nothing moved
+      int i = 0;
+      while (i < sorted.size() && sorted.get (i) == records.get (i)) {
+        i++;
+      }
+      if (i < sorted.size()) {
+        records.setAll (sorted);
+      }
+    }
   } // end of setSequence method
   
   /**
@@ -651,6 +647,17 @@ public class DataSet
     checkMemory();
   }
   
+  /**
+     Replaces the contents of the set with the given records, in the 
+     given order, as a single change to the underlying list. 
+    
+     @param inRecs The records to be placed in the set. 
+   */
+  public void setAll (Collection<DataRecord> inRecs) {
+    records.setAll(inRecs);
+    checkMemory();
+  }
+  
   private void checkMemory() {
     if (! userWarnedOnMemory) {
       Runtime rt = Runtime.getRuntime();
@@ -47,6 +47,13 @@ public class RecordDefinition {
    */
   private   ArrayList       names;
   
+  /**
+     An index to the columns collection, keyed by the common form of 
+     each column's name. Built lazily, and discarded whenever columns
+     are removed.
+   */
+  private   HashMap<String, Integer> columnIndex = null;
+  
   /** An index to an entry in the columns collection. */
   private   int             columnNumber;
   
@@ -89,6 +96,7 @@ public class RecordDefinition {
    */
   public void copyDefs(RecordDefinition inRec) {
     this.dict = inRec.getDict();
+    columnIndex = null;
     int inRecIndex = 0;
     while (inRecIndex < inRec.getNumberOfFields()) {
       DataFieldDefinition inDef = inRec.getDef(inRecIndex);
@@ -167,7 +175,7 @@ public class RecordDefinition {
                     to its common form.
    */
   public int getColumnNumber (String inName) {
-    CommonName common = new CommonName (inName);
+    CommonName common = CommonName.getShared (inName);
     return getColumnNumber (common);
   }
   
@@ -196,15 +204,42 @@ public class RecordDefinition {
 
     CommonName common = dict.getAliasOriginal (inCommon);
 
-    int i = 0;
-    while ((i < columns.size()) 
-      && (!(common.equals(dict.getDef(getDefNum(i)).getCommonName())))) {
-      i++;
-    }
-    if (i < columns.size()) {
-      return i;
-    } else {
+    Integer i = getColumnIndex().get (common.getCommonForm());
+    if (i == null) {
       return GlobalConstants.NOT_FOUND;
+    } else {
+      return i.intValue();
+    }
+  }
+  
+  /**
+     Returns the index of column numbers keyed by common name, 
+     building it first if necessary. When more than one column has 
+     the same name, the first such column is indexed. 
+  
+     @return The column index. 
+   */
+  private HashMap<String, Integer> getColumnIndex () {
+    if (columnIndex == null) {
+      columnIndex = new HashMap<String, Integer>(columns.size() * 2);
+      for (int i = 0; i < columns.size(); i++) {
+        indexColumn (i);
+      }
+    }
+    return columnIndex;
+  }
+  
+  /**
+     Adds the given column to the column index, unless an earlier column
+     with the same name is already there. 
+  
+     @param i The column number to be indexed. 
+   */
+  private void indexColumn (int i) {
+    String commonForm 
+        = dict.getDef(getDefNum(i)).getCommonName().getCommonForm();
+    if (! columnIndex.containsKey (commonForm)) {
+      columnIndex.put (commonForm, i);
     }
   }
   
@@ -277,6 +312,9 @@ public class RecordDefinition {
     int i = columns.size();
     columns.add (column);
     names.add (inDef.getProperName());
+    if (columnIndex != null) {
+      indexColumn (i);
+    }
     return i;
   }
   
@@ -335,9 +373,9 @@ public class RecordDefinition {
    Remove all columns from the record definition. 
    */
   public void clear() {
-    while (columns.size() > 0) {
-      remove(columns.size() - 1);
-    }
+    columns.clear();
+    names.clear();
+    columnIndex = null;
   }
   
   /**
@@ -352,6 +390,7 @@ public class RecordDefinition {
       return null;
     } else {
       names.remove(i);
+      columnIndex = null;
       return columns.remove(i);
     }
   }
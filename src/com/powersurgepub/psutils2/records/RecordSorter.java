@@ -0,0 +1,234 @@
+/*
+ * Copyright 1999 - 2017 Herb Bowie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.powersurgepub.psutils2.records;
+
+  import java.util.*;
+  import java.util.concurrent.*;
+
+/**
+   A stable merge sort for a list of data records, ordered by a
+   sequence specification. The key fields for each record are pulled
+   out once, before sorting begins, so that each comparison need only
+   look at a compact array of fields. Large lists are sorted in parallel,
+   using a fork/join pool. <p>
+
+   The resulting order is the same as would be produced by repeatedly
+   comparing neighbouring records using DataRecord.compareTo
+   (DataRecord, SequenceSpec), with records having equal keys left in
+   their original order. <p>
+ */
+public class RecordSorter {
+
+  /** Lists with at least this many records will be sorted in parallel. */
+  public static final int   PARALLEL_THRESHOLD  = 8192;
+
+  /** Ranges with this many records or fewer will use an insertion sort. */
+  private static final int  INSERTION_THRESHOLD = 16;
+
+  /** Column numbers of the sequence fields, from major to minor. */
+  private    int[]              columns;
+
+  /** Ascending (or descending) indicator for each sequence field. */
+  private    boolean[]          ascending;
+
+  /** Key fields extracted from each record, indexed by original position. */
+  private    DataField[][]      keys;
+
+  /**
+     Constructs a sorter for the given sequence specification.
+
+     @param seqSpec The sequence in which records are to be sorted.
+   */
+  public RecordSorter (SequenceSpec seqSpec) {
+    int numberOfFields = seqSpec.getNumberOfFields();
+    columns = new int [numberOfFields];
+    ascending = new boolean [numberOfFields];
+    for (int i = 0; i < numberOfFields; i++) {
+      SequenceField seqField = seqSpec.getField (i);
+      columns [i] = seqField.getColumnNumber();
+      ascending [i] = seqField.isAscending();
+    }
+  }
+
+  /**
+     Sorts the passed records, returning a new list in the desired sequence.
+     The passed list is not modified.
+
+     @param records The records to be sorted.
+
+     @return A new list containing the same records, in sorted order.
+   */
+  public List<DataRecord> sort (List<DataRecord> records) {
+
+    int n = records.size();
+    DataRecord[] recs = records.toArray (new DataRecord [n]);
+
+    // Extract the keys once for each record
+    keys = new DataField [n][];
+    for (int i = 0; i < n; i++) {
+      DataField[] key = new DataField [columns.length];
+      for (int k = 0; k < columns.length; k++) {
+        key [k] = recs [i].getField (columns [k]);
+      }
+      keys [i] = key;
+    }
+
+    // Sort an array of record indices
+    int[] index = new int [n];
+    for (int i = 0; i < n; i++) {
+      index [i] = i;
+    }
+    if (n > 1 && columns.length > 0) {
+      int[] work = new int [n];
+      if (n >= PARALLEL_THRESHOLD) {
+        ForkJoinPool.commonPool().invoke
+            (new SortTask (index, work, 0, n));
+      } else {
+        mergeSort (index, work, 0, n);
+      }
+    }
+
+    ArrayList<DataRecord> sorted = new ArrayList<DataRecord> (n);
+    for (int i = 0; i < n; i++) {
+      sorted.add (recs [index [i]]);
+    }
+    keys = null;
+    return sorted;
+  } // end sort method
+
+  /**
+     Sorts the given range of the index array, using the work array for
+     temporary storage.
+
+     @param index The record indices to be sorted.
+     @param work  A work array, at least as large as the index array.
+     @param from  The first position to be sorted (inclusive).
+     @param to    The last position to be sorted (exclusive).
+   */
+  private void mergeSort (int[] index, int[] work, int from, int to) {
+    if (to - from <= INSERTION_THRESHOLD) {
+      insertionSort (index, from, to);
+    } else {
+      int mid = (from + to) >>> 1;
+      mergeSort (index, work, from, mid);
+      mergeSort (index, work, mid, to);
+      merge (index, work, from, mid, to);
+    }
+  }
+
+  /**
+     A simple insertion sort, used for small ranges. Equal records are
+     never moved past one another.
+   */
+  private void insertionSort (int[] index, int from, int to) {
+    for (int i = from + 1; i < to; i++) {
+      int next = index [i];
+      int j = i - 1;
+      while (j >= from && compare (index [j], next) > 0) {
+        index [j + 1] = index [j];
+        j--;
+      }
+      index [j + 1] = next;
+    }
+  }
+
+  /**
+     Merges two adjacent, sorted ranges. When keys are equal, the record
+     from the lower range is taken first, keeping the sort stable.
+   */
+  private void merge (int[] index, int[] work, int from, int mid, int to) {
+
+    // No merge needed if the two ranges are already in order
+    if (compare (index [mid - 1], index [mid]) <= 0) {
+      return;
+    }
+    System.arraycopy (index, from, work, from, to - from);
+    int i = from;
+    int j = mid;
+    int k = from;
+    while (i < mid && j < to) {
+      if (compare (work [i], work [j]) <= 0) {
+        index [k++] = work [i++];
+      } else {
+        index [k++] = work [j++];
+      }
+    }
+    while (i < mid) {
+      index [k++] = work [i++];
+    }
+    while (j < to) {
+      index [k++] = work [j++];
+    }
+  } // end merge method
+
+  /**
+     Compares the keys for two records, in the same way as
+     DataRecord.compareTo (DataRecord, SequenceSpec).
+
+     @param rec1 Original position of the first record.
+     @param rec2 Original position of the second record.
+
+     @return Zero if keys are equal, negative if the first record
+             belongs before the second, positive if it belongs after.
+   */
+  private int compare (int rec1, int rec2) {
+    DataField[] key1 = keys [rec1];
+    DataField[] key2 = keys [rec2];
+    int compareResult = 0;
+    for (int k = 0; k < key1.length && compareResult == 0; k++) {
+      compareResult = key1 [k].compareTo (key2 [k]);
+      if (! ascending [k]) {
+        compareResult = compareResult * -1;
+      }
+    }
+    return compareResult;
+  }
+
+  /**
+     One piece of a parallel merge sort.
+   */
+  private class SortTask
+      extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private int[] index;
+    private int[] work;
+    private int   from;
+    private int   to;
+
+    SortTask (int[] index, int[] work, int from, int to) {
+      this.index = index;
+      this.work = work;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute () {
+      if (to - from < PARALLEL_THRESHOLD) {
+        mergeSort (index, work, from, to);
+      } else {
+        int mid = (from + to) >>> 1;
+        invokeAll (new SortTask (index, work, from, mid),
+            new SortTask (index, work, mid, to));
+        merge (index, work, from, mid, to);
+      }
+    }
+  } // end inner class SortTask
+
+} // end class RecordSorter
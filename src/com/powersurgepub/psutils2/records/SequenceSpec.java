@@ -403,4 +403,36 @@ public class SequenceSpec {
 
   
 
+  /**
+     Returns the number of sequence fields in this specification.
+
+     @return Number of sequence fields.
+   */
+
+  public int getNumberOfFields() {
+
+    return seqFields.size();
+
+  }
+
+  
+
+  /**
+     Returns the sequence field at the given position, without
+     disturbing the internal index used by nextField.
+
+     @param i Position of the desired field, with zero representing
+              the first (most significant) field.
+
+     @return Sequence field at the given position.
+   */
+
+  public SequenceField getField(int i) {
+
+    return (SequenceField)seqFields.get (i);
+
+  }
+
+  
+
 } // end class SequenceSpec
\ No newline at end of file
@@ -16,6 +16,8 @@
 
 package com.powersurgepub.psutils2.strings;
 
+  import java.util.concurrent.*;
+
 /**
    A name of something, reduced to its lowest common denominator form,
    by removing all spaces and punctuation and making all characters
@@ -24,9 +26,37 @@ package com.powersurgepub.psutils2.strings;
 
 public class CommonName {
 
+  /** Maximum number of names to be kept in the shared cache. */
+  public static final int   MAX_SHARED = 4096;
+
+  /** Previously converted names, keyed by the original name. */
+  private static final ConcurrentHashMap<String, CommonName> shared 
+      = new ConcurrentHashMap<String, CommonName>();
+
   /** The string as converted to its lowest common denominator format. */
   private   String    commonForm;
 
+  /**
+     Returns a shared common name for the given name, converting it only 
+     the first time it is seen. Since common names are never modified, 
+     the same instance may be safely used by any number of callers. 
+
+     @param name String to be converted.
+
+     @return The common name for the given string. 
+   */
+  public static CommonName getShared (String name) {
+    CommonName common = shared.get (name);
+    if (common == null) {
+      common = new CommonName (name);
+      if (shared.size() >= MAX_SHARED) {
+        shared.clear();
+      }
+      shared.put (name, common);
+    }
+    return common;
+  }
+
   /**
      Tests the class.
    */
@@ -1292,6 +1292,11 @@ public class StringUtils {
      @param inString   String to be purified.
    */
   public static String purifyInvisibles (String inString) {
+    if (inString.indexOf (GlobalConstants.CARRIAGE_RETURN) < 0
+        && inString.indexOf (GlobalConstants.LINE_FEED) < 0
+        && inString.indexOf (GlobalConstants.TAB) < 0) {
+      return inString;
+    }
 		char workChar = ' ';
 		StringBuilder s = new StringBuilder (inString);
     boolean junk = false;
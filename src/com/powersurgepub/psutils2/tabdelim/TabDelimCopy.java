@@ -63,9 +63,9 @@ public class TabDelimCopy {
     outFile1.setLog (log);
     outFile1.setDataLogging (false);
     outFile1.openForOutput (inFile1.getRecDef());
-    DataRecord inRec;
+    DataRecord inRec = null;
     do {
-      inRec = inFile1.nextRecordIn ();
+      inRec = inFile1.nextRecordIn (inRec);
       if (inRec != null) {
         outFile1.nextRecordOut (inRec);
       }
@@ -37,6 +37,9 @@ package com.powersurgepub.psutils2.tabdelim;
 public class TabDelimFile 
     implements DataSource,
                DataStore   {
+  
+  /** Number of characters to be read from the input file at one time. */
+  public static final int       INPUT_BUFFER_SIZE = 65536;
                  
   // The following fields are set by any constructor
                  
@@ -90,7 +93,9 @@ public class TabDelimFile
   /** Temporary tab-delimited file. */
   private    TabDelimFile       tempTab;
 
-  private    int                in = 0;
+  private    char[]             inBuffer = null;
+  private    int                inBufferPos = 0;
+  private    int                inBufferLength = 0;
   private    char               c = ' ';
   private    StringBuilder      field = new StringBuilder();
   private    char               quoteChar = ' ';
@@ -377,7 +382,7 @@ public class TabDelimFile
       try {
         FileInputStream fileInputStream = new FileInputStream(file);
         inReader = new InputStreamReader (fileInputStream, fileEncoding);
-        inBuffered = new BufferedReader (inReader);
+        inBuffered = new BufferedReader (inReader, INPUT_BUFFER_SIZE);
       } catch (IOException e) {
         inOK = false;
         Trouble.getShared().report
@@ -392,6 +397,11 @@ public class TabDelimFile
     }
 
     recDef = new RecordDefinition (dict);
+    if (inBuffer == null) {
+      inBuffer = new char [INPUT_BUFFER_SIZE];
+    }
+    inBufferPos = 0;
+    inBufferLength = 0;
     c = ' ';
     firstRecordIn ();
     recordNumber = 0;
@@ -441,6 +451,55 @@ public class TabDelimFile
       return nextRec;
     } 
   }
+  
+  /**
+     Returns the next record in the input file, reusing the fields of 
+     a record previously returned by this file, rather than building 
+     a new record. This allows callers that process one record at a time,
+     without retaining them, to avoid allocating a new record and set of
+     fields for every line. If the next line has fewer fields than the 
+     record being reused, then the remaining fields will be set to 
+     empty strings.
+    
+     @param  reuse A record previously returned by this file, or null
+                   to have a new record built. 
+  
+     @return Next data record, or null if the end of the file has been 
+             reached.
+    
+     @throws IOException If there is an error reading the file.
+   */
+  public DataRecord nextRecordIn (DataRecord reuse) 
+      throws IOException {
+
+    if (reuse == null) {
+      return nextRecordIn();
+    }
+    else
+    if (atEnd) {
+      return null;
+    } else {
+      recordNumber++;
+      int columnNumber = 0;
+      do {
+        readField();
+        String data = field.toString();
+        if (columnNumber < reuse.getNumberOfFields()) {
+          reuse.getField(columnNumber).setData (data);
+          recDef.anotherField (data, columnNumber);
+        } else {
+          reuse.addField (recDef, data);
+        }
+        columnNumber++;
+      } while ((! atEnd) && (! endOfLine));
+      while (columnNumber < reuse.getNumberOfFields()) {
+        reuse.getField(columnNumber).setData ("");
+        columnNumber++;
+      }
+      reuse.calculate();
+      return reuse;
+    } 
+  }
 
   /**
      Returns the next field from the input file.
@@ -449,7 +508,7 @@ public class TabDelimFile
    */
   private void readField () {
 
-    field = new StringBuilder();
+    field.setLength (0);
     endOfLine = false;
     quoteChar = ' ';
 
@@ -477,19 +536,43 @@ public class TabDelimFile
             outOfQuotes = true;
           }
         } else {
-          // Next character is not a quote char
+          // Next character is not a quote char: take it, along with 
+          // any following characters already in the buffer, up to 
+          // the next quote char
           field.append(c);
+          int start = inBufferPos;
+          int end = start;
+          while (end < inBufferLength && inBuffer [end] != quoteChar) {
+            end++;
+          }
+          field.append (inBuffer, start, end - start);
+          inBufferPos = end;
           readCharacter();
         }
       } // end while still within quoted field
     } // end if field starts with a single or double quote
 
-    // Consume characters until we find a field delimiter or end of line
+    // Consume characters until we find a field delimiter or end of line,
+    // scanning ahead in the buffer for as long as we can
     while ((! atEnd)
         && c != fieldDelimiter
         && c != GlobalConstants.CARRIAGE_RETURN
         && c != GlobalConstants.LINE_FEED) {
       field.append(c);
+      int start = inBufferPos;
+      int end = start;
+      char next;
+      while (end < inBufferLength) {
+        next = inBuffer [end];
+        if (next == fieldDelimiter
+            || next == GlobalConstants.CARRIAGE_RETURN
+            || next == GlobalConstants.LINE_FEED) {
+          break;
+        }
+        end++;
+      }
+      field.append (inBuffer, start, end - start);
+      inBufferPos = end;
       readCharacter();
     }
 
@@ -515,22 +598,47 @@ public class TabDelimFile
     }
   }
 
+  /**
+     Makes the next character from the input file available in c, 
+     refilling the input buffer when it has been exhausted. 
+   */
   private void readCharacter() {
+    if (inBufferPos >= inBufferLength) {
+      fillBuffer();
+    }
+    if (atEnd) {
+      c = ' ';
+    } else {
+      c = inBuffer [inBufferPos++];
+    }
+  }
+  
+  /**
+     Reads the next block of characters from the input file into
+     the input buffer. 
+   */
+  private void fillBuffer() {
+    inBufferPos = 0;
+    inBufferLength = 0;
+    if (inBuffered == null || ! inOK) {
+      atEnd = true;
+      return;
+    }
     try {
-      in = inBuffered.read();
-      if (in < 0) {
+      int count = 0;
+      while (count == 0) {
+        count = inBuffered.read (inBuffer, 0, inBuffer.length);
+      }
+      if (count < 0) {
         atEnd = true;
-        c = ' ';
       } else {
-        c = (char)in;
+        inBufferLength = count;
       }
     } catch (IOException e) {
       atEnd = true;
       inOK = false;
-      c = ' ';
       reportIOTrouble();
     }
-
   }
 
   private void reportIOTrouble() {
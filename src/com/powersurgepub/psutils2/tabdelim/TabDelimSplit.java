@@ -77,10 +77,10 @@ public class TabDelimSplit {
     outFile2.openForOutput (inFile1.getRecDef());
 
     String categories;
-    DataRecord inRec;
+    DataRecord inRec = null;
 
     do {
-      inRec = inFile1.nextRecordIn ();
+      inRec = inFile1.nextRecordIn (inRec);
       if (inRec != null) {
         categories = inRec.getFieldData("custom7").toLowerCase(); 
         if ((categories.indexOf ("family") > -1) 
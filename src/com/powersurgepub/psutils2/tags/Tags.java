@@ -19,6 +19,8 @@ package com.powersurgepub.psutils2.tags;
   import com.powersurgepub.psutils2.strings.*;  
   import com.powersurgepub.psutils2.values.*;
 
+  import java.util.*;
+
 /**
    An object representing the tags or categories assigned to an object. A
    tags field may consist of multiple levels, with the first
@@ -63,6 +65,19 @@ public class Tags
    */
   private StringBuilder tags = new StringBuilder();
   
+  /*
+    Boundaries of the tags and levels within the tags string, built on 
+    first use and discarded whenever the tags are modified. For each tag t,
+    tagBounds [t * 2] is its start and tagBounds [t * 2 + 1] its end; its 
+    levels occupy levelBounds, in start/end pairs, from pair 
+    firstLevel [t] up to (but not including) pair firstLevel [t + 1]. 
+   */
+  private int[]   tagBounds = null;
+  private int[]   levelBounds = null;
+  private int[]   firstLevel = null;
+  private int     tagCount = 0;
+  private int     indexedLength = -1;
+  
   /** 
     Creates a new instance of Tags with null values.
    */
@@ -103,6 +118,7 @@ public class Tags
   
   public void setSlashToSeparate (boolean slashToSeparate) {
     this.slashToSeparate = slashToSeparate;
+    changed();
   }
 
   /**
@@ -208,6 +224,7 @@ public class Tags
    */
   public void set(String inTags) {
     tags.delete (0, tags.length());
+    changed();
     merge (inTags);
   }
 
@@ -218,6 +235,7 @@ public class Tags
   public void flatten () {
     String tags2 = tags.toString();
     tags.delete (0, tags.length());
+    changed();
     int e2 = 0;
     int s2 = indexOfNextWordStart (tags2, e2, slashToSeparate);
     while (s2 < tags2.length()) {
@@ -440,6 +458,7 @@ public class Tags
         }
         s2 = indexOfNextWordStart (tags2, e2, slashToSeparate);
       } // end while more tags from input
+      changed();
     }
   } // end merge string method
 
@@ -458,6 +477,7 @@ public class Tags
       realEnd = tags.length();
     }
     tags.delete (start, end);
+    changed();
     int deletedLength = realEnd - start;
     boolean levelDeleted = false;
     boolean sepBefore = false;
@@ -525,6 +545,7 @@ public class Tags
       }
     }
 
+    changed();
     return deletedLength;
   }
 
@@ -533,6 +554,7 @@ public class Tags
    */
   public void makeLowerCase () {
     tags = new StringBuilder (tags.toString().toLowerCase());
+    changed();
   }
 
   /**
@@ -544,20 +566,14 @@ public class Tags
    @return The number of levels for the given tag number. 
    */
   public int getLevels (int tagIndex) {
-    int levels = 0;
-    int s = getTagStart (tagIndex);
-    int e = indexOfNextSeparator (tags, s, true, true, slashToSeparate);
-    if (s >= 0 && s < tags.length()) {
-      levels = 1;
-      while (s < tags.length()
-          && e < tags.length()
-          && (! isTagSeparator (tags.charAt(e)))) {
-        levels++;
-        s = indexOfNextWordStart (tags, e, slashToSeparate);
-        e = indexOfNextSeparator (tags, s, true, true, slashToSeparate);
-      }
+    index();
+    if (tagIndex >= 0 
+        && tagIndex < tagCount 
+        && tagBounds [tagIndex * 2] < tags.length()) {
+      return firstLevel [tagIndex + 1] - firstLevel [tagIndex];
+    } else {
+      return 0;
     }
-    return levels;
   }
   
   /**
@@ -572,6 +588,16 @@ public class Tags
   public String getLevel (int tagIndex, int levelIndex) {
     if (tagIndex < 0 || levelIndex < 0) {
       return "";
+    }
+    else
+    if (levelIndex < getLevels (tagIndex)) {
+      int pair = firstLevel [tagIndex] + levelIndex;
+      int s = levelBounds [pair * 2];
+      if (s < tags.length()) {
+        return tags.substring (s, levelBounds [pair * 2 + 1]);
+      } else {
+        return "";
+      }
     } else {
       int s = getTagStart (tagIndex);
       int e = indexOfNextSeparator (tags, s, true, true, slashToSeparate);
@@ -713,22 +739,15 @@ public class Tags
    @return The starting position of this tag in the tags string.
    */
   public int getTagStart (int tagIndex) {
-    int tagCount = -1;
-    int i = 0;
-    int start = 0;
-    int end = 0;
-    while (i < tags.length() && tagCount < tagIndex) {
-      start = indexOfNextWordStart (tags, i, slashToSeparate);
-      end   = indexOfNextSeparator (tags, start, false, true, slashToSeparate);
-      tagCount++;
-      if (tagCount < tagIndex) {
-        i = end + 1;
-      }
+    index();
+    if (tagIndex < 0) {
+      return 0;
     }
-    if (tagCount < tagIndex) {
-      return tags.length();
+    else
+    if (tagIndex < tagCount) {
+      return tagBounds [tagIndex * 2];
     } else {
-      return start;
+      return tags.length();
     }
   }
 
@@ -741,19 +760,142 @@ public class Tags
    @return The position immediately following the last character in this tag.
    */
   public int getTagEnd (int tagIndex) {
-    int tagCount = -1;
+    index();
+    if (tagIndex < 0) {
+      return 0;
+    }
+    else
+    if (tagIndex < tagCount) {
+      return tagBounds [tagIndex * 2 + 1];
+    }
+    else
+    if (tagCount > 0) {
+      return tagBounds [tagCount * 2 - 1];
+    } else {
+      return 0;
+    }
+  }
+  
+  /**
+   Return the number of tags. 
+  
+   @return The number of tags, where each tag may have multiple levels. 
+  */
+  public int getTagCount () {
+    index();
+    if (tagCount > 0 && tagBounds [tagCount * 2 - 2] >= tags.length()) {
+      return tagCount - 1;
+    } else {
+      return tagCount;
+    }
+  }
+  
+  /**
+   Return the starting position of the given level of the given tag, so 
+   that the level may be examined within the tags string (see getTags) 
+   without creating a new string. 
+  
+   @param tagIndex   The index identifying the desired tag (first is 0).
+   @param levelIndex The index identifying the desired level (first is 0).
+  
+   @return The starting position of the level in the tags string, or the 
+           length of the tags string, if no such level exists. 
+  */
+  public int getLevelStart (int tagIndex, int levelIndex) {
+    if (tagIndex >= 0 && levelIndex >= 0 
+        && levelIndex < getLevels (tagIndex)) {
+      return levelBounds [(firstLevel [tagIndex] + levelIndex) * 2];
+    } else {
+      return tags.length();
+    }
+  }
+  
+  /**
+   Return the position immediately following the given level of the 
+   given tag. 
+  
+   @param tagIndex   The index identifying the desired tag (first is 0).
+   @param levelIndex The index identifying the desired level (first is 0).
+  
+   @return The position following the last character of the level, or the 
+           length of the tags string, if no such level exists. 
+  */
+  public int getLevelEnd (int tagIndex, int levelIndex) {
+    if (tagIndex >= 0 && levelIndex >= 0 
+        && levelIndex < getLevels (tagIndex)) {
+      return levelBounds [(firstLevel [tagIndex] + levelIndex) * 2 + 1];
+    } else {
+      return tags.length();
+    }
+  }
+  
+  /**
+   Note that the tags string has been modified, so that the boundaries of
+   its tags and levels must be found again. 
+  */
+  private void changed() {
+    indexedLength = -1;
+  }
+  
+  /**
+   Make sure that the boundaries of all tags and levels have been found, 
+   scanning the tags string once if necessary. The scan follows the same
+   steps as the scans formerly performed by getTagStart, getTagEnd and
+   getLevels for each request. 
+  */
+  private void index() {
+    if (indexedLength == tags.length()) {
+      return;
+    }
+    int length = tags.length();
+    int[] newTagBounds = new int [8];
+    int[] newLevelBounds = new int [16];
+    int[] newFirstLevel = new int [5];
+    int newTagCount = 0;
+    int levelCount = 0;
     int i = 0;
-    int start = 0;
-    int end = 0;
-    while (i < tags.length() && tagCount < tagIndex) {
-      start = indexOfNextWordStart (tags, i, slashToSeparate);
-      end   = indexOfNextSeparator (tags, start, false, true, slashToSeparate);
-      tagCount++;
-      if (tagCount < tagIndex) {
-        i = end + 1;
+    while (i < length) {
+      int start = indexOfNextWordStart (tags, i, slashToSeparate);
+      int end   = indexOfNextSeparator (tags, start, false, true, slashToSeparate);
+      if ((newTagCount + 1) * 2 > newTagBounds.length) {
+        newTagBounds = Arrays.copyOf (newTagBounds, newTagBounds.length * 2);
+        newFirstLevel = Arrays.copyOf (newFirstLevel, newFirstLevel.length * 2 + 1);
       }
+      newTagBounds [newTagCount * 2] = start;
+      newTagBounds [newTagCount * 2 + 1] = end;
+      newFirstLevel [newTagCount] = levelCount;
+      
+      // Now find the levels within this tag
+      int s = start;
+      int e = indexOfNextSeparator (tags, s, true, true, slashToSeparate);
+      boolean moreLevels = (s < length);
+      while (moreLevels) {
+        if ((levelCount + 1) * 2 > newLevelBounds.length) {
+          newLevelBounds = Arrays.copyOf (newLevelBounds, newLevelBounds.length * 2);
+        }
+        newLevelBounds [levelCount * 2] = s;
+        newLevelBounds [levelCount * 2 + 1] = e;
+        levelCount++;
+        moreLevels = (s < length 
+            && e < length 
+            && (! isTagSeparator (tags.charAt (e))));
+        if (moreLevels) {
+          s = indexOfNextWordStart (tags, e, slashToSeparate);
+          e = indexOfNextSeparator (tags, s, true, true, slashToSeparate);
+        }
+      }
+      newTagCount++;
+      i = end + 1;
     }
-    return end;
+    if (newTagCount + 1 > newFirstLevel.length) {
+      newFirstLevel = Arrays.copyOf (newFirstLevel, newTagCount + 1);
+    }
+    newFirstLevel [newTagCount] = levelCount;
+    tagBounds = newTagBounds;
+    levelBounds = newLevelBounds;
+    firstLevel = newFirstLevel;
+    tagCount = newTagCount;
+    indexedLength = length;
   }
   
   /**
@@ -17,6 +17,9 @@
 package com.powersurgepub.psutils2.tags;
 
   import com.powersurgepub.psutils2.ui.*;
+
+  import java.util.*;
+
   import javafx.scene.control.*;
 
 /**
@@ -46,21 +49,45 @@ public class TagsList
   }
   
   public void add(Taggable tagged) {
-    TagsIterator iterator = new TagsIterator (tagged.getTags());
-    while (iterator.hasNextTag()) {
-      registerValue (iterator.nextTag());
-    }
+    registerValues (tagged, getValues (tagged));
   }
   
   public void modify(Taggable tagged) {
-    TagsIterator iterator = new TagsIterator (tagged.getTags());
-    while (iterator.hasNextTag()) {
-      registerValue (iterator.nextTag());
-    }
+    registerValues (tagged, getValues (tagged));
   }
   
   public void remove(Taggable tagged) {
-    // No need to do anything
+    releaseValues (tagged);
+  }
+  
+  /**
+   Add a batch of taggable items, updating the list just once. 
+  
+   @param items The items to be added. 
+  */
+  public void addAll(List<? extends Taggable> items) {
+    IdentityHashMap<Taggable, List<String>> valuesByItem
+        = new IdentityHashMap<Taggable, List<String>>(items.size());
+    for (Taggable tagged : items) {
+      valuesByItem.put (tagged, getValues (tagged));
+    }
+    registerAll (valuesByItem);
+  }
+  
+  /**
+   Return the tags assigned to an item. 
+  
+   @param tagged The taggable item. 
+  
+   @return Each of the item's tags. 
+  */
+  private List<String> getValues(Taggable tagged) {
+    ArrayList<String> values = new ArrayList<String>();
+    TagsIterator iterator = new TagsIterator (tagged.getTags());
+    while (iterator.hasNextTag()) {
+      values.add (iterator.nextTag());
+    }
+    return values;
   }
   
 }
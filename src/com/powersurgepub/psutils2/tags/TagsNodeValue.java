@@ -17,6 +17,7 @@
 package com.powersurgepub.psutils2.tags;
 
   import java.io.*;
+  import java.util.*;
 
   import javafx.scene.control.*;
 
@@ -53,6 +54,13 @@ public class TagsNodeValue {
   */
   private int             treeLevel = 0;
   
+  /** 
+   The tag nodes directly beneath this root or tag node, keyed by their 
+   tags, ignoring case, so that the child for a given tag level can be found
+   without stepping through the other children. 
+  */
+  private TreeMap<String, TreeItem<TagsNodeValue>> tagChildren = null;
+  
   /** 
     Creates a root node. 
    */
@@ -119,6 +127,34 @@ public class TagsNodeValue {
   public int getNodeType() {
     return nodeType;
   }
+  
+  /**
+   Return the tag node directly beneath this one for the given tag. 
+  
+   @param tag The tag, at the level just beneath this node. 
+  
+   @return The matching child tag node, or null if there is none. 
+  */
+  TreeItem<TagsNodeValue> getTagChild (String tag) {
+    if (tagChildren == null) {
+      return null;
+    } else {
+      return tagChildren.get (tag);
+    }
+  }
+  
+  /**
+   Record a tag node that has just been added directly beneath this one. 
+  
+   @param tagChild The child tag node. 
+  */
+  void putTagChild (TreeItem<TagsNodeValue> tagChild) {
+    if (tagChildren == null) {
+      tagChildren = new TreeMap<String, TreeItem<TagsNodeValue>>
+          (String.CASE_INSENSITIVE_ORDER);
+    }
+    tagChildren.put (tagChild.getValue().toString(), tagChild);
+  }
 
   /**
    Get the requested level within the specified tag for this node.
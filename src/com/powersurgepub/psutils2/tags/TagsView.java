@@ -20,6 +20,7 @@ package com.powersurgepub.psutils2.tags;
   import com.powersurgepub.psutils2.logging.*;
 
   import java.io.*;
+  import java.util.*;
 
   import javafx.collections.*;
   import javafx.scene.control.*;
@@ -183,7 +184,6 @@ public class TagsView {
     if (treeNode == null) {
       System.out.println("  - tags node is null");
     } 
-    TagsNodeValue nodeNext = null;
     tagged.setTagsNode (null);
     while (treeNode != null) { 
       TagsNodeValue treeNodeValue = treeNode.getValue();
@@ -192,7 +192,10 @@ public class TagsView {
       if (parentNode == null) {
         System.out.println("  - Parent node is null");
       } else {
-        parentNode.getChildren().remove(treeNode);
+        int index = indexOfItem (parentNode, treeNode);
+        if (index >= 0) {
+          parentNode.getChildren().remove(index);
+        }
       }
       treeNode = nextNode;
     } // end while treeNode not null
@@ -204,9 +207,83 @@ public class TagsView {
    @param tagged The taggable item to be added. 
    */
   public void add(Taggable tagged) {
+    add (rootNode, tagged);
+  }
+  
+  /**
+   Add a batch of taggable items to the tree model. If the tree is still 
+   empty, then the whole tree is built before its root is attached to the 
+   view; otherwise the items are added one at a time. 
+  
+   @param items The taggable items to be added. 
+  */
+  public void addAll(List<? extends Taggable> items) {
+    if (isEmpty()) {
+      setRoot (buildTree (items));
+    } else {
+      for (Taggable tagged : items) {
+        add (tagged);
+      }
+    }
+  }
+  
+  /**
+   Build a new tree containing the given items, apart from the tree now 
+   attached to the view. Since the new tree is not yet displayed, it may be
+   built on a background thread, as long as the items are not being 
+   added to, or removed from, this tree at the same time. The result 
+   should then be passed to setRoot. 
+  
+   @param items The taggable items to be placed in the new tree. 
+  
+   @return The root of the new tree. 
+  */
+  public TreeItem<TagsNodeValue> buildTree(List<? extends Taggable> items) {
+    TreeItem<TagsNodeValue> newRoot 
+        = new TreeItem<TagsNodeValue>(new TagsNodeValue(getSource()));
+    for (Taggable tagged : items) {
+      add (newRoot, tagged);
+    }
+    return newRoot;
+  }
+  
+  /**
+   Replace the tree attached to the view with one built by buildTree. 
+  
+   @param newRoot The root of the new tree. 
+  */
+  public void setRoot(TreeItem<TagsNodeValue> newRoot) {
+    rootNode = newRoot;
+    rootValue = newRoot.getValue();
+    currentNode = null;
+    nextNode = null;
+    priorNode = null;
+    tagsView.setRoot(rootNode);
+  }
+  
+  /**
+   Is the tree empty?
+  
+   @return True if nothing has been added beneath the root. 
+  */
+  public boolean isEmpty() {
+    return rootNode.getChildren().isEmpty();
+  }
+  
+  /**
+   Add a taggable item beneath the given root, creating a node for each of
+   the item's tags. Each tag node keeps track of the tag nodes directly 
+   beneath it, so the branch for each level of a tag can be found without
+   stepping through its siblings; and the children of each node are kept
+   in the sequence described by compareNodes, so that the position at 
+   which to insert a new node can be found with a binary search. 
+  
+   @param root   The root of the tree to which the item is to be added. 
+   @param tagged The taggable item to be added. 
+  */
+  private void add(TreeItem<TagsNodeValue> root, Taggable tagged) {
 
     Tags tags = tagged.getTags();
-    // System.out.println("TagsView.add tags to be added = " + tags.toString());
     TagsIterator iterator = new TagsIterator(tags);
     
     TreeItem<TagsNodeValue> lastNode = null;
@@ -216,15 +293,11 @@ public class TagsView {
     // Repeat for each tag
     while (iterator.hasNextTag() || nodesStored < 1) {
       nodesStored++;
-      String nextTag = "";;
       if (iterator.hasNextTag()) {
-        nextTag = iterator.nextTag();
+        iterator.nextTag();
       }
-      // System.out.println ("  nextTag = " + nextTag);
       TagsNodeValue valueToAdd = new TagsNodeValue (tagged, tagIndex);
       TreeItem<TagsNodeValue> nodeToAdd = new TreeItem<TagsNodeValue>(valueToAdd);
-      // System.out.println ("    TagsModel add " + String.valueOf(tagIndex)
-      //     + " from " + tagged.getTags().toString());
 
       // Store this node so we can find it later by its index
       if (tagIndex == 0) {
@@ -234,134 +307,111 @@ public class TagsView {
       }
       lastNode = nodeToAdd;
 
-      // Now store it in the tree
-      TreeItem<TagsNodeValue> currentNode = rootNode;
-      TreeItem<TagsNodeValue> parentNode = rootNode;
-      
-      // levels = the number of levels in the new tagged item's tags
+      // Walk down the branch for this tag, one level at a time, adding 
+      // any tag nodes not yet present. Note that the root node level is 
+      // considered -1, and the first level with real keys is considered 0. 
+      TreeItem<TagsNodeValue> parentNode = root;
       int levels = tags.getLevels (tagIndex);
-      // System.out.println ("      levels = " + String.valueOf(levels));
-      boolean done = false;
-      int compass = BELOW_THIS_NODE;
-      // level is used to keep track of our current depth as we walk
-      // through the tree. Note that the rootNode level is considered -1, and
-      // the first level with real keys is considered 0. This allows level
-      // to be used to pull the appropriate tag level out of the tags,
-      // where zero would be the first level. 
-      int level = -1;
-      // child is used to keep track of our position within the
-      // current set of children we are traversing.
-      int child = 0;
-      // Walk through the tree until we find the right location
-      // for the tagged item to be added
-      do {
-        compass = compareNodes(nodeToAdd, currentNode);
-        /* if (currentNode == null) {
-            System.out.println ("        compass = " + String.valueOf(compass)
-              + " for null node");
-        } else {
-          System.out.println ("        compass = " + String.valueOf(compass)
-              + " for node type " + currentNode.toString());
-        } */
-        TreeItem<TagsNodeValue> newNode;
-        switch (compass) {
-          case (BELOW_THIS_NODE):
-            level++;
-            child = 0;
-            if (currentNode.getChildren().size() > 0) {
-              // System.out.println("          Branch 1: Below with children");
-              // New tagged item should be below this one, and children already exist
-              newNode = currentNode.getChildren().get(0);
-              parentNode = currentNode;
-              currentNode = newNode;
-              // level++;
-              // child = 0;
-            } else {
-              // New tagged should be below this one, but no children yet exist
-              // level++;
-              if (levels > level) {
-                // Not yet at desired depth -- create a new tags node
-                // System.out.println("          Branch 2: Adding new tags node");
-                String levelCat = tags.getLevel (tagIndex, level);
-                // System.out.println ("          Adding new tags node for tag "
-                //     + String.valueOf(tagIndex)
-                //     + ", level " + String.valueOf(level)
-                //     + ": " + levelCat);
-                TagsNodeValue newValue = new TagsNodeValue(levelCat);
-                newNode = new TreeItem<TagsNodeValue>(newValue);
-                // newNode = new TagsNodeValue (levelCat);
-              } else {
-                // we're at desired depth -- add the new tagged node
-                // System.out.println("          Branch 3: Below with children");
-                newNode = nodeToAdd;
-                done = true;
-              }
-              newNode.getValue().setTagsLevel(level);
-              currentNode.getChildren().add(newNode);
-              // System.out.println ("          Adding new node " 
-              //     + newNode.getValue().toLongerString());
-              // System.out.println ("            Done? " + String.valueOf (done));
-             
-              parentNode = currentNode;
-              currentNode = newNode;
-              // level++;
-              // child = 0;
-            } // end go below but no children
-            break;
-          case (AFTER_THIS_NODE):
-            // new node should be after this one -- keep going
-            // System.out.println("          Branch 4: After current node");
-            newNode = currentNode.nextSibling();
-            currentNode = newNode;
-            child++;
-            break;
-          case (BEFORE_THIS_NODE):
-            // Don't go any farther -- put it here or add a new tags
-            if (levels > level) {
-              // System.out.println("          Branch 5: Before and below");
-              String levelCat = tags.getLevel(tagIndex, level);
-              TagsNodeValue newValue = new TagsNodeValue(levelCat);
-              newNode = new TreeItem<TagsNodeValue>(newValue);
-            } else {
-              // System.out.println("          Branch 6: Adding new node here");
-              newNode = nodeToAdd;
-              done = true;
-            }
-            newNode.getValue().setTagsLevel(level);
-            parentNode.getChildren().add(child, newNode);
-            // System.out.println ("          Adding new node " +newNode.toString());
-            // System.out.println ("            Done? " + String.valueOf (done));
-            currentNode = newNode;
-            break;
-          case (EQUALS_THIS_NODE):
-            // System.out.println("          Branch 7: Equals current node, adding here");
-            newNode = nodeToAdd;
-            newNode.getValue().setTagsLevel(level);
-            parentNode.getChildren().add(child, newNode);
-            currentNode = newNode;
-            done = true;
-            // System.out.println ("          Adding new node " +newNode.toString());
-            // System.out.println ("            Done? " + String.valueOf (done));
-            break;
-          default:
-            Logger.getShared().recordEvent (LogEvent.MAJOR,
-                "Tags Model add -- hit default in switch", false);
-            Logger.getShared().recordEvent (LogEvent.NORMAL, "Compass value = "
-                + String.valueOf (compass), false);
-            Logger.getShared().recordEvent (LogEvent.NORMAL, "itemNode = "
-                + String.valueOf (nodeToAdd.getValue().getNodeType())  + " - "
-                + nodeToAdd.getValue().toString(), false);
-            Logger.getShared().recordEvent (LogEvent.NORMAL, "Current node = "
-                + String.valueOf (currentNode.getValue().getNodeType())  + " - "
-                + currentNode.toString(), false);
-                break;
-        } // end of compass result switch
-      } while (! done);
-      // setNextPrior();
+      for (int level = 0; level < levels; level++) {
+        String levelCat = tags.getLevel (tagIndex, level);
+        TreeItem<TagsNodeValue> tagNode 
+            = parentNode.getValue().getTagChild (levelCat);
+        if (tagNode == null) {
+          tagNode = new TreeItem<TagsNodeValue>(new TagsNodeValue(levelCat));
+          tagNode.getValue().setTagsLevel(level);
+          parentNode.getChildren().add
+              (indexForNewNode (parentNode, null, levelCat), tagNode);
+          parentNode.getValue().putTagChild (tagNode);
+        }
+        parentNode = tagNode;
+      }
+      
+      // Now add the item node beneath the last level of the tag
+      valueToAdd.setTagsLevel(levels);
+      parentNode.getChildren().add
+          (indexForNewNode (parentNode, tagged, null), nodeToAdd);
       tagIndex++;
     } // end for each category assigned to tagged
   }
   
+  /**
+   Find the position at which a new node should be inserted among the 
+   children of the given parent: items in sequence by their keys (a new 
+   item going ahead of any with an equal key), tags in sequence ignoring 
+   case, and items ahead of or following tags, as determined by 
+   itemsBeforeCategories. 
+  
+   @param parentNode The node beneath which the new node will go. 
+   @param tagged     The taggable item for a new item node, or null for a 
+                     new tag node. 
+   @param tag        The tag for a new tag node, or null for an item node. 
+  
+   @return The index at which the new node should be inserted. 
+  */
+  private int indexForNewNode (
+      TreeItem<TagsNodeValue> parentNode, 
+      Taggable tagged, 
+      String tag) {
+    
+    ObservableList<TreeItem<TagsNodeValue>> kids = parentNode.getChildren();
+    int low = 0;
+    int high = kids.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      TagsNodeValue kid = kids.get(mid).getValue();
+      boolean before;
+      if (kid.getNodeType() == TagsNodeValue.ITEM) {
+        if (tagged == null) {
+          before = (! itemsBeforeCategories);
+        } else {
+          before = (tagged.compareTo (kid.getTaggable()) <= 0);
+        }
+      } else {
+        if (tagged == null) {
+          before = (tag.compareToIgnoreCase (kid.toString()) <= 0);
+        } else {
+          before = itemsBeforeCategories;
+        }
+      }
+      if (before) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+    return low;
+  }
+  
+  /**
+   Find the position of an item node among its parent's children. 
+  
+   @param parentNode The parent of the item node. 
+   @param itemNode   The item node to be found. 
+  
+   @return The index of the item node, or -1 if it is not a child of the 
+           given parent. 
+  */
+  private int indexOfItem (
+      TreeItem<TagsNodeValue> parentNode, 
+      TreeItem<TagsNodeValue> itemNode) {
+    
+    ObservableList<TreeItem<TagsNodeValue>> kids = parentNode.getChildren();
+    Taggable tagged = itemNode.getValue().getTaggable();
+    int index = indexForNewNode (parentNode, tagged, null);
+    while (index < kids.size()
+        && kids.get(index) != itemNode
+        && kids.get(index).getValue().getNodeType() == TagsNodeValue.ITEM
+        && tagged.compareTo (kids.get(index).getValue().getTaggable()) == 0) {
+      index++;
+    }
+    if (index < kids.size() && kids.get(index) == itemNode) {
+      return index;
+    } else {
+      // The item's key may have changed since it was added
+      return kids.indexOf (itemNode);
+    }
+  }
+  
   /**
     Compare two tags nodes and determine their relative locations
     in the tree. Note that this method is only expected to be used
@@ -24,6 +24,7 @@ package com.powersurgepub.psutils2.template;
 
   import java.io.*;
   import java.util.*;
+  import java.util.concurrent.*;
 
 /**
    A template to be used to create text file 
@@ -131,6 +132,12 @@ public class Template {
      between TemplateLine objects.
    */
   private    TemplateUtil   templateUtil;
+  
+  /** 
+     Maximum number of threads to be used to generate output files in 
+     parallel. A value of 1 means that all output is generated serially. 
+   */
+  private    int            maxThreads = 1;
 
   /**
      Constructs and initializes a Template object, 
@@ -152,6 +159,36 @@ public class Template {
     globalDefs = new RecordDefinition();
   }
   
+  /**
+     Sets the maximum number of threads to be used to generate output. <p>
+     
+     When more than one thread is allowed, and the template opens a new
+     output file at the start of each data record (with the OUTPUT command
+     as the first line following NEXTREC), then each record's output file
+     is generated as an independent unit of work, using its own copy of 
+     the template lines and utility data, on a pool of no more than this 
+     many threads. Templates that carry state from one record to the next 
+     (through SET, DEFINEGROUP, IFCHANGE, group or list commands, DEBUG, 
+     EPUB or list separators) are always processed serially, as are 
+     templates using an outer loop. In either case the files produced are
+     the same. 
+    
+     @param maxThreads The maximum number of threads to use; values less
+                       than 2 select serial processing. 
+   */
+  public void setMaxThreads (int maxThreads) {
+    this.maxThreads = maxThreads;
+  }
+  
+  /**
+     Returns the maximum number of threads to be used to generate output.
+    
+     @return The maximum number of threads.
+   */
+  public int getMaxThreads () {
+    return maxThreads;
+  }
+  
   public void setWebRoot (File webRootFile) {
     templateUtil.setWebRoot(webRootFile);
   }
@@ -457,6 +494,9 @@ public class Template {
         // Bump up the outer loop index
         outerIndex++;
       } while (outerIndex < dataRecs.size());
+    } else
+    if (canGenerateInParallel()) {
+      generateInParallel();
     } else {
       // process tab delimited data file
       do {
@@ -518,6 +558,126 @@ public class Template {
       
   } // end GenerateOutput method
   
+  /**
+     Can each data record's output file be generated independently of
+     the others? Only if a new output file is opened at the start of each
+     record, and no template line processed for a record carries any
+     state forward to the next one. 
+    
+     @return True if output files may be generated in parallel.
+   */
+  private boolean canGenerateInParallel () {
+    if (maxThreads < 2
+        || outerLoop
+        || templateUtil.isTextFileOutOpen()
+        || recLines.isEmpty()
+        || (! endGroupLines.isEmpty())
+        || (! recLines.get(0).getCommand().equals (TemplateLine.OUTPUT))) {
+      return false;
+    }
+    for (TemplateLine line : recLines) {
+      if (! isIndependent (line)) {
+        return false;
+      }
+    }
+    for (TemplateLine line : endLines) {
+      if (! isIndependent (line)) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  /**
+     Can this template line be processed for one data record without 
+     affecting the output for any following record?
+    
+     @param line The template line to be checked. 
+    
+     @return True if the line does not carry state between records.
+   */
+  private boolean isIndependent (TemplateLine line) {
+    String command = line.getCommand();
+    if (command.equals (TemplateLine.SET)
+        || command.equals (TemplateLine.DEFINEGROUP)
+        || command.equals (TemplateLine.IFCHANGE)
+        || command.equals (TemplateLine.IFNEWGROUP)
+        || command.equals (TemplateLine.IFENDGROUP)
+        || command.equals (TemplateLine.IFNEWLIST)
+        || command.equals (TemplateLine.IFENDLIST)
+        || command.equals (TemplateLine.DELIMS)
+        || command.equals (TemplateLine.EPUB)
+        || command.equals (TemplateLine.DEBUG)) {
+      return false;
+    }
+    return (! line.usesListSeparator());
+  }
+  
+  /**
+     Reads all the data records, then generates each record's output
+     file as a separate unit of work, using a bounded pool of threads. 
+     The record used for each set of end lines is the same one the 
+     serial loop would use. Each unit's output is held in memory, and 
+     written on this thread in record order as units complete, so that 
+     when more than one record writes to the same output file the last 
+     one wins, as it would when processing serially. 
+   */
+  private void generateInParallel () 
+      throws IOException {
+    
+    ArrayList<OutputUnit> units = new ArrayList<OutputUnit>();
+    OutputUnit unit = null;
+    do {
+      lastRec = dataRec;
+      if (! dataFile.isAtEnd()) {
+        dataRec = dataFile.nextRecordIn ();
+        if (dataRec != null) {
+          if (unit != null) {
+            unit.endRec = lastRec;
+          }
+          unit = new OutputUnit 
+              (dataRec, lastRec, dataFile.getRecordNumber());
+          units.add (unit);
+        }
+      }
+    } while (! dataFile.isAtEnd());
+    if (unit == null) {
+      return;
+    }
+    unit.endRec = lastRec;
+    
+    int threads = Math.min (maxThreads, units.size());
+    ExecutorService pool = Executors.newFixedThreadPool (threads);
+    try {
+      ArrayList<Future<Object>> results 
+          = new ArrayList<Future<Object>>(units.size());
+      for (OutputUnit nextUnit : units) {
+        results.add (pool.submit (nextUnit));
+      }
+      for (int i = 0; i < units.size(); i++) {
+        results.get(i).get();
+        templateUtil.addUnitResults (units.get(i).unitUtil);
+        units.set (i, null);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException ("Output generation was interrupted", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      } else
+      if (cause instanceof Error) {
+        throw (Error)cause;
+      } else {
+        throw new IOException (cause);
+      }
+    } finally {
+      // Cancels any units not yet started, if one of them failed
+      pool.shutdownNow();
+    }
+  } // end method generateInParallel
+  
   /**
      Writes out the last lines in the template 
      (the ones following the LOOP command) each time that 
@@ -532,6 +692,80 @@ public class Template {
     } // end while more template end lines in vector 
   } // end writeEndLines method
   
+  /**
+     The output for one data record, generated with its own copy of the 
+     record lines and end lines, and its own template utility data. 
+   */
+  private class OutputUnit 
+      implements Callable<Object> {
+    
+    /** The data record to be processed. */
+    private DataRecord    rec;
+    
+    /** The last record, while this record is being processed. */
+    private DataRecord    priorRec;
+    
+    /** The record used to write the end lines for this unit's file. */
+    private DataRecord    endRec = null;
+    
+    /** The record number of the data record. */
+    private int           recordNumber;
+    
+    /** The template utility data used to generate this unit. */
+    private TemplateUtil  unitUtil = null;
+    
+    OutputUnit (DataRecord rec, DataRecord priorRec, int recordNumber) {
+      this.rec = rec;
+      this.priorRec = priorRec;
+      this.recordNumber = recordNumber;
+    }
+    
+    /**
+       Generates the output for this unit, in the same way as the serial
+       loop in generateOutput. 
+     */
+    public Object call () {
+      unitUtil = new TemplateUtil (templateUtil);
+      ArrayList<TemplateLine> unitEndLines 
+          = new ArrayList<TemplateLine>(endLines.size());
+      for (TemplateLine line : endLines) {
+        unitEndLines.add (new TemplateLine (line, unitUtil));
+      }
+      unitUtil.sendDebugLine(" ");
+      unitUtil.sendDebugLine("Processing Data Record # " 
+          + String.valueOf(recordNumber));
+      unitUtil.resetGroupBreaks();
+      unitUtil.setSkippingData (false);
+      for (TemplateLine line : recLines) {
+        TemplateLine unitLine = new TemplateLine (line, unitUtil);
+        if (unitLine.getCommand().equals (TemplateLine.OUTPUT)) {
+          if (! unitUtil.isSkippingData()) {
+            if (unitUtil.isTextFileOutOpen()) {
+              writeEndLines (unitUtil, unitEndLines, priorRec);
+            } // end if text file out open
+          } // end skipping Data check
+        } // end if next line is OUTPUT command
+        unitLine.generateOutput(rec);
+      }
+      if (unitUtil.isTextFileOutOpen()) {
+        writeEndLines (unitUtil, unitEndLines, endRec);
+        unitUtil.close();
+      }
+      return null;
+    }
+    
+    /**
+       Writes the end lines to the unit's current output file. 
+     */
+    private void writeEndLines (TemplateUtil unitUtil, 
+        ArrayList<TemplateLine> unitEndLines, DataRecord endLinesRec) {
+      unitUtil.setSkippingData (false);
+      for (TemplateLine line : unitEndLines) {
+        line.generateOutput(endLinesRec);
+      }
+    }
+  } // end inner class OutputUnit
+  
   /**
      Gets the next line in the template file, and returns
      it as a TemplateLine.
@@ -207,6 +207,9 @@ public class TemplateLine {
   private  CommonMarkup      htmlConverter     = new CommonMarkup ("txt", "html");
   
   private  boolean           lineBreak = true;
+  
+  /** A non-command line, compiled for repeated variable replacement. */
+  private  TemplateText      compiledText = null;
 
   /**
      Constructs a TemplateLine, determining the type of line
@@ -284,6 +287,33 @@ public class TemplateLine {
     }
   } // end TemplateLine constructor
   
+  /**
+     Constructs a copy of a TemplateLine that has already been parsed, 
+     to be processed using a different collection of template utility 
+     data and methods. 
+    
+     @param line          The line to be copied.
+     @param templateUtil  The template utility data to be used by the copy. 
+   */
+  TemplateLine (TemplateLine line, TemplateUtil templateUtil) {
+    this.templateUtil = templateUtil;
+    globals = templateUtil.getGlobals();
+    operandDef     = new DataFieldDefinition ("operand");
+    startCommand   = line.startCommand;
+    endCommand     = line.endCommand;
+    startVariable  = line.startVariable;
+    endVariable    = line.endVariable;
+    startModifiers = line.startModifiers;
+    nextrecLine    = line.nextrecLine;
+    minCommandLineLength = line.minCommandLineLength;
+    lineString     = line.lineString;
+    commandString  = line.commandString;
+    commandLine    = line.commandLine;
+    command        = line.command;
+    lineBreak      = line.lineBreak;
+    compiledText   = line.compiledText;
+  } // end TemplateLine copy constructor
+  
   /**
      Generates the output associated with a TemplateLine. 
      For an output command, this will consist of closing the current 
@@ -649,8 +679,15 @@ public class TemplateLine {
         // do nothing
       }
       else {
+        if (compiledText == null
+            || (! compiledText.usesDelimiters 
+                (templateUtil.getNlStartVariable(), 
+                 templateUtil.getNlEndVariable(),
+                 templateUtil.getNlStartModifiers()))) {
+          compiledText = templateUtil.compile (outString);
+        }
         LineWithBreak lineWithBreak = templateUtil.replaceVariables
-            (new StringBuilder(outString), dataRec);
+            (compiledText, dataRec);
         if (lineWithBreak.getLineBreak()) {
           templateUtil.writeLine (lineWithBreak.getLine());
         } else {
@@ -671,11 +708,28 @@ public class TemplateLine {
   */
   private String replaceVarsInOperand(StringScanner opScanner, DataRecord dataRec) {
     LineWithBreak lineWithBreak = templateUtil.replaceVariables (
-        new StringBuilder(opScanner.extractQuotedString()),
+        templateUtil.compile (opScanner.extractQuotedString()),
         dataRec);
     return lineWithBreak.getLine();
   }
   
+  /**
+     Does this line contain any variables with a list separator? The 
+     replacement of such a variable depends on the variables replaced 
+     before it, possibly while processing an earlier data record. 
+    
+     @return True if a list separator is used. 
+   */
+  boolean usesListSeparator () {
+    String text = lineString;
+    if (commandLine) {
+      text = lineString.substring
+        ((startCommand.length() + command.length()), 
+          (lineString.length() - endCommand.length()));
+    }
+    return templateUtil.compile(text).usesListSeparator();
+  }
+  
   /**
      Returns the command extracted from a command line.
     
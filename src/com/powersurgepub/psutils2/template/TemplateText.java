@@ -0,0 +1,251 @@
+/*
+ * Copyright 1999 - 2017 Herb Bowie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.powersurgepub.psutils2.template;
+
+  import java.util.*;
+
+/**
+   A piece of template text, compiled into alternating literal segments
+   and variables, using a particular set of delimiters. Once compiled,
+   the text can be merged with any number of data records without being
+   scanned again. <p>
+
+   Compiled text is immutable (apart from hints about where each variable
+   was last found), and may be shared between templates. Recently compiled
+   text is kept in a cache, keyed by the text itself and the delimiters
+   used, so that the same lines appearing in many templates, or in
+   repeated runs of the same template, are only compiled once. <p>
+ */
+public class TemplateText {
+
+  /** Maximum number of compiled pieces of text to be kept in the cache. */
+  public static final int   MAX_CACHED = 2000;
+
+  /** Recently compiled text, keyed by delimiters plus text. */
+  private static final LinkedHashMap<String, TemplateText> cache
+      = new LinkedHashMap<String, TemplateText>(256, 0.75f, true) {
+          protected boolean removeEldestEntry
+              (Map.Entry<String, TemplateText> eldest) {
+            return size() > MAX_CACHED;
+          }
+        };
+
+  /** The original text. */
+  private    String             text;
+
+  /** The delimiters used to compile the text. */
+  private    String             startVariable;
+  private    String             endVariable;
+  private    String             startModifiers;
+
+  /**
+     Literal text segments. There is always one more literal than there
+     are variables: literal [i] precedes variable [i], and the final
+     literal follows the last variable.
+   */
+  private    String[]           literals;
+
+  /** Variables found within the text. */
+  private    TemplateVariable[] variables;
+
+  /**
+     Does the text contain a variable whose replacement value must itself
+     be scanned for more variables?
+   */
+  private    boolean            interpreted = false;
+
+  /** Does the text contain a variable with a list separator? */
+  private    boolean            listSeparator = false;
+
+  /**
+     Returns the compiled form of the given text, using the cache if
+     possible.
+
+     @param text           The text to be compiled.
+     @param startVariable  The starting variable delimiter.
+     @param endVariable    The ending variable delimiter.
+     @param startModifiers The string marking the start of modifiers.
+
+     @return The compiled text.
+   */
+  public static TemplateText compile (String text,
+      String startVariable, String endVariable, String startModifiers) {
+    String key = startVariable + '\u0000' + endVariable + '\u0000'
+        + startModifiers + '\u0000' + text;
+    TemplateText compiled;
+    synchronized (cache) {
+      compiled = cache.get (key);
+    }
+    if (compiled == null) {
+      compiled = new TemplateText
+          (text, startVariable, endVariable, startModifiers);
+      synchronized (cache) {
+        cache.put (key, compiled);
+      }
+    }
+    return compiled;
+  }
+
+  /**
+     Compiles the given text, locating variables in exactly the same way
+     as TemplateUtil.replaceVariables (StringBuilder, DataRecord).
+
+     @param text           The text to be compiled.
+     @param startVariable  The starting variable delimiter.
+     @param endVariable    The ending variable delimiter.
+     @param startModifiers The string marking the start of modifiers.
+   */
+  private TemplateText (String text,
+      String startVariable, String endVariable, String startModifiers) {
+
+    this.text = text;
+    this.startVariable = startVariable;
+    this.endVariable = endVariable;
+    this.startModifiers = startModifiers;
+
+    ArrayList<String> literalList = new ArrayList<String>();
+    ArrayList<TemplateVariable> variableList
+        = new ArrayList<TemplateVariable>();
+    int literalStart = 0;
+    int varIndex = 0;
+    while ((varIndex >= 0) && (varIndex < text.length())) {
+      // find the beginning of the next variable
+      int startDelim = text.indexOf (startVariable, varIndex);
+      // If a variable starting delimiter also begins 1 character to the right,
+      // then use that instead
+      if (startDelim >= 0) {
+        int startDelim2 = text.indexOf (startVariable, startDelim + 1);
+        if (startDelim2 == (startDelim + 1)) {
+          startDelim = startDelim2;
+        }
+      }
+      if (startDelim < 0) {
+        varIndex = startDelim;
+      } else {
+        // if beginning found, now find the end
+        int endDelim = text.indexOf
+          (endVariable, startDelim + startVariable.length() + 1);
+        if (endDelim < 0) {
+          varIndex = endDelim;
+        } else {
+          TemplateVariable var = new TemplateVariable (text,
+              startDelim, endDelim,
+              startVariable, endVariable, startModifiers);
+          if (var.isLinkedTags()) {
+            interpreted = true;
+          }
+          if (var.listSep != ' ') {
+            listSeparator = true;
+          }
+          literalList.add (text.substring (literalStart, startDelim));
+          variableList.add (var);
+          varIndex = endDelim + endVariable.length();
+          literalStart = varIndex;
+        }
+      }
+    } // end while looking for more variables
+    literalList.add (text.substring (literalStart));
+
+    literals = literalList.toArray (new String [literalList.size()]);
+    variables = variableList.toArray
+        (new TemplateVariable [variableList.size()]);
+  } // end constructor
+
+  /**
+     Were these the delimiters used to compile this text?
+
+     @return True if the passed delimiters match those used to compile.
+   */
+  public boolean usesDelimiters (String startVariable,
+      String endVariable, String startModifiers) {
+    return (this.startVariable.equals (startVariable)
+        && this.endVariable.equals (endVariable)
+        && this.startModifiers.equals (startModifiers));
+  }
+
+  /**
+     Must this text be processed by scanning it at run time, because one
+     or more replacement values will contain further variables?
+
+     @return True if the compiled form cannot be used.
+   */
+  public boolean isInterpreted () {
+    return interpreted;
+  }
+
+  /**
+     Does the text contain a variable with a list separator, whose 
+     replacement value depends on whether a list item is already pending?
+  
+     @return True if any variable uses a list separator.
+   */
+  public boolean usesListSeparator () {
+    return listSeparator;
+  }
+
+  /**
+     Returns the number of variables in the text.
+
+     @return The number of variables.
+   */
+  public int getNumberOfVariables () {
+    return variables.length;
+  }
+
+  /**
+     Returns the literal text preceding the given variable, or following
+     the last variable.
+
+     @param i Index of the literal segment, from zero to the number of
+              variables.
+
+     @return The literal text.
+   */
+  public String getLiteral (int i) {
+    return literals [i];
+  }
+
+  /**
+     Returns the given variable.
+
+     @param i Index of the variable.
+
+     @return The variable.
+   */
+  public TemplateVariable getVariable (int i) {
+    return variables [i];
+  }
+
+  /**
+     Returns the length of the original text.
+
+     @return Length of the original text.
+   */
+  public int length () {
+    return text.length();
+  }
+
+  /**
+     Returns the original text.
+
+     @return The original text.
+   */
+  public String toString () {
+    return text;
+  }
+
+} // end class TemplateText
@@ -170,6 +170,12 @@ public class TemplateUtil {
   /** Number of lines written to the output text file so far. */
   private    int         textFileOutLineCount = 0;
   
+  /** 
+     Output text files held in memory until they can be written in order, 
+     when generating one unit of output, otherwise null. 
+   */
+  private    ArrayList<BufferedFile> bufferedFiles = null;
+  
   /** Number of times an output text file was successfully opened. */
   private    int         outputCommandCount = 0;
   
@@ -227,6 +233,9 @@ public class TemplateUtil {
   private             StringConverter     noBreaksConverter = null;
   
   private  CommonMarkup      htmlConverter     = new CommonMarkup ("txt", "html");
+  
+  /** Does the last replacement value need to be scanned for more variables? */
+  private  boolean           replaceAgain = false;
 
   /**
      Constructs the utility collection.
@@ -250,6 +259,82 @@ public class TemplateUtil {
     // io.logTypes();
   }
   
+  /**
+     Constructs a utility collection for one independent unit of output, 
+     such as a single output file, starting from the state of the passed
+     collection: the same log, file names, web root, delimiters and 
+     epub settings, along with a private copy of the global variables.
+     Group breaks, conditionals and output files all start afresh. 
+     Output files are held in memory, and only written by addUnitResults. 
+    
+     @param parent The utility collection from which settings are copied.
+   */
+  TemplateUtil (TemplateUtil parent) {
+    this (parent.log);
+    debug = parent.debug;
+    templateFileSimpleName = parent.templateFileSimpleName;
+    templateFilePathAndName = parent.templateFilePathAndName;
+    templateFileSpec = parent.templateFileSpec;
+    templateFileOK = parent.templateFileOK;
+    templateFileName = parent.templateFileName;
+    templateFilePath = parent.templateFilePath;
+    templateParent = parent.templateParent;
+    firstTemplateLine = false;
+    dataFileDisplay = parent.dataFileDisplay;
+    dataFileBaseName = parent.dataFileBaseName;
+    dataParent = parent.dataParent;
+    dataParentFolder = parent.dataParentFolder;
+    webRootFile = parent.webRootFile;
+    webRootFileName = parent.webRootFileName;
+    nlStartCommand = parent.nlStartCommand;
+    nlEndCommand = parent.nlEndCommand;
+    nlStartVariable = parent.nlStartVariable;
+    nlEndVariable = parent.nlEndVariable;
+    nlStartModifiers = parent.nlStartModifiers;
+    listItemPending = parent.listItemPending;
+    epub = parent.epub;
+    epubSite = parent.epubSite;
+    ifBypassDepth = parent.ifBypassDepth;
+    bufferedFiles = new ArrayList<BufferedFile>();
+    for (int i = 0; i < parent.globals.getNumberOfFields(); i++) {
+      DataField global = parent.globals.getField (i);
+      globals.addField (new DataField (global.getDef(), global.getData()));
+    }
+  }
+  
+  /**
+     Takes on the results of a unit of output generated by a separate 
+     utility collection, as if this collection had generated it: the 
+     unit's output files are written, in the order they were opened, the 
+     output command count is accumulated, and the unit's last output file 
+     becomes the last one opened. The unit is expected to have closed 
+     its own output file. Units must be added in the order in which they
+     would have been generated serially, so that when two units write the
+     same file, the later one wins. 
+    
+     @param unit The utility collection used to generate the output.
+   */
+  void addUnitResults (TemplateUtil unit) {
+    outputCommandCount = outputCommandCount + unit.outputCommandCount;
+    for (BufferedFile buffered : unit.bufferedFiles) {
+      FileMaker fileOut = new FileMaker (buffered.getFile());
+      if (fileOut.openForOutput()) {
+        fileOut.write (buffered.toString());
+        fileOut.close();
+      } else {
+        recordEvent (LogEvent.MAJOR, 
+          "Attempt to Open File " + buffered.getDestination() 
+            + " was unsuccessful", false);
+      }
+      textFileOut = fileOut;
+    }
+    if (unit.textFileOutName != null) {
+      textFileOutName = unit.textFileOutName;
+      textFileOutLineCount = unit.textFileOutLineCount;
+      relativePathToRoot = unit.relativePathToRoot;
+    }
+  }
+  
   public void setDebug(boolean debug) {
     this.debug = debug;
   }
@@ -848,8 +933,15 @@ public class TemplateUtil {
     } else {
       relativePathToRoot = null;
     }
-    textFileOut = new FileMaker
-      (this.textFileOutName.toString());
+    if (bufferedFiles == null) {
+      textFileOut = new FileMaker
+        (this.textFileOutName.toString());
+    } else {
+      BufferedFile buffered 
+          = new BufferedFile (new File (this.textFileOutName.toString()));
+      bufferedFiles.add (buffered);
+      textFileOut = buffered;
+    }
     outputCommandCount++;
     boolean ok = textFileOut.openForOutput();
     if (ok) {
@@ -1048,7 +1140,7 @@ public class TemplateUtil {
         String includeLine = includeFile.readLine(); 
         while (! includeFile.isAtEnd()) { 
           LineWithBreak lineWithBreak = replaceVariables
-            (new StringBuilder(includeLine), dataRec);
+            (compile (includeLine), dataRec);
           if (lineWithBreak.getLineBreak()) {
             writeLine (lineWithBreak.getLine());
           } else {
@@ -1224,428 +1316,10 @@ public class TemplateUtil {
           varIndex = endDelim;
         } else {
           // found beginning and end of variable -- process it
-          int endVar = endDelim;
-          // find beginning of variable modifiers, if any
-          int startMods = str.indexOf
-            (nlStartModifiers, startDelim + nlStartVariable.length() + 1);
-          int leadingCount = 0;
-          int caseCode = 0;
-          boolean initialCase = false;
-          char listSep = ' ';
-          boolean formatStringFound = false;
-          boolean underscoreFound = false;
-          StringBuilder formatStringBuf = new StringBuilder();
-          Date date = null;
-
-          boolean xml = false;
-          boolean html = false;
-          boolean markdown = false;
-          boolean fileBaseName = false;
-          boolean keepRight = false;
-          boolean convertLinks = false;
-          boolean makeFileName = false;
-          boolean makeFileNameReadable = false;
-          boolean noBreaks = false;
-          boolean noPunctuation = false;
-          boolean emailPunctuation = false;
-          boolean digitToLetter = false;
-          boolean linkedTags = false;
-          StringBuilder linkedTagsPath = new StringBuilder();
-          boolean replaceAgain = false;
-          boolean summary = false;
-          boolean vary = false;
-          char varyDelim = ' ';
-          StringBuilder varyBuf = new StringBuilder();
-          String varyFrom = "";
-          String varyTo = "";
-          String formatString;
-          
-          boolean demarcation = false;
-          int firstCase = 0;
-          int leadingCase = 0;
-          int normalCase = 0;
-          int caseCount = 0;
-          StringBuilder delimiter = new StringBuilder();
-          
-          // if we found any variable modifiers, then collect them now
-          if ((startMods > 0) && (startMods < endDelim)) {
-            endVar = startMods;
-            for (int i = startMods + 1; i < endDelim; i++) {
-              char workChar = str.charAt (i);
-              if (formatStringFound) {
-                formatStringBuf.append(workChar);
-              } else if (linkedTags) {
-                linkedTagsPath.append(workChar);
-              } else
-              if (vary) {
-                if (varyDelim == ' ') {
-                  varyDelim = workChar;
-                } else
-                if (workChar == varyDelim && varyBuf.length() > 1) {
-                  varyFrom = varyBuf.toString();
-                  varyBuf = new StringBuilder();
-                  varyTo = "";
-                } else {
-                  varyBuf.append(workChar);
-                  varyTo = varyBuf.toString();
-                }
-              } else
-              if (Character.toLowerCase(workChar) == 'v') {
-                vary = true;
-              } else
-              if (Character.toLowerCase (workChar) == 'c') {
-                demarcation = true;
-              } else
-              if (demarcation) {
-                int wordCase = -2;
-                if (Character.toLowerCase (workChar) == 'u') {
-                  wordCase = 1;
-                } else
-                if (Character.toLowerCase (workChar) == 'l') {
-                  wordCase = -1;
-                } else
-                if (Character.toLowerCase (workChar) == 'a') {
-                  wordCase = 0;
-                }
-                if (wordCase > -2) {
-                  caseCount++;
-                  switch (caseCount) {
-                    case 1:
-                      firstCase = wordCase;
-                      break;
-                    case 2:
-                      leadingCase = wordCase;
-                      break;
-                    default:
-                      normalCase = wordCase;
-                      break;
-                  }
-                } else {
-                  delimiter.append (workChar);
-                }
-              } else
-              if (Character.isDigit (workChar)) {
-                leadingCount = (leadingCount * 10)
-                  + Character.getNumericValue (workChar);
-              } else
-              if (workChar == '\'') {
-                emailPunctuation = true;
-              }
-              else
-              if (Character.toLowerCase(workChar) == 'f') {
-                makeFileName = true;
-              } else
-              if (makeFileName 
-                  && (! makeFileNameReadable)
-                  && Character.toLowerCase(workChar) == 'r') {
-                makeFileNameReadable = true;
-              } else
-              if (Character.toLowerCase (workChar) == 'l') {
-                caseCode = -1;
-              } else
-              if (Character.toLowerCase (workChar) == 'u') {
-                caseCode = +1;
-              } else
-              if (Character.toLowerCase (workChar) == 'i') {
-                initialCase = true;
-              } else
-              if (Character.toLowerCase(workChar) == 's') {
-                summary = true;
-              }
-              else
-              if (Character.toLowerCase (workChar) == 'x') {
-                xml = true;
-              } else
-              if (workChar == 'h') {
-                html = true;
-              } else
-              if (Character.toLowerCase(workChar) == 'o') {
-                markdown = true;
-              } else
-              if (Character.toLowerCase (workChar) == 'b') {
-                fileBaseName = true;
-              } else
-              if (Character.toLowerCase (workChar) == 'r') {
-                keepRight = true;
-              } else
-              if (Character.toLowerCase(workChar) == 'j') {
-                convertLinks = true;
-              }
-              else
-              if (Character.toLowerCase(workChar) == 'n') {
-                noBreaks = true;
-              } else
-              if (Character.toLowerCase(workChar) == 'p') {
-                noPunctuation = true;
-              } else
-              if (Character.toLowerCase(workChar) == 't') {
-                digitToLetter = true;
-              } else
-              if (Character.toLowerCase(workChar) == 'g') {
-                linkedTags = true;
-              }
-              else
-              if (Character.isLetter (workChar)) {
-                formatStringFound = true;
-                formatStringBuf.append (workChar);
-              } else
-              if (workChar == '_') {
-                underscoreFound = true;
-              } else
-              if (! Character.isLetterOrDigit (workChar)) {
-                listSep = workChar;
-              }
-            }
-          } // end of variable modifier processing
-          
-          // get variable name and replacement value
-          String variable = str.substring
-            ((startDelim + nlStartVariable.length()), endVar);
-          CommonName common = new CommonName (variable);
-          variable = common.getCommonForm();
-          String replaceData = GlobalConstants.EMPTY_STRING;
-          if (variable.equals (NO_LINE_BREAK)) {
-            lineWithBreak.setLineBreak(false);
-          } else
-          if (variable.equals (TEMPLATE_FILE_NAME_VARIABLE)) {
-            replaceData = getTemplateFileName();
-          } else
-          if (variable.equals (TEMPLATE_PARENT_NAME_VARIABLE)) {
-            replaceData = getTemplateParent();
-          } else
-          if (variable.equals (DATA_FILE_NAME_VARIABLE)) {
-            replaceData = getDataFileDisplay();
-          } else
-          if (variable.equals (DATA_FILE_BASE_NAME_VARIABLE)) {
-            replaceData = getDataFileBaseName();
-          }else
-          if (variable.equals (DATA_PARENT_NAME_VARIABLE)) {
-            replaceData = getDataParent();
-          } else 
-          if (variable.equals (DATA_PARENT_FOLDER_VARIABLE)) {
-            replaceData = getDataParentFolder();
-          } else
-          if (variable.equals (TODAYS_DATE_VARIABLE)) {
-            date = Calendar.getInstance().getTime();
-          } else
-          if (variable.equals (RELATIVE_VARIABLE)) {
-            replaceData = getRelativePathToRoot();
-          } else
-          if (globals.containsField (variable)) {
-            replaceData = globals.getFieldData (variable);
-          } else {
-            replaceData = dataRec.getFieldData (variable);
-          }
-          
-          // transform replacement value according to variable modifiers
-          if ((replaceData != null) 
-              && ((replaceData.length() > 0) 
-                || (variable.equals(RELATIVE_VARIABLE)))
-              ) {
-            if (digitToLetter) {
-              try {
-                int digit = Integer.parseInt(replaceData);
-                if (digit > 0 && digit <= 26) {
-                  replaceData = String.valueOf((char)(digit + 'A' - 1));
-                }
-              } catch (NumberFormatException e) {
-                // do nothing
-              }
-            } // end digit to letter
-            if (summary) {
-              int max = 250;
-              if (leadingCount > 0) {
-                max = leadingCount;
-              }
-              if (replaceData.length() > max) {
-                int sentenceCount = 0;
-                int endOfLastSentence = 0;
-                int lastSpace = 0;
-                int i = 0;
-                char c = ' ';
-                char lastChar = ' ';
-                
-                while (i < max) {
-                  lastChar = c;
-                  c = replaceData.charAt(i);
-                  if (c == ' ') {
-                    lastSpace = i;
-                    if (lastChar == '.') {
-                      endOfLastSentence = i;
-                      sentenceCount++;
-                    } // end if end of sentence
-                  } // end if space
-                  i++;
-                } // end of characters within summarization range
-                if (sentenceCount > 0) {
-                  replaceData = replaceData.substring(0, endOfLastSentence);
-                } else {
-                  replaceData = replaceData.substring(0, lastSpace) + "....";
-                }
-              } // end if we have any need to summarize at all
-            } // end if summarization requested
-            else
-            if (leadingCount > 0) {
-              if (leadingCount < replaceData.length()) {
-                if (keepRight) {
-                  replaceData = replaceData.substring (replaceData.length() - leadingCount);
-                } else {
-                  replaceData = replaceData.substring (0, leadingCount);
-                }
-              } else {
-                while (leadingCount > replaceData.length()) {
-                  replaceData = "0" + replaceData;
-                }
-              }
-            } // end if leadingCount > 0
-            
-            if (initialCase) {
-              StringBuilder work = new StringBuilder ("");
-              if (replaceData.length() > 0) {
-                if (caseCode > 0) {
-                  work.append (replaceData.substring(0,1).toUpperCase());
-                } else
-                if (caseCode < 0) {
-                  work.append (replaceData.substring(0,1).toLowerCase());
-                } else {
-                  work.append (replaceData.substring(0,1));
-                }
-                if (replaceData.length() > 1) {
-                  work.append (replaceData.substring (1));
-                }
-              } // end if replaceData length > 0
-              replaceData = work.toString();
-            } else {
-              if (caseCode > 0) {
-                replaceData = replaceData.toUpperCase();
-              } 
-              else
-              if (caseCode < 0) {
-                replaceData = replaceData.toLowerCase();
-              }
-            } // end if not initialCase
-            
-            if (makeFileNameReadable) {
-              replaceData = StringUtils.makeReadableFileName(replaceData.trim());
-            } else
-            if (makeFileName) {
-              replaceData = StringUtils.makeFileName(replaceData.trim(), false);
-            }
-            
-            if (underscoreFound) {
-              replaceData = StringUtils.replaceChars 
-                  (replaceData.trim(), " ", "_");
-            }
-            if (demarcation) {
-              replaceData = StringUtils.wordDemarcation 
-                  (replaceData, delimiter.toString(), firstCase, leadingCase, normalCase);
-            }
-            if (noBreaks) {
-              replaceData = noBreaks(replaceData);
-            }
-            if (noPunctuation) {
-              replaceData = StringUtils.purifyPunctuation(replaceData);
-            }
-            if (linkedTags) {
-              Tags tags = new Tags(replaceData);
-              if (linkedTagsPath.length() > 0
-                  && linkedTagsPath.charAt(linkedTagsPath.length() - 1) != '/') {
-                linkedTagsPath.append('/');
-              }
-              StringBuilder parent = new StringBuilder("=$relative$=");
-              parent.append(linkedTagsPath);
-              replaceData = tags.getLinkedTags(parent.toString());
-              replaceAgain = true;
-            }
-          } // end if replaceData non-blank
-          
-          if (listSep == ' ') {
-            setListItemPending (false);
-          } 
-          else 
-          if ((replaceData != null) && (replaceData.length() > 0)) {
-            if (isListItemPending()) {
-              if (listSep == '/' || listSep == '\\') {
-                replaceData = String.valueOf(listSep) + replaceData;
-              } else {
-                replaceData = String.valueOf(listSep) + " " + replaceData;
-              }
-            }
-            setListItemPending (true);
-          }
-          
-          if (date != null || 
-              (formatStringFound
-              && replaceData != null
-              && replaceData.length() > 0)) {
-            if (date == null) {
-              StringDate dateString = new StringDate();
-              dateString.parse(replaceData);
-              Calendar cal = dateString.getCalendar();
-              if (cal != null) {
-                date = cal.getTime();
-              } else {
-                date = new Date();
-              }
-              // StringScanner dateString = new StringScanner (replaceData);
-              // date = dateString.getDate("mdy");
-            }
-            if (formatStringBuf.length() > 0) {
-              formatString = formatStringBuf.toString();
-            } else {
-              formatString = DEFAULT_DATE_FORMAT;
-            }
-            
-            try {
-              SimpleDateFormat dateFormat = new SimpleDateFormat (formatString);
-              replaceData = dateFormat.format (date);
-            } catch (IllegalArgumentException e) {
-              replaceData = "";
-            }
-          }
-          
-          if (markdown) {
-            replaceData = MdToHTML.getShared().markdownToHtml(replaceData);
-          }
-          
-          if (xml) {
-            StringConverter xmlConverter = StringConverter.getXML();
-            replaceData = xmlConverter.convert (replaceData);
-          }
-
-          if (html) {
-            replaceData = htmlConverter.markup (replaceData, true);
-          }
-          
-          if (convertLinks) {
-            replaceData = StringUtils.convertLinks (replaceData);
-          }
-          
-          if (fileBaseName) {
-            FileName fn = new FileName (replaceData);
-            replaceData = fn.getBase();
-          }
-          
-          if (emailPunctuation) {
-            replaceData = emailQuotes(replaceData);
-          }
-
-          if (vary && (varyFrom.length() > 0)) {
-            StringBuilder varyStr = new StringBuilder(replaceData);
-            int i = 0;
-            while ((i >= 0) && (i < varyStr.length())) {
-              int start = i;
-              i = varyStr.indexOf(varyFrom, start);
-              if (i < 0) {
-                // We're done
-              } else {
-                varyStr.delete(i, (i + varyFrom.length()));
-                varyStr.insert(i, varyTo);
-                i = i + varyTo.length();
-              }
-            } // End while searching for variances
-            replaceData = varyStr.toString();
-          } // End if we found a variance modifier
+          TemplateVariable var = new TemplateVariable (str, 
+              startDelim, endDelim,
+              nlStartVariable, nlEndVariable, nlStartModifiers);
+          String replaceData = getReplacement (var, dataRec, lineWithBreak);
           
           // now perform the variable replacement
           if (replaceData != null) {
@@ -1663,20 +1337,345 @@ public class TemplateUtil {
       } // end processing when starting delimiters found
     } // end processing of all variables in line
     
-    // Check for a back slash at the end of the line
-    // If found, replace with a space, to ensure two spaces
-    // Which will generat a line break when converting Markdown to HTML
+    endWithLineBreak (str);
+    lineWithBreak.setLine(str);
+    return lineWithBreak;
+  }
+  
+  /**
+   Replace the variables found in a piece of compiled template text. 
+   The results will be the same as calling 
+   replaceVariables (StringBuilder, DataRecord) with the original text, 
+   but without having to scan the text and parse its variable modifiers
+   again. 
+  
+   @param text    The compiled text. 
+   @param dataRec The data record containing the variable values. 
+  
+   @return The resulting line. 
+  */
+  public LineWithBreak replaceVariables (TemplateText text, DataRecord dataRec) {
+    
+    if (text.isInterpreted()
+        || (! text.usesDelimiters 
+            (nlStartVariable, nlEndVariable, nlStartModifiers))) {
+      return replaceVariables (new StringBuilder (text.toString()), dataRec);
+    }
+    
+    LineWithBreak lineWithBreak = new LineWithBreak();
+    StringBuilder str = new StringBuilder (text.length() + 64);
+    int vars = text.getNumberOfVariables();
+    for (int i = 0; i < vars; i++) {
+      str.append (text.getLiteral (i));
+      TemplateVariable var = text.getVariable (i);
+      String replaceData = getReplacement (var, dataRec, lineWithBreak);
+      if (replaceData != null) {
+        str.append (replaceData);
+      } else {
+        str.append (var.getRawText());
+      }
+    }
+    str.append (text.getLiteral (vars));
+    
+    endWithLineBreak (str);
+    lineWithBreak.setLine(str);
+    return lineWithBreak;
+  }
+  
+  /**
+   Compile the passed text using the current delimiters. 
+  
+   @param str The text to be compiled. 
+  
+   @return The compiled text. 
+  */
+  public TemplateText compile (String str) {
+    return TemplateText.compile
+        (str, nlStartVariable, nlEndVariable, nlStartModifiers);
+  }
+  
+  /**
+   Check for a back slash at the end of the line.
+   If found, replace with a space, to ensure two spaces
+   Which will generat a line break when converting Markdown to HTML. 
+  
+   @param str The line to be checked. 
+  */
+  private void endWithLineBreak (StringBuilder str) {
     if (str.length() > 2
         && str.charAt(str.length() - 1) == '\\'
         && str.charAt(str.length() - 2) == ' ') {
       str.deleteCharAt(str.length() - 1);
       str.append(' ');
     }
-    
-    lineWithBreak.setLine(str);
-    return lineWithBreak;
   }
   
+  /**
+   Determine the replacement value for one variable. 
+  
+   @param var           The variable to be replaced. 
+   @param dataRec       The data record containing the variable values. 
+   @param lineWithBreak The line being built, in case the variable
+                        asks that it be written without a line break. 
+  
+   @return The replacement value, or null if the variable should be 
+           left in place. 
+  */
+  private String getReplacement (TemplateVariable var, DataRecord dataRec, 
+      LineWithBreak lineWithBreak) {
+    
+    String variable = var.getVariable();
+    Date date = null;
+    replaceAgain = false;
+    String replaceData = GlobalConstants.EMPTY_STRING;
+    if (variable.equals (NO_LINE_BREAK)) {
+      lineWithBreak.setLineBreak(false);
+    } else
+    if (variable.equals (TEMPLATE_FILE_NAME_VARIABLE)) {
+      replaceData = getTemplateFileName();
+    } else
+    if (variable.equals (TEMPLATE_PARENT_NAME_VARIABLE)) {
+      replaceData = getTemplateParent();
+    } else
+    if (variable.equals (DATA_FILE_NAME_VARIABLE)) {
+      replaceData = getDataFileDisplay();
+    } else
+    if (variable.equals (DATA_FILE_BASE_NAME_VARIABLE)) {
+      replaceData = getDataFileBaseName();
+    }else
+    if (variable.equals (DATA_PARENT_NAME_VARIABLE)) {
+      replaceData = getDataParent();
+    } else 
+    if (variable.equals (DATA_PARENT_FOLDER_VARIABLE)) {
+      replaceData = getDataParentFolder();
+    } else
+    if (variable.equals (TODAYS_DATE_VARIABLE)) {
+      date = Calendar.getInstance().getTime();
+    } else
+    if (variable.equals (RELATIVE_VARIABLE)) {
+      replaceData = getRelativePathToRoot();
+    } else
+    if (globals.containsField (variable)) {
+      replaceData = globals.getFieldData (variable);
+    } else {
+      replaceData = var.getFieldData (dataRec);
+    }
+    
+    // transform replacement value according to variable modifiers
+    if ((replaceData != null) 
+        && ((replaceData.length() > 0) 
+          || (variable.equals(RELATIVE_VARIABLE)))
+        ) {
+      if (var.digitToLetter) {
+        try {
+          int digit = Integer.parseInt(replaceData);
+          if (digit > 0 && digit <= 26) {
+            replaceData = String.valueOf((char)(digit + 'A' - 1));
+          }
+        } catch (NumberFormatException e) {
+          // do nothing
+        }
+      } // end digit to letter
+      if (var.summary) {
+        int max = 250;
+        if (var.leadingCount > 0) {
+          max = var.leadingCount;
+        }
+        if (replaceData.length() > max) {
+          int sentenceCount = 0;
+          int endOfLastSentence = 0;
+          int lastSpace = 0;
+          int i = 0;
+          char c = ' ';
+          char lastChar = ' ';
+          
+          while (i < max) {
+            lastChar = c;
+            c = replaceData.charAt(i);
+            if (c == ' ') {
+              lastSpace = i;
+              if (lastChar == '.') {
+                endOfLastSentence = i;
+                sentenceCount++;
+              } // end if end of sentence
+            } // end if space
+            i++;
+          } // end of characters within summarization range
+          if (sentenceCount > 0) {
+            replaceData = replaceData.substring(0, endOfLastSentence);
+          } else {
+            replaceData = replaceData.substring(0, lastSpace) + "....";
+          }
+        } // end if we have any need to summarize at all
+      } // end if summarization requested
+      else
+      if (var.leadingCount > 0) {
+        if (var.leadingCount < replaceData.length()) {
+          if (var.keepRight) {
+            replaceData = replaceData.substring (replaceData.length() - var.leadingCount);
+          } else {
+            replaceData = replaceData.substring (0, var.leadingCount);
+          }
+        } else {
+          while (var.leadingCount > replaceData.length()) {
+            replaceData = "0" + replaceData;
+          }
+        }
+      } // end if leadingCount > 0
+      
+      if (var.initialCase) {
+        StringBuilder work = new StringBuilder ("");
+        if (replaceData.length() > 0) {
+          if (var.caseCode > 0) {
+            work.append (replaceData.substring(0,1).toUpperCase());
+          } else
+          if (var.caseCode < 0) {
+            work.append (replaceData.substring(0,1).toLowerCase());
+          } else {
+            work.append (replaceData.substring(0,1));
+          }
+          if (replaceData.length() > 1) {
+            work.append (replaceData.substring (1));
+          }
+        } // end if replaceData length > 0
+        replaceData = work.toString();
+      } else {
+        if (var.caseCode > 0) {
+          replaceData = replaceData.toUpperCase();
+        } 
+        else
+        if (var.caseCode < 0) {
+          replaceData = replaceData.toLowerCase();
+        }
+      } // end if not initialCase
+      
+      if (var.makeFileNameReadable) {
+        replaceData = StringUtils.makeReadableFileName(replaceData.trim());
+      } else
+      if (var.makeFileName) {
+        replaceData = StringUtils.makeFileName(replaceData.trim(), false);
+      }
+      
+      if (var.underscoreFound) {
+        replaceData = StringUtils.replaceChars 
+            (replaceData.trim(), " ", "_");
+      }
+      if (var.demarcation) {
+        replaceData = StringUtils.wordDemarcation 
+            (replaceData, var.delimiter, var.firstCase, var.leadingCase, var.normalCase);
+      }
+      if (var.noBreaks) {
+        replaceData = noBreaks(replaceData);
+      }
+      if (var.noPunctuation) {
+        replaceData = StringUtils.purifyPunctuation(replaceData);
+      }
+      if (var.linkedTags) {
+        Tags tags = new Tags(replaceData);
+        StringBuilder linkedTagsPath = new StringBuilder(var.linkedTagsPath);
+        if (linkedTagsPath.length() > 0
+            && linkedTagsPath.charAt(linkedTagsPath.length() - 1) != '/') {
+          linkedTagsPath.append('/');
+        }
+        StringBuilder parent = new StringBuilder("=$relative$=");
+        parent.append(linkedTagsPath);
+        replaceData = tags.getLinkedTags(parent.toString());
+        replaceAgain = true;
+      }
+    } // end if replaceData non-blank
+    
+    if (var.listSep == ' ') {
+      setListItemPending (false);
+    } 
+    else 
+    if ((replaceData != null) && (replaceData.length() > 0)) {
+      if (isListItemPending()) {
+        if (var.listSep == '/' || var.listSep == '\\') {
+          replaceData = String.valueOf(var.listSep) + replaceData;
+        } else {
+          replaceData = String.valueOf(var.listSep) + " " + replaceData;
+        }
+      }
+      setListItemPending (true);
+    }
+    
+    if (date != null || 
+        (var.formatStringFound
+        && replaceData != null
+        && replaceData.length() > 0)) {
+      if (date == null) {
+        StringDate dateString = new StringDate();
+        dateString.parse(replaceData);
+        Calendar cal = dateString.getCalendar();
+        if (cal != null) {
+          date = cal.getTime();
+        } else {
+          date = new Date();
+        }
+        // StringScanner dateString = new StringScanner (replaceData);
+        // date = dateString.getDate("mdy");
+      }
+      String formatString;
+      if (var.formatString.length() > 0) {
+        formatString = var.formatString;
+      } else {
+        formatString = DEFAULT_DATE_FORMAT;
+      }
+      
+      try {
+        SimpleDateFormat dateFormat = new SimpleDateFormat (formatString);
+        replaceData = dateFormat.format (date);
+      } catch (IllegalArgumentException e) {
+        replaceData = "";
+      }
+    }
+    
+    if (var.markdown) {
+      replaceData = MdToHTML.getShared().markdownToHtml(replaceData);
+    }
+    
+    if (var.xml) {
+      StringConverter xmlConverter = StringConverter.getXML();
+      replaceData = xmlConverter.convert (replaceData);
+    }
+
+    if (var.html) {
+      replaceData = htmlConverter.markup (replaceData, true);
+    }
+    
+    if (var.convertLinks) {
+      replaceData = StringUtils.convertLinks (replaceData);
+    }
+    
+    if (var.fileBaseName) {
+      FileName fn = new FileName (replaceData);
+      replaceData = fn.getBase();
+    }
+    
+    if (var.emailPunctuation) {
+      replaceData = emailQuotes(replaceData);
+    }
+
+    if (var.vary && (var.varyFrom.length() > 0)) {
+      StringBuilder varyStr = new StringBuilder(replaceData);
+      int i = 0;
+      while ((i >= 0) && (i < varyStr.length())) {
+        int start = i;
+        i = varyStr.indexOf(var.varyFrom, start);
+        if (i < 0) {
+          // We're done
+        } else {
+          varyStr.delete(i, (i + var.varyFrom.length()));
+          varyStr.insert(i, var.varyTo);
+          i = i + var.varyTo.length();
+        }
+      } // End while searching for variances
+      replaceData = varyStr.toString();
+    } // End if we found a variance modifier
+    
+    return replaceData;
+  } // end method getReplacement
+  
   public String emailQuotes (String html) {
     StringBuilder str = new StringBuilder(html);
     int i = 0;
@@ -1720,5 +1719,25 @@ public class TemplateUtil {
     }
     return str.toString();
   }
+  
+  /**
+     An output text file held in memory, to be written later. 
+   */
+  static class BufferedFile 
+      extends StringMaker {
+    
+    private File file;
+    
+    BufferedFile (File file) {
+      this.file = file;
+    }
+    
+    public File getFile () {
+      return file;
+    }
+    
+    public String getDestination () {
+      return file.toString();
+    }
+  } // end inner class BufferedFile
 }
-
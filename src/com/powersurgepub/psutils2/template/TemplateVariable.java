@@ -0,0 +1,308 @@
+/*
+ * Copyright 1999 - 2017 Herb Bowie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.powersurgepub.psutils2.template;
+
+	import com.powersurgepub.psutils2.records.*;
+	import com.powersurgepub.psutils2.strings.*;
+
+/**
+   One variable found within a template line, with its name reduced to
+   common form and its modifiers already parsed, so that the same
+   variable can be replaced for any number of data records without
+   scanning its text again. <p>
+ */
+public class TemplateVariable {
+
+  /** The complete variable text, including delimiters. */
+  private    String       rawText;
+
+  /** The variable name, in common form. */
+  private    String       variable;
+
+  /**
+     The column in which this variable was last found within a data record,
+     used as a starting guess for the next record.
+   */
+  private    int          columnHint = -1;
+
+  int          leadingCount = 0;
+  int          caseCode = 0;
+  boolean      initialCase = false;
+  char         listSep = ' ';
+  boolean      formatStringFound = false;
+  String       formatString = "";
+  boolean      underscoreFound = false;
+  boolean      xml = false;
+  boolean      html = false;
+  boolean      markdown = false;
+  boolean      fileBaseName = false;
+  boolean      keepRight = false;
+  boolean      convertLinks = false;
+  boolean      makeFileName = false;
+  boolean      makeFileNameReadable = false;
+  boolean      noBreaks = false;
+  boolean      noPunctuation = false;
+  boolean      emailPunctuation = false;
+  boolean      digitToLetter = false;
+  boolean      linkedTags = false;
+  String       linkedTagsPath = "";
+  boolean      summary = false;
+  boolean      vary = false;
+  String       varyFrom = "";
+  String       varyTo = "";
+  boolean      demarcation = false;
+  int          firstCase = 0;
+  int          leadingCase = 0;
+  int          normalCase = 0;
+  String       delimiter = "";
+
+  /**
+     Parses a variable found within a line of template text.
+
+     @param str            The text containing the variable.
+     @param startDelim     Position of the starting variable delimiter.
+     @param endDelim       Position of the ending variable delimiter.
+     @param startVariable  The starting variable delimiter.
+     @param endVariable    The ending variable delimiter.
+     @param startModifiers The string marking the start of modifiers.
+   */
+  public TemplateVariable (CharSequence str, int startDelim, int endDelim,
+      String startVariable, String endVariable, String startModifiers) {
+
+    rawText = str.subSequence
+        (startDelim, endDelim + endVariable.length()).toString();
+    String text = str.toString();
+
+    int endVar = endDelim;
+
+    // find beginning of variable modifiers, if any
+    int startMods = text.indexOf
+      (startModifiers, startDelim + startVariable.length() + 1);
+
+    StringBuilder formatStringBuf = new StringBuilder();
+    StringBuilder linkedTagsBuf = new StringBuilder();
+    char varyDelim = ' ';
+    StringBuilder varyBuf = new StringBuilder();
+    int caseCount = 0;
+    StringBuilder delimiterBuf = new StringBuilder();
+
+    // if we found any variable modifiers, then collect them now
+    if ((startMods > 0) && (startMods < endDelim)) {
+      endVar = startMods;
+      for (int i = startMods + 1; i < endDelim; i++) {
+        char workChar = text.charAt (i);
+        if (formatStringFound) {
+          formatStringBuf.append(workChar);
+        } else if (linkedTags) {
+          linkedTagsBuf.append(workChar);
+        } else
+        if (vary) {
+          if (varyDelim == ' ') {
+            varyDelim = workChar;
+          } else
+          if (workChar == varyDelim && varyBuf.length() > 1) {
+            varyFrom = varyBuf.toString();
+            varyBuf = new StringBuilder();
+            varyTo = "";
+          } else {
+            varyBuf.append(workChar);
+            varyTo = varyBuf.toString();
+          }
+        } else
+        if (Character.toLowerCase(workChar) == 'v') {
+          vary = true;
+        } else
+        if (Character.toLowerCase (workChar) == 'c') {
+          demarcation = true;
+        } else
+        if (demarcation) {
+          int wordCase = -2;
+          if (Character.toLowerCase (workChar) == 'u') {
+            wordCase = 1;
+          } else
+          if (Character.toLowerCase (workChar) == 'l') {
+            wordCase = -1;
+          } else
+          if (Character.toLowerCase (workChar) == 'a') {
+            wordCase = 0;
+          }
+          if (wordCase > -2) {
+            caseCount++;
+            switch (caseCount) {
+              case 1:
+                firstCase = wordCase;
+                break;
+              case 2:
+                leadingCase = wordCase;
+                break;
+              default:
+                normalCase = wordCase;
+                break;
+            }
+          } else {
+            delimiterBuf.append (workChar);
+          }
+        } else
+        if (Character.isDigit (workChar)) {
+          leadingCount = (leadingCount * 10)
+            + Character.getNumericValue (workChar);
+        } else
+        if (workChar == '\'') {
+          emailPunctuation = true;
+        }
+        else
+        if (Character.toLowerCase(workChar) == 'f') {
+          makeFileName = true;
+        } else
+        if (makeFileName
+            && (! makeFileNameReadable)
+            && Character.toLowerCase(workChar) == 'r') {
+          makeFileNameReadable = true;
+        } else
+        if (Character.toLowerCase (workChar) == 'l') {
+          caseCode = -1;
+        } else
+        if (Character.toLowerCase (workChar) == 'u') {
+          caseCode = +1;
+        } else
+        if (Character.toLowerCase (workChar) == 'i') {
+          initialCase = true;
+        } else
+        if (Character.toLowerCase(workChar) == 's') {
+          summary = true;
+        }
+        else
+        if (Character.toLowerCase (workChar) == 'x') {
+          xml = true;
+        } else
+        if (workChar == 'h') {
+          html = true;
+        } else
+        if (Character.toLowerCase(workChar) == 'o') {
+          markdown = true;
+        } else
+        if (Character.toLowerCase (workChar) == 'b') {
+          fileBaseName = true;
+        } else
+        if (Character.toLowerCase (workChar) == 'r') {
+          keepRight = true;
+        } else
+        if (Character.toLowerCase(workChar) == 'j') {
+          convertLinks = true;
+        }
+        else
+        if (Character.toLowerCase(workChar) == 'n') {
+          noBreaks = true;
+        } else
+        if (Character.toLowerCase(workChar) == 'p') {
+          noPunctuation = true;
+        } else
+        if (Character.toLowerCase(workChar) == 't') {
+          digitToLetter = true;
+        } else
+        if (Character.toLowerCase(workChar) == 'g') {
+          linkedTags = true;
+        }
+        else
+        if (Character.isLetter (workChar)) {
+          formatStringFound = true;
+          formatStringBuf.append (workChar);
+        } else
+        if (workChar == '_') {
+          underscoreFound = true;
+        } else
+        if (! Character.isLetterOrDigit (workChar)) {
+          listSep = workChar;
+        }
+      }
+    } // end of variable modifier processing
+
+    formatString = formatStringBuf.toString();
+    linkedTagsPath = linkedTagsBuf.toString();
+    delimiter = delimiterBuf.toString();
+
+    String name = text.substring
+      ((startDelim + startVariable.length()), endVar);
+    variable = CommonName.getShared (name).getCommonForm();
+  } // end constructor
+
+  /**
+     Returns the variable name, in common form.
+
+     @return The variable name.
+   */
+  public String getVariable () {
+    return variable;
+  }
+
+  /**
+     Returns the complete text of the variable, as it appeared in the
+     template line, including delimiters and modifiers.
+
+     @return The variable's original text.
+   */
+  public String getRawText () {
+    return rawText;
+  }
+
+  /**
+     Does this variable have modifiers requesting a list of linked tags?
+     If so, then the replacement value will itself contain variables.
+
+     @return True if the replacement value must be scanned again.
+   */
+  public boolean isLinkedTags () {
+    return linkedTags;
+  }
+
+  /**
+     Returns the data for this variable from the passed record, in the
+     same way as DataRecord.getFieldData, but first checking the column
+     in which the variable was found in the last record.
+
+     @param dataRec The data record supplying the value.
+
+     @return The field data, or an empty string if the record has no
+             such field.
+   */
+  public String getFieldData (DataRecord dataRec) {
+    int hint = columnHint;
+    if (hint >= 0 && hint < dataRec.getNumberOfFields()) {
+      DataField field = dataRec.getField (hint);
+      if (field.getCommonFormOfName().equals (variable)) {
+        return field.getData();
+      }
+    }
+    int column = dataRec.getColumnNumber (variable);
+    if (column >= 0) {
+      columnHint = column;
+      return dataRec.getField(column).getData();
+    } else {
+      return dataRec.getFieldData (variable);
+    }
+  }
+
+  /**
+     Returns the original text of the variable.
+
+     @return The variable's original text.
+   */
+  public String toString () {
+    return rawText;
+  }
+
+} // end class TemplateVariable
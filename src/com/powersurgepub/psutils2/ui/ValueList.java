@@ -27,6 +27,13 @@ package com.powersurgepub.psutils2.ui;
    and kept synchronized with the list. The case (upper- or lower-) of the
    values is not considered significant. <p>
   
+   Values are found by a binary search of the (sorted) list, and a count is 
+   kept of the number of times each value has been registered, so that a 
+   value can be dropped from the list once it is no longer in use. Values 
+   may be registered on behalf of an owner (such as the item to which they
+   are assigned), in which case the owner's previous values are released 
+   whenever new ones are registered for it. <p>
+  
    @author Herb Bowie (<a href="mailto:herb@powersurgepub.com">
            herb@powersurgepub.com</a>)<br>
            of PowerSurge Publishing 
@@ -41,6 +48,21 @@ public class ValueList {
   
   private ComboBox<String> comboBox;
   
+  /** The number of times each value has been registered. */
+  private TreeMap<String, Integer> counts 
+      = new TreeMap<String, Integer>(String.CASE_INSENSITIVE_ORDER);
+  
+  /** The values most recently registered for each owner. */
+  private IdentityHashMap<Object, String[]> owned
+      = new IdentityHashMap<Object, String[]>();
+  
+  /** 
+   Is the list in alphabetical order? Only values added with addElement or 
+   insertElementAt can put it out of order, in which case values are 
+   found by stepping through the list, rather than by a binary search. 
+  */
+  private boolean ordered = true;
+  
   /**
    Creates a new instance of ValueList. 
   */
@@ -69,6 +91,7 @@ public class ValueList {
   
   public void addElement(String element) {
     // comboBox.getItems().add(element);
+    checkOrder(element, list.size());
     list.add(element);
   }
   
@@ -81,12 +104,71 @@ public class ValueList {
   
   public void insertElementAt(String value, int i) {
     // comboBox.getItems().add(i, value);
+    checkOrder(value, i);
     list.add(i, value);
   }
   
   public void removeElementAt(int i) {
     // comboBox.getItems().remove(i);
+    counts.remove(list.get(i));
     list.remove(i);
+    if (list.isEmpty()) {
+      ordered = true;
+    }
+  }
+  
+  /**
+   Note whether inserting a value at the given position would put the list 
+   out of alphabetical order. 
+  
+   @param value The value to be inserted. 
+   @param i     The position at which it is to be inserted. 
+  */
+  private void checkOrder(String value, int i) {
+    if ((i > 0 && list.get(i - 1).compareToIgnoreCase(value) > 0)
+        || (i < list.size() && value.compareToIgnoreCase(list.get(i)) > 0)) {
+      ordered = false;
+    }
+  }
+  
+  /**
+   Find the first position in the list holding a value greater than or 
+   equal to the given value, ignoring case. 
+  
+   @param value The value to be found. 
+  
+   @return The position at which the value is, or would be inserted. 
+  */
+  private int indexFor(String value) {
+    int low = 0;
+    int high = getSize();
+    if (ordered) {
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (value.compareToIgnoreCase(list.get(mid)) > 0) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+    } else {
+      while (low < high && value.compareToIgnoreCase(list.get(low)) > 0) {
+        low++;
+      }
+    }
+    return low;
+  }
+  
+  /**
+   Is the given value found at the given position in the list?
+  
+   @param value The value to be checked. 
+   @param i     The position returned by indexFor. 
+  
+   @return True if the value is at this position, ignoring case. 
+  */
+  private boolean isAt(String value, int i) {
+    return (i < getSize() && value.compareToIgnoreCase(list.get(i)) == 0);
   }
   
   /**
@@ -114,19 +196,135 @@ public class ValueList {
     @param  value  The assigned value to be checked.
    */
   public int registerValue (String value) {
+    int i = indexFor (value);
+    if (! isAt (value, i)) {
+      insertElementAt (value, i);
+      // this.fireContentsChanged(this, i, getSize());
+    }
+    counts.merge (value, 1, Integer::sum);
+    return i;
+  }
+  
+  /**
+    Register a batch of values at once, adding any that are not already
+    in the list with a single update to the list, rather than inserting 
+    them one at a time. 
+    
+    @param values The values to be registered. 
+   */
+  public void registerAll (Collection<String> values) {
+    if (! ordered) {
+      for (String value : values) {
+        registerValue (value);
+      }
+      return;
+    }
+    TreeSet<String> newValues = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+    for (String value : values) {
+      if ((! newValues.contains (value))
+          && (! isAt (value, indexFor (value)))) {
+        newValues.add (value);
+      }
+      counts.merge (value, 1, Integer::sum);
+    }
+    if (newValues.isEmpty()) {
+      return;
+    }
+    
+    // Merge the new values into the existing ones
+    ArrayList<String> merged = new ArrayList<String>(getSize() + newValues.size());
     int i = 0;
-    int result = 1;
-    while (i < getSize() && (result > 0)) {
-      result = value.compareToIgnoreCase ((String)getElementAt (i));
-      if (result > 0) {
+    for (String value : newValues) {
+      while (i < getSize() && value.compareToIgnoreCase (list.get(i)) > 0) {
+        merged.add (list.get(i));
         i++;
       }
+      merged.add (value);
     }
-    if (result != 0) {
-      insertElementAt (value, i);
-      // this.fireContentsChanged(this, i, getSize());
+    while (i < getSize()) {
+      merged.add (list.get(i));
+      i++;
+    }
+    list.setAll (merged);
+  }
+  
+  /**
+    Register the given values on behalf of an owner, releasing any values 
+    previously registered for the same owner. 
+    
+    @param owner  The object to which the values belong. 
+    @param values The values now belonging to the owner. 
+   */
+  public void registerValues (Object owner, Collection<String> values) {
+    String[] previous = owned.put (owner, values.toArray (new String [values.size()]));
+    for (String value : values) {
+      registerValue (value);
+    }
+    if (previous != null) {
+      for (String value : previous) {
+        releaseValue (value);
+      }
+    }
+  }
+  
+  /**
+    Register the values for a batch of owners at once (see registerAll). 
+    
+    @param valuesByOwner The values belonging to each owner. 
+   */
+  public void registerAll (Map<?, ? extends Collection<String>> valuesByOwner) {
+    ArrayList<String> values = new ArrayList<String>();
+    ArrayList<String> previousValues = new ArrayList<String>();
+    for (Map.Entry<?, ? extends Collection<String>> entry : valuesByOwner.entrySet()) {
+      Collection<String> ownerValues = entry.getValue();
+      String[] previous = owned.put (entry.getKey(), 
+          ownerValues.toArray (new String [ownerValues.size()]));
+      values.addAll (ownerValues);
+      if (previous != null) {
+        previousValues.addAll (Arrays.asList (previous));
+      }
+    }
+    registerAll (values);
+    for (String value : previousValues) {
+      releaseValue (value);
+    }
+  }
+  
+  /**
+    Release the values registered on behalf of an owner. 
+    
+    @param owner The object to which the values belonged. 
+   */
+  public void releaseValues (Object owner) {
+    String[] previous = owned.remove (owner);
+    if (previous != null) {
+      for (String value : previous) {
+        releaseValue (value);
+      }
+    }
+  }
+  
+  /**
+    Release one registration of a value, removing it from the list once it 
+    is no longer registered at all. Values placed in the list without being 
+    registered are left alone. 
+    
+    @return The position of the value in the list (before removal, if it 
+            was removed), or -1 if the value has not been registered. 
+    @param  value  The value to be released. 
+   */
+  public int releaseValue (String value) {
+    Integer count = counts.get (value);
+    if (count == null) {
+      return -1;
+    }
+    else
+    if (count > 1) {
+      counts.put (value, count - 1);
+      return lookupValue (value);
+    } else {
+      return removeValue (value);
     }
-    return i;
   }
   
   /**
@@ -164,15 +362,8 @@ public class ValueList {
                found in the list. 
   */
   public int removeValue(String value) {
-    int i = 0;
-    int result = 1;
-    while (i < getSize() && (result > 0)) {
-      result = value.compareToIgnoreCase ((String)getElementAt (i));
-      if (result > 0) {
-        i++;
-      }
-    }
-    if (result == 0) {
+    int i = indexFor (value);
+    if (isAt (value, i)) {
       removeElementAt(i);
       // fireIntervalRemoved(this, i, i);
     } else {
@@ -189,21 +380,7 @@ public class ValueList {
                found in the list. 
   */
   public int removeValue(Object value) {
-    int i = 0;
-    int result = 1;
-    while (i < getSize() && (result > 0)) {
-      result = value.toString().compareToIgnoreCase (getElementAt(i).toString());
-      if (result > 0) {
-        i++;
-      }
-    }
-    if (result == 0) {
-      removeElementAt(i);
-      // fireIntervalRemoved(this, i, i);
-    } else {
-      i = -1;
-    }
-    return i;
+    return removeValue(value.toString());
   }
   
   /**
@@ -229,15 +406,8 @@ public class ValueList {
     @param  value  The value to be looked up.
    */
   public int lookupValue (String value) {
-    int i = 0;
-    int result = 1;
-    while (i < getSize() && (result > 0)) {
-      result = value.compareToIgnoreCase ((String)getElementAt (i));
-      if (result > 0) {
-        i++;
-      }
-    }
-    if (result != 0) {
+    int i = indexFor (value);
+    if (! isAt (value, i)) {
       i = -1;
     }
     return i;
@@ -251,18 +421,7 @@ public class ValueList {
     @param  value  The value to be looked up.
    */
   public int lookupValue (Object value) {
-    int i = 0;
-    int result = 1;
-    while (i < getSize() && (result > 0)) {
-      result = value.toString().compareToIgnoreCase (getElementAt(i).toString());
-      if (result > 0) {
-        i++;
-      }
-    }
-    if (result != 0) {
-      i = -1;
-    }
-    return i;
+    return lookupValue (value.toString());
   }
   
   /**